@@ -4,7 +4,6 @@ import java.util.Random;
 
 import supermart.backEnd.Item;
 import supermart.backEnd.Stock;
-import supermart.exceptions.DryException;
 
 //static class used to generate random stocks for TruckTest.java and Manifest.java
 //each truck needs to be filled with a randomly generated stock, and given the these tests
@@ -143,25 +142,17 @@ public class StockGenerator {
 			// but a cold item needs to meet certain temperature requirements to be added
 			// (can't be colder than the given temp argument, or else it will spoil) 
 				
-			// to do this, we need to try and run a GetTemperature() method
-			// because the GetTemperature() method can throw a DryException, we put
-			// this loop inside a try/catch statement
-			try {
-				
-				// while loop used to guarantee the item temperature is equal to
-				// or above the given temperature argument.
-				while(toAdd.GetTemperature() < temperature) {
-					
-					// if the item's temperature requirement is less than the given temp,
-					// then it will spoil, so we need to regenerate it
-					toAdd = generateItem();
-				}
-			} catch (DryException dry) {
+			// to do this, we check hasTemperature() before reading the item's temperature.
+			// a dry item gets a free pass into the stock, because it doesn't
+			// need to conform to a temperature standard, so the loop stops on a dry item.
+			
+			// while loop used to guarantee the item temperature is equal to
+			// or above the given temperature argument.
+			while(toAdd.hasTemperature() && toAdd.temperature() < temperature) {
 				
-				//if the dry exception is thrown, then this item is dry.
-				//a dry item gets a free pass into the stock, because it doesn't
-				//need to conform to a temperature standard.
-				//ergo, do nothing.
+				// if the item's temperature requirement is less than the given temp,
+				// then it will spoil, so we need to regenerate it
+				toAdd = generateItem();
 			}
 			
 			//once the item is guaranteed to fit the criteria, add it to the stock.
@@ -0,0 +1,381 @@
+package supermart;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+import supermart.backEnd.Item;
+import supermart.backEnd.Manifest;
+import supermart.backEnd.Money;
+import supermart.backEnd.Stock;
+import supermart.backEnd.Store;
+import supermart.backEnd.Truck;
+import supermart.exceptions.DeliveryException;
+import supermart.exceptions.StockException;
+import supermart.frontEnd.CSVReader;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Runs a store through simulated days of trading, entirely in memory, to try out reorder rules
+ * (see Store.SetReorderMode) before they're used for real.
+ * <p>
+ * Each simulated day:
+ * <ol>
+ * <li>the deliveries due that day arrive and are imported (Store.ImportManifest)</li>
+ * <li>each item sells a random number of units around its mean demand, or as many as the store has
+ * left, and the day's sales are imported as one sales log (Store.ImportSales)</li>
+ * <li>the items that need reordering (Store.generateNewOrder) and aren't already on order are built into
+ * a manifest the same way the Gui's export does (CSVReader.BuildManifest), which arrives after the lead time</li>
+ * </ol>
+ * The random numbers come from the given seed, so the same store and seed always give the same days,
+ * and different reorder rules can be compared on exactly the same demand.
+ * <p>
+ * Only the items the store stocked when the simulation was built are simulated. An item added to the
+ * store later has no demand, and is left out of the simulation's orders. A delivery the store can't
+ * afford is refused (see Store.ImportManifest) and counted as a failed order, and its items are
+ * ordered again the next day.
+ * <p>
+ * One sales Stock holding every item is reused for every day's sales log, so simulating a sale line
+ * doesn't allocate anything. A simulation isn't thread safe, but each one only touches its own store,
+ * so many simulations (one per rule being tried) can be run on different threads at once.
+ */
+public final class StoreSimulation {
+
+	//the store being simulated, and where its random numbers come from
+	private final Store store;
+	private final SplittableRandom random;
+
+	//every item the store stocks (sorted by name, so the seed always gives the same sales),
+	//and the average units of each sold per day
+	private final Item[] items;
+	private final int[] meanDemand;
+	private final HashMap<String, Integer> indexes = new HashMap<String, Integer>();
+
+	//the sales log reused for every day, holding every item
+	private final Stock sales;
+
+	//whether each item is on a delivery that hasn't arrived yet (so it isn't ordered twice)
+	private final boolean[] onOrder;
+
+	//the deliveries that haven't arrived yet, soonest first (the lead time can be shortened while
+	//orders are on the way, so a later order can arrive before an earlier one), and the number of
+	//orders placed so far (deliveries arriving on the same day are imported in the order they were placed)
+	private final PriorityQueue<Delivery> deliveries = new PriorityQueue<Delivery>(
+			Comparator.comparingInt((Delivery delivery) -> delivery.arrival).thenComparingLong(delivery -> delivery.sequence));
+	private long orders;
+
+	//the number of days from ordering a delivery until it arrives
+	private int leadTime = 1;
+
+	//the last day simulated, and the number of sale lines simulated so far
+	private int day;
+	private long saleLines;
+
+	/**
+	 * Constructs a simulation of a store, giving each item a random mean demand.
+	 *
+	 * @param store The store to simulate (its stock is changed by the simulation)
+	 * @param seed The seed the simulation's random numbers come from
+	 * @param maxMeanDemand The most units of an item sold on an average day
+	 */
+	public StoreSimulation(Store store, long seed, int maxMeanDemand) {
+		if (maxMeanDemand < 0) {
+			throw new IllegalArgumentException("mean demand can't be negative, not " + maxMeanDemand);
+		}
+		this.store = store;
+		random = new SplittableRandom(seed);
+
+		items = store.getStock().keySet().toArray(new Item[0]);
+		Arrays.sort(items, Comparator.comparing(Item::GetName));
+		meanDemand = new int[items.length];
+		onOrder = new boolean[items.length];
+		sales = new Stock(items.length);
+		for (int i = 0; i < items.length; i++) {
+			meanDemand[i] = random.nextInt(maxMeanDemand + 1);
+			indexes.put(items[i].GetName(), i);
+			sales.addItem(items[i]);
+		}
+	}
+
+	/**
+	 * Sets the average units of an item sold per day.
+	 *
+	 * @param itemName The name of the item
+	 * @param units The mean demand for the item
+	 * @throws IllegalArgumentException Thrown if the store doesn't stock the item, or the demand is negative
+	 */
+	public void SetMeanDemand(String itemName, int units) {
+		Integer index = indexes.get(itemName);
+		if (index == null || units < 0) {
+			throw new IllegalArgumentException("can't set a mean demand of " + units + " for " + itemName);
+		}
+		meanDemand[index] = units;
+	}
+
+	/**
+	 * Sets the number of days from ordering a delivery until it arrives.
+	 * <p>
+	 * Deliveries already on the way still arrive on the day they were due.
+	 *
+	 * @param days The lead time, at least 1 (a delivery ordered today arrives tomorrow)
+	 */
+	public void SetLeadTime(int days) {
+		if (days < 1) {
+			throw new IllegalArgumentException("a delivery takes at least a day, not " + days);
+		}
+		leadTime = days;
+	}
+
+	/**
+	 * Simulates several days of trading.
+	 *
+	 * @param days The number of days to simulate
+	 * @return The report for each day, in order
+	 * @throws StockException Thrown if a day's sales can't be imported into the store (this shouldn't happen)
+	 */
+	public ArrayList<DayReport> run(int days) throws StockException {
+		ArrayList<DayReport> reports = new ArrayList<DayReport>(days);
+		for (int i = 0; i < days; i++) {
+			reports.add(runDay());
+		}
+		return reports;
+	}
+
+	/**
+	 * Simulates one day of trading: deliveries arrive, items sell, and new stock is ordered.
+	 *
+	 * @return The report for the day
+	 * @throws StockException Thrown if the day's sales can't be imported into the store (this shouldn't happen)
+	 */
+	public DayReport runDay() throws StockException {
+		day++;
+		DayReport report = new DayReport(day);
+		receive(report);
+		sell(report);
+		order(report);
+		report.capitalCents = store.getCapitalCents();
+		return report;
+	}
+
+	/**
+	 * Imports every delivery due today.
+	 */
+	private void receive(DayReport report) {
+		while (!deliveries.isEmpty() && deliveries.peek().arrival <= day) {
+			Delivery delivery = deliveries.poll();
+			try {
+				store.ImportManifest(delivery.manifest);
+				for (Truck truck : delivery.manifest) {
+					report.trucks++;
+					report.truckSpendCents = Money.add(report.truckSpendCents, truck.getPriceCents());
+				}
+			} catch (DeliveryException | StockException e) {
+				report.failedOrders++;
+			}
+
+			//either way the items aren't on order any more
+			for (int index : delivery.items) {
+				onOrder[index] = false;
+			}
+		}
+	}
+
+	/**
+	 * Draws each item's demand for the day, and imports what the store could sell as one sales log.
+	 */
+	private void sell(DayReport report) throws StockException {
+		Stock stock = store.getStock();
+		for (int i = 0; i < items.length; i++) {
+
+			//demand is spread evenly from 0 to twice the mean
+			int demand = random.nextInt(2 * meanDemand[i] + 1);
+			int onHand = stock.getQuantity(items[i]);
+			int sold = Math.min(demand, onHand);
+			if (sold < demand) {
+				report.stockOuts++;
+				report.unitsShort += demand - sold;
+			}
+			report.unitsSold += sold;
+			sales.SetQuantity(items[i], sold);
+		}
+		store.ImportSales(sales);
+		saleLines += items.length;
+	}
+
+	/**
+	 * Orders the items that need reordering and aren't already on order.
+	 */
+	private void order(DayReport report) {
+		ArrayList<Item> order = store.generateNewOrder();
+
+		//items the simulation doesn't know (added to the store after it was built) aren't ordered
+		order.removeIf(item -> {
+			Integer index = indexes.get(item.GetName());
+			return index == null || onOrder[index];
+		});
+		if (order.isEmpty()) {
+			return;
+		}
+
+		try {
+			Manifest manifest = CSVReader.BuildManifest(store, order);
+			int[] ordered = new int[order.size()];
+			for (int i = 0; i < ordered.length; i++) {
+				ordered[i] = indexes.get(order.get(i).GetName());
+				onOrder[ordered[i]] = true;
+			}
+			deliveries.add(new Delivery(day + leadTime, orders++, manifest, ordered));
+		} catch (DeliveryException e) {
+			report.failedOrders++;
+		}
+	}
+
+	/**
+	 * Returns the last day simulated
+	 * @return The number of days simulated so far
+	 */
+	public int getDay() {
+		return day;
+	}
+
+	/**
+	 * Returns the number of sale lines (one item on one day) simulated so far
+	 * @return The number of sale lines
+	 */
+	public long getSaleLines() {
+		return saleLines;
+	}
+
+	/**
+	 * Returns the store being simulated
+	 * @return The store
+	 */
+	public Store getStore() {
+		return store;
+	}
+
+	/**
+	 * A manifest on its way to the store.
+	 */
+	private static class Delivery {
+		final int arrival;
+		final long sequence;
+		final Manifest manifest;
+		final int[] items;
+
+		Delivery(int arrival, long sequence, Manifest manifest, int[] items) {
+			this.arrival = arrival;
+			this.sequence = sequence;
+			this.manifest = manifest;
+			this.items = items;
+		}
+	}
+
+	/**
+	 * What happened on one simulated day.
+	 */
+	public static final class DayReport {
+
+		private final int day;
+		private long capitalCents;
+		private long unitsSold;
+		private long unitsShort;
+		private int stockOuts;
+		private int trucks;
+		private long truckSpendCents;
+		private int failedOrders;
+
+		DayReport(int day) {
+			this.day = day;
+		}
+
+		/**
+		 * Returns the day the report is for
+		 * @return The day, counted from 1
+		 */
+		public int getDay() {
+			return day;
+		}
+
+		/**
+		 * Returns the store's capital at the end of the day
+		 * @return The capital, in cents
+		 */
+		public long getCapitalCents() {
+			return capitalCents;
+		}
+
+		/**
+		 * Returns the units sold during the day
+		 * @return The total units sold
+		 */
+		public long getUnitsSold() {
+			return unitsSold;
+		}
+
+		/**
+		 * Returns the units customers wanted but the store didn't have
+		 * @return The total units of demand that went unmet
+		 */
+		public long getUnitsShort() {
+			return unitsShort;
+		}
+
+		/**
+		 * Returns the number of items that ran out before their demand was met
+		 * @return The number of stock-outs
+		 */
+		public int getStockOuts() {
+			return stockOuts;
+		}
+
+		/**
+		 * Returns the number of trucks delivered during the day
+		 * @return The number of trucks
+		 */
+		public int getTrucks() {
+			return trucks;
+		}
+
+		/**
+		 * Returns the hire cost of the trucks delivered during the day
+		 * @return The truck spend, in cents
+		 */
+		public long getTruckSpendCents() {
+			return truckSpendCents;
+		}
+
+		/**
+		 * Returns the number of orders that couldn't be built or delivered during the day
+		 * (including deliveries refused because the store couldn't pay for them)
+		 * @return The number of failed orders
+		 */
+		public int getFailedOrders() {
+			return failedOrders;
+		}
+
+		/**
+		 * Returns whether the store's capital was negative at the end of the day
+		 * (deliveries can't make it negative, but the store may have started that way)
+		 * @return true if the store was overdrawn
+		 */
+		public boolean isOverdrawn() {
+			return capitalCents < 0;
+		}
+
+		/**
+		 * Returns the report as one line, e.g. "day 3: capital 1000.00, sold 120, short 4, stock-outs 1, trucks 2, truck spend 1500.00"
+		 */
+		public String toString() {
+			return "day " + day + ": capital " + Money.format(capitalCents) + ", sold " + unitsSold
+					+ ", short " + unitsShort + ", stock-outs " + stockOuts + ", trucks " + trucks
+					+ ", truck spend " + Money.format(truckSpendCents)
+					+ (failedOrders > 0 ? ", failed orders " + failedOrders : "")
+					+ (isOverdrawn() ? ", overdrawn" : "");
+		}
+	}
+}
@@ -34,6 +34,12 @@ public class SupermartEnums {
 		NAME, DETAILS
 	}
 	
+	//how a store decides how much of an item to reorder (see Store.getReorderQuantity)
+	//STATIC orders each item's reorder amount, FORECAST orders what the item is forecast to sell
+	public static enum ReorderMode {
+		STATIC, FORECAST
+	}
+	
 	public static enum TruckType {
 		ORDINARY(1000), REFRIGERATED(800);
 		
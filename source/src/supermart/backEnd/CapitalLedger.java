@@ -0,0 +1,210 @@
+package supermart.backEnd;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * A store's capital, in whole cents, that many threads can change at once without losing
+ * an update or waiting on each other.
+ * <p>
+ * The capital is split across several stripes (in the style of a LongAdder), and each thread
+ * adds to its own stripe, so threads importing sales at the same time rarely touch the same
+ * lock or cache line. Each stripe is guarded by its own lock rather than being a bare atomic,
+ * so that reading the total, setting it, and the check-and-take of withdraw can lock every
+ * stripe (always in the same order) and see the capital at one exact moment. Reads and
+ * withdrawals are therefore linearisable, while plain additions only ever take one lock.
+ * <p>
+ * Every stripe is kept within the ledger's limit (Long.MAX_VALUE over the number of stripes), so the
+ * stripes can't add up to more than a long holds. An addition that would take its stripe past the
+ * limit locks every stripe instead, checks the total, and spreads it evenly across the stripes,
+ * so an overflowing total is always caught by the add that causes it.
+ */
+public final class CapitalLedger {
+
+	//most stripes a ledger will use (more would only make reading the total slower)
+	private static final int MAX_STRIPES = 64;
+
+	//each stripe's value sits in its own 128 byte block of the array, so two threads
+	//adding to neighbouring stripes don't keep stealing the same cache line from each other
+	private static final int PADDING = 16;
+
+	private final long[] values;
+	private final ReentrantLock[] locks;
+	private final int mask;
+
+	//the most (or least, negated) any stripe may hold without locking every stripe
+	private final long limit;
+
+	/**
+	 * Constructs a ledger holding the given amount, with stripes for twice the number of processors.
+	 *
+	 * @param cents The starting amount, in cents
+	 */
+	public CapitalLedger(long cents) {
+		int stripes = 1;
+		while (stripes < Runtime.getRuntime().availableProcessors() * 2 && stripes < MAX_STRIPES) {
+			stripes *= 2;
+		}
+		values = new long[stripes * PADDING];
+		locks = new ReentrantLock[stripes];
+		for (int i = 0; i < stripes; i++) {
+			locks[i] = new ReentrantLock();
+		}
+		mask = stripes - 1;
+		limit = Long.MAX_VALUE / stripes;
+		spreadLocked(cents);
+	}
+
+	/**
+	 * Adds an amount to the capital (a negative amount takes it away), without checking it stays positive.
+	 * <p>
+	 * Only the calling thread's stripe is locked, unless the stripe would go past the ledger's limit.
+	 * Then every stripe is locked and the amount is checked against the total instead.
+	 *
+	 * @param cents The amount to add, in cents
+	 * @throws ArithmeticException Thrown if the total would overflow (the capital is left unchanged)
+	 */
+	public void add(long cents) {
+		if (cents == 0) {
+			return;
+		}
+		int stripe = stripe();
+		ReentrantLock lock = locks[stripe];
+		lock.lock();
+		try {
+			long value = values[stripe * PADDING];
+			long sum = value + cents;
+
+			//the sum only overflowed if it has a different sign to both the stripe and the amount
+			if (((value ^ sum) & (cents ^ sum)) >= 0 && sum <= limit && sum >= -limit) {
+				values[stripe * PADDING] = sum;
+				return;
+			}
+		} finally {
+			lock.unlock();
+		}
+		withdrawOrAdd(cents, false);
+	}
+
+	/**
+	 * Adds an amount to the capital only if the capital stays at or above zero, in one atomic step.
+	 * <p>
+	 * Two deliveries checked at the same time can't both pass on the same money: every stripe is
+	 * locked while the total is checked and the amount is added.
+	 *
+	 * @param cents The amount to add, in cents (usually negative)
+	 * @return true if the amount was added, false if it would have made the capital negative
+	 * @throws ArithmeticException Thrown if the total would overflow
+	 */
+	public boolean withdraw(long cents) {
+		return withdrawOrAdd(cents, true);
+	}
+
+	/**
+	 * Returns the exact capital at one moment (every stripe is locked while it's added up).
+	 *
+	 * @return The capital, in cents
+	 */
+	public long get() {
+		lockAll();
+		try {
+			return sumLocked();
+		} finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * Sets the capital, replacing whatever every stripe held.
+	 *
+	 * @param cents The new capital, in cents
+	 */
+	public void set(long cents) {
+		lockAll();
+		try {
+			spreadLocked(cents);
+		} finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * Returns the number of stripes the capital is split across
+	 * @return The number of stripes
+	 */
+	public int getStripes() {
+		return locks.length;
+	}
+
+	/**
+	 * Returns the calling thread's stripe.
+	 */
+	private int stripe() {
+		//mix the thread's ID so threads created one after another land on different stripes
+		long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+		return (int) (id >>> 32) & mask;
+	}
+
+	/**
+	 * Adds an amount to the total with every stripe locked, refusing it if the total would go
+	 * negative when asked to. The new total is spread across the stripes (see spreadLocked).
+	 */
+	private boolean withdrawOrAdd(long cents, boolean checked) {
+		lockAll();
+		try {
+			long total = Money.add(sumLocked(), cents);
+			if (checked && total < 0) {
+				return false;
+			}
+			spreadLocked(total);
+			return true;
+		} finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * Replaces what every stripe holds with an even share of a total (the caller holds every lock).
+	 * <p>
+	 * Each share is within the limit, and the calling thread's stripe also takes the remainder.
+	 * That stripe can end up just past the limit, but only by less than the number of stripes,
+	 * and as the stripes are a power of two, they still can't add up to more than a long holds.
+	 */
+	private void spreadLocked(long total) {
+		long share = total / locks.length;
+		for (int i = 0; i < locks.length; i++) {
+			values[i * PADDING] = share;
+		}
+		values[stripe() * PADDING] = share + total % locks.length;
+	}
+
+	private long sumLocked() {
+		//every stripe is kept within the limit, so the sum always fits in a long
+		long total = 0;
+		for (int i = 0; i < locks.length; i++) {
+			total += values[i * PADDING];
+		}
+		return total;
+	}
+
+	//every stripe is always locked in index order, and add only ever holds one, so this can't deadlock
+	private void lockAll() {
+		for (ReentrantLock lock : locks) {
+			lock.lock();
+		}
+	}
+
+	private void unlockAll() {
+		for (int i = locks.length - 1; i >= 0; i--) {
+			locks[i].unlock();
+		}
+	}
+
+	/**
+	 * Returns the capital as dollars and cents, e.g. "-12.05".
+	 */
+	public String toString() {
+		return Money.format(get());
+	}
+}
@@ -0,0 +1,252 @@
+package supermart.backEnd;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Saves a store's name, capital, items and quantities to a compact binary file, and loads them back.
+ * <p>
+ * Loading a snapshot skips all of the CSV parsing (regex checks, and working out whether each
+ * item is cold or dry by trying to parse it), so a store can be back to where it was on the
+ * next launch almost straight away. The file is read through a memory map, so it is never
+ * copied into a buffer first.
+ * <p>
+ * A snapshot is taken from a copy on write view of the store's stock, so writing one never holds
+ * up imports for longer than it takes to take that view. If the store has an event log, the
+ * snapshot also records where in the log it was taken, so the log can be replayed on top of it
+ * (see EventLog.Replay) and the records before it dropped (see Checkpointer).
+ * <p>
+ * File layout (big endian):
+ * <pre>
+ * int    magic ("SMCS")
+ * int    format version
+ * short  store name length in bytes, then the name in UTF-8
+ * long   capital in cents
+ * long   ID of the event log the snapshot was taken from (0 if none)
+ * long   position in that log the snapshot includes
+ * int    number of items
+ * then for each item, in name order:
+ * short  name length in bytes, then the name in UTF-8
+ * long   cost in cents
+ * long   price in cents
+ * int    reorder point
+ * int    reorder amount
+ * byte   1 if the item is cold, 0 if it is dry
+ * double temperature (NaN for a dry item)
+ * int    quantity
+ * </pre>
+ * Version 1 snapshots (without the name and the log position) can still be loaded.
+ */
+public final class CatalogueSnapshot {
+
+	//"SMCS" in ASCII, the first four bytes of every snapshot file
+	private static final int MAGIC = 0x534D4353;
+	private static final int VERSION = 2;
+
+	//the smallest header (a version 1 header: magic, version, capital, count) and the fixed size part of each item
+	private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+	private static final int ITEM_BYTES = 2 + 8 + 8 + 4 + 4 + 1 + 8 + 4;
+
+	//items are written out through a buffer of this size
+	private static final int WRITE_BUFFER = 1 << 16;
+
+	//no instances, every method is static
+	private CatalogueSnapshot() {
+	}
+
+	/**
+	 * Writes a snapshot of a store's name, capital, items and quantities to a file.
+	 * <p>
+	 * The snapshot is written to a temporary file first, which then replaces the file in one
+	 * atomic rename, so the file always holds either the old snapshot or the whole new one.
+	 *
+	 * @param store The store to save
+	 * @param file The file to write (replaced if it already exists)
+	 * @throws IOException Thrown if the file can't be written
+	 */
+	public static void Write(Store store, File file) throws IOException {
+		write(store, file);
+	}
+
+	/**
+	 * Writes a snapshot, and returns the point in the store's event log it was taken at (null if the store has no log).
+	 */
+	static EventLog.Mark write(Store store, File file) throws IOException {
+
+		//take a view of the store while no change is half made
+		//(the stock snapshot is copy on write, so this only holds changes up for a moment)
+		Stock inventory;
+		String name;
+		long capital;
+		EventLog.Mark mark;
+		store.fence.writeLock().lock();
+		try {
+			inventory = store.getStock().snapshot();
+			name = store.getName();
+			capital = store.capital.get();
+			mark = store.log == null ? null : store.log.mark();
+		} finally {
+			store.fence.writeLock().unlock();
+		}
+
+		File temp = new File(file.getPath() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER);
+			buffer.putInt(MAGIC).putInt(VERSION);
+			putName(buffer, name == null ? "" : name);
+			buffer.putLong(capital)
+					.putLong(mark == null ? 0 : mark.id)
+					.putLong(mark == null ? 0 : mark.offset)
+					.putInt(inventory.CountUniqueItems());
+
+			for (Item item : inventory.orderedItems()) {
+				byte[] itemName = item.GetName().getBytes(StandardCharsets.UTF_8);
+
+				//write the buffer out whenever the next item won't fit in it
+				if (buffer.remaining() < ITEM_BYTES + itemName.length) {
+					drain(channel, buffer);
+				}
+
+				putName(buffer, item.GetName());
+				buffer.putLong(item.GetCostCents())
+						.putLong(item.GetPriceCents())
+						.putInt(item.GetReorderPoint())
+						.putInt(item.GetReorderAmount())
+						.put((byte) (item.hasTemperature() ? 1 : 0))
+						.putDouble(item.temperature())
+						.putInt(inventory.getQuantity(item));
+			}
+			drain(channel, buffer);
+			channel.force(true);
+		}
+
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		return mark;
+	}
+
+	/**
+	 * Loads a snapshot file into a store, replacing the store's name, stock and capital.
+	 * <p>
+	 * The items are loaded into a new stock of the same kind as the store's stock (so a store
+	 * with a ConcurrentStock or OffHeapStock keeps one), sized for every item in the file.
+	 * The store is only changed once the whole file has been read, so a file that can't
+	 * be read leaves the store as it was.
+	 *
+	 * @param store The store to load the snapshot into
+	 * @param file The snapshot file to read
+	 * @throws IOException Thrown if the file can't be read or isn't a valid snapshot
+	 */
+	public static void Load(Store store, File file) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+
+			MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			try {
+				if (data.remaining() < HEADER_BYTES || data.getInt() != MAGIC) {
+					throw new IOException(file.getName() + " is not a catalogue snapshot");
+				}
+				int version = data.getInt();
+				if (version < 1 || version > VERSION) {
+					throw new IOException(file.getName() + " is snapshot version " + version + ", expected " + VERSION);
+				}
+				String name = null;
+				long logId = 0;
+				long logOffset = 0;
+				if (version >= 2) {
+					name = getName(data);
+				}
+				long capital = data.getLong();
+				if (version >= 2) {
+					logId = data.getLong();
+					logOffset = data.getLong();
+				}
+				int count = data.getInt();
+
+				//every item takes at least ITEM_BYTES, so a corrupt count can't size the stock beyond the file
+				if (count < 0 || count > data.remaining() / ITEM_BYTES) {
+					throw new IOException(file.getName() + " is truncated or corrupt");
+				}
+				Stock stock = store.getStock().newStock(count);
+				for (int i = 0; i < count; i++) {
+					String itemName = getName(data);
+					double cost = Money.toDollars(data.getLong());
+					double price = Money.toDollars(data.getLong());
+					int reorderPoint = data.getInt();
+					int reorderAmount = data.getInt();
+					boolean cold = data.get() == 1;
+					double temperature = data.getDouble();
+					int quantity = data.getInt();
+
+					Item item = cold
+							? new Item(itemName, cost, price, reorderPoint, reorderAmount, temperature)
+							: new Item(itemName, cost, price, reorderPoint, reorderAmount);
+					if (!stock.addItem(item) || !stock.AddQuantity(item, quantity)) {
+						throw new IOException(file.getName() + " has a duplicate or invalid item: " + item.GetName());
+					}
+				}
+
+				//swap the loaded stock into the store (this also catalogues every item)
+				store.fence.writeLock().lock();
+				try {
+					store.SetStock(stock);
+					store.capital.set(capital);
+					if (name != null) {
+						store.name = name;
+					}
+					store.logId = logId;
+					store.logOffset = logOffset;
+				} finally {
+					store.fence.writeLock().unlock();
+				}
+
+			} catch (BufferUnderflowException | NegativeArraySizeException e) {
+				throw new IOException(file.getName() + " is truncated or corrupt");
+			}
+		}
+	}
+
+	/**
+	 * Puts a name's length and UTF-8 bytes into a buffer.
+	 */
+	private static void putName(ByteBuffer buffer, String name) throws IOException {
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > Short.MAX_VALUE) {
+			IOException nameErr = new IOException("name too long to save: " + name.substring(0, 32) + "...");
+			throw nameErr;
+		}
+		buffer.putShort((short) bytes.length).put(bytes);
+	}
+
+	/**
+	 * Reads a name written by putName.
+	 */
+	private static String getName(ByteBuffer data) {
+		byte[] bytes = new byte[data.getShort()];
+		data.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes everything in the buffer to the channel, and empties the buffer.
+	 */
+	private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
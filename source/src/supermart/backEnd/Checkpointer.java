@@ -0,0 +1,146 @@
+package supermart.backEnd;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Saves snapshots of a store every so often, and drops the records each snapshot makes
+ * redundant from the store's event log, so replaying the log at startup never has more
+ * than one period of changes to get through.
+ * <p>
+ * Each checkpoint writes a CatalogueSnapshot (marked with where in the log it was taken),
+ * then compacts the log up to that mark (see EventLog.Compact). Imports carry on while the
+ * snapshot is written, they only wait while the copy on write view of the store is taken,
+ * and while the records since the snapshot are copied into the compacted log.
+ * <p>
+ * If the program stops between the two steps, nothing is lost or applied twice: the snapshot
+ * records where in the log it was taken, and replay skips the records before that point.
+ */
+public final class Checkpointer implements Closeable {
+
+	private final Store store;
+	private final File snapshotFile;
+
+	//runs the periodic checkpoints, null until start is called
+	private ScheduledExecutorService scheduler;
+
+	//the log position the last snapshot was taken at, used to skip checkpoints when nothing has changed
+	private EventLog.Mark last;
+
+	//the last error a periodic checkpoint ran into, if any
+	private volatile Exception lastError;
+
+	/**
+	 * Constructs a checkpointer for a store (the store's event log is compacted after each snapshot).
+	 *
+	 * @param store The store to snapshot
+	 * @param snapshotFile The file snapshots are saved to
+	 */
+	public Checkpointer(Store store, File snapshotFile) {
+		this.store = store;
+		this.snapshotFile = snapshotFile;
+	}
+
+	/**
+	 * Saves a snapshot of the store now, then drops the log records it includes.
+	 *
+	 * @return The number of bytes dropped from the log
+	 * @throws IOException Thrown if the snapshot can't be written or the log can't be compacted
+	 */
+	public synchronized long Checkpoint() throws IOException {
+		EventLog.Mark mark = CatalogueSnapshot.write(store, snapshotFile);
+
+		//if the store's log was swapped for another between the two steps, the mark
+		//won't match the new log and nothing is dropped
+		EventLog log = store.getEventLog();
+		if (mark == null || log == null) {
+			last = null;
+			return 0;
+		}
+		long dropped = log.Compact(mark);
+		last = log.mark();
+		return dropped;
+	}
+
+	/**
+	 * Checkpoints the store, unless nothing has been logged since the last checkpoint.
+	 */
+	private synchronized void checkpointIfChanged() throws IOException {
+		EventLog log = store.getEventLog();
+		if (log != null && last != null) {
+			EventLog.Mark now = log.mark();
+			if (now.id == last.id && now.offset == last.offset) {
+				return;
+			}
+		}
+		Checkpoint();
+	}
+
+	/**
+	 * Starts checkpointing the store on a background thread every period.
+	 * <p>
+	 * A period in which nothing was logged is skipped.
+	 *
+	 * @param period The time between checkpoints
+	 * @param unit The unit of the period
+	 */
+	public synchronized void start(long period, TimeUnit unit) {
+		if (scheduler != null) {
+			throw new IllegalStateException("checkpoints have already been started");
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "supermart-checkpoint");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				checkpointIfChanged();
+				lastError = null;
+			} catch (IOException | RuntimeException e) {
+				//keep the error for whoever is watching, and try again next period
+				//(an exception escaping the task would silently cancel every later checkpoint)
+				lastError = e;
+			}
+		}, period, period, unit);
+	}
+
+	/**
+	 * Returns the error the last periodic checkpoint ran into
+	 * <p>
+	 * This is usually an IOException, but can be any RuntimeException a checkpoint ran into
+	 * (e.g. an UncheckedIOException from the store's event log).
+	 * @return The error, or null if the last checkpoint succeeded
+	 */
+	public Exception getLastError() {
+		return lastError;
+	}
+
+	/**
+	 * Stops the periodic checkpoints (a checkpoint already running is allowed to finish).
+	 */
+	@Override
+	public void close() {
+
+		//stop outside the lock, a running checkpoint needs it to finish
+		ScheduledExecutorService stopping;
+		synchronized (this) {
+			stopping = scheduler;
+			scheduler = null;
+		}
+		if (stopping != null) {
+			stopping.shutdown();
+			try {
+				stopping.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
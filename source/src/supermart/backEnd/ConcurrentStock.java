@@ -0,0 +1,490 @@
+package supermart.backEnd;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import supermart.exceptions.PartialDeltaException;
+import supermart.exceptions.StockException;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * A thread safe stock, for when several sales logs are imported into one store at the same time.
+ * <p>
+ * Each item's quantity is its own AtomicInteger, so changing the quantities of different items
+ * never waits on a lock, and changing the quantity of the same item is a compare-and-set loop.
+ * Quantities can still never go negative (a StockException is thrown instead), and the total
+ * number of units in the stock is kept in a striped running count (a LongAdder), so threads
+ * changing different items don't all update one shared counter.
+ * <p>
+ * Used exactly like a normal Stock, e.g. new Store(name, capital, new ConcurrentStock()).
+ */
+public class ConcurrentStock extends Stock {
+
+	//a removed item's counter is set to this value, so any thread still holding
+	//the counter knows the item has left the stock (real quantities are never negative)
+	private static final int REMOVED = -1;
+
+	//returned by change when the item isn't in the stock
+	private static final int MISSING = Integer.MIN_VALUE;
+
+	//items and their quantities
+	ConcurrentHashMap<Item, AtomicInteger> counters;
+
+	//items indexed by their name (item names are unique in a stock)
+	ConcurrentHashMap<String, Item> itemNames;
+
+	//running total of every item's quantity
+	LongAdder total;
+
+	/**
+	 * Constructs an empty concurrent stock.
+	 */
+	public ConcurrentStock() {
+		super(false);
+		counters = new ConcurrentHashMap<Item, AtomicInteger>();
+		itemNames = new ConcurrentHashMap<String, Item>();
+		total = new LongAdder();
+	}
+
+	/**
+	 * Constructs an empty concurrent stock with room for the given number of items before it needs to grow.
+	 *
+	 * @param expectedItems the number of unique items the stock is expected to hold
+	 */
+	public ConcurrentStock(int expectedItems) {
+		super(false);
+		counters = new ConcurrentHashMap<Item, AtomicInteger>(expectedItems);
+		itemNames = new ConcurrentHashMap<String, Item>(expectedItems);
+		total = new LongAdder();
+	}
+
+	@Override
+	protected Stock newStock(int expectedItems) {
+		return new ConcurrentStock(expectedItems);
+	}
+
+	/**
+	 * Adds an item to the stock with a starting quantity of 0.
+	 * <p>
+	 * If two threads add items with the same name at the same time, only one of them is added.
+	 *
+	 * @param item The item to be added into the stock
+	 * @return returns true if the item is successfully added, false if otherwise
+	 */
+	@Override
+	public boolean addItem(Item item) {
+
+		//claim the item's name first, only the thread that wins the name puts a counter in the stock
+		//(the item can't be in the stock under another name, as its name never changes)
+		if (itemNames.putIfAbsent(item.GetName(), item) != null) {
+			return false;
+		}
+		AtomicInteger counter = new AtomicInteger();
+		counters.put(item, counter);
+		added(item);
+
+		//another thread may already have changed the new item's quantity, so pass on its latest quantity
+		if (listener != null) {
+			tell(item, counter);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes an item from the stock, along with its quantity.
+	 *
+	 * @param item The item to be removed from the stock
+	 * @return returns true if the item is succesfully removed, false if otherwise or item not found
+	 */
+	@Override
+	public boolean removeItem(Item item) {
+
+		AtomicInteger counter = counters.remove(item);
+		if (counter == null) {
+			return false;
+		}
+		itemNames.remove(item.GetName(), item);
+
+		//mark the counter as removed, and take its final quantity off the total
+		//any thread that changes the quantity after this point will see REMOVED and fail
+		int removed = counter.getAndSet(REMOVED);
+		total.add(-removed);
+		changed(item, counter, REMOVED);
+		return true;
+	}
+
+	/**
+	 * Sets the quantity of an item in the stock.
+	 *
+	 * @param item The item to be modified
+	 * @param quantity The quantity to be added to the item, must be positive
+	 * @throws StockException Thrown when a negative quantity is attempted, or the item isn't in the stock
+	 */
+	@Override
+	public void SetQuantity(Item item, int quantity) throws StockException {
+
+		AtomicInteger counter = counters.get(item);
+		if (counter == null) {
+			throw MissingItem(item);
+		}
+		if (quantity < 0) {
+			StockException stockErr = new StockException(	"negative quantity!: " + quantity +
+															" is an invalid number to assign to " + item.GetName() +  "!");
+			throw stockErr;
+		}
+
+		while (true) {
+			int current = counter.get();
+			if (current == REMOVED) {
+				throw MissingItem(item);
+			}
+			if (counter.compareAndSet(current, quantity)) {
+				total.add(quantity - current);
+				changed(item, counter, quantity);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Atomically changes the quantity of an item in the stock by the given amount.
+	 *
+	 * @param item The item to be modified
+	 * @param quantity The amount to add to the item's quantity
+	 * @throws StockException Thrown when the item isn't in the stock or the result is negative
+	 */
+	@Override
+	public void ChangeQuantity(Item item, int quantity) throws StockException {
+
+		int newQuantity = change(item, quantity);
+		if (newQuantity == MISSING) {
+			throw MissingItem(item);
+		}
+		if (newQuantity < 0) {
+			StockException stockErr = new StockException(	"negative quantity!: " + newQuantity +
+															" is an invalid number to assign to " + item.GetName() +  "!");
+			throw stockErr;
+		}
+	}
+
+	/**
+	 * Atomically changes the quantity of an item, unless the item is missing or the result is negative.
+	 *
+	 * @return the new quantity (negative if it was refused), or MISSING if the item isn't in the stock
+	 */
+	private int change(Item item, int quantity) {
+
+		AtomicInteger counter = counters.get(item);
+		if (counter == null) {
+			return MISSING;
+		}
+
+		while (true) {
+			int current = counter.get();
+			if (current == REMOVED) {
+				return MISSING;
+			}
+
+			int newQuantity = current + quantity;
+			if (newQuantity < 0) {
+				return newQuantity;
+			}
+			if (counter.compareAndSet(current, newQuantity)) {
+				total.add(quantity);
+				changed(item, counter, newQuantity);
+				return newQuantity;
+			}
+		}
+	}
+
+	/**
+	 * Tells the listener (if there is one) about a change to an item's counter.
+	 * <p>
+	 * Most changes don't matter to the listener, so it's asked first (without a lock, see
+	 * StockListener.needsChange) and the change is only passed on if it does.
+	 */
+	private void changed(Item item, AtomicInteger counter, int quantity) {
+		StockListener l = listener;
+		if (l == null || (quantity != REMOVED && !l.needsChange(item, quantity))) {
+			return;
+		}
+		tell(item, counter);
+	}
+
+	/**
+	 * Passes an item's latest quantity (or that it has been removed) on to the listener.
+	 * <p>
+	 * Two threads changing the same item can finish in either order, and a thread that
+	 * skipped telling the listener may have changed the item while another thread was telling
+	 * it. So rather than passing on the quantity each thread wrote, the counter is read again
+	 * while holding its lock, and read again after telling the listener until it stops changing.
+	 * Whichever thread tells the listener last then always passes on the item's latest quantity.
+	 */
+	private void tell(Item item, AtomicInteger counter) {
+		synchronized (counter) {
+			int quantity = counter.get();
+			while (quantity != REMOVED) {
+				changed(item, quantity);
+				int latest = counter.get();
+				if (latest == quantity) {
+					return;
+				}
+				quantity = latest;
+			}
+			removed(item);
+		}
+	}
+
+	/**
+	 * Applies every line of a delta stock to this stock, all or nothing unless a rollback is refused.
+	 * <p>
+	 * Each line is applied atomically as it goes. If a line fails, the lines already applied
+	 * are rolled back (in reverse order) before the StockException is thrown, so the work
+	 * undone is only ever the lines that were applied.
+	 * <p>
+	 * Other threads can change the same items while the delta is being applied. If another
+	 * thread has already used units added by this delta, that line can't be rolled back without
+	 * going negative, so it is left applied and a PartialDeltaException is thrown instead, naming
+	 * (and carrying) every line that was left applied. Every other line is still rolled back.
+	 *
+	 * @param delta A stock of items and the amounts to change them by
+	 * @param sign 1 to add the delta's quantities, -1 to take them away
+	 * @throws StockException Thrown if an item in the delta isn't in this stock, or would end up with a negative quantity
+	 * (a PartialDeltaException if some lines couldn't be rolled back)
+	 */
+	@Override
+	public void applyDelta(Stock delta, int sign) throws StockException {
+
+		if (sign != 1 && sign != -1) {
+			throw new IllegalArgumentException("sign must be 1 or -1, not " + sign);
+		}
+
+		//undo log of the lines applied so far
+		int lines = delta.CountUniqueItems();
+		Item[] applied = new Item[lines];
+		int[] amounts = new int[lines];
+		int count = 0;
+
+		try {
+			for (Item item : delta.keySet()) {
+				int quantity = sign * delta.getQuantity(item);
+				ChangeQuantity(item, quantity);
+				applied[count] = item;
+				amounts[count] = quantity;
+				count++;
+			}
+		} catch (StockException stockErr) {
+
+			//roll back every line that was applied, newest first, noting any that can't be
+			StringBuilder stuck = null;
+			Stock left = null;
+			for (int i = count - 1; i >= 0; i--) {
+				if (!AddQuantity(applied[i], -amounts[i])) {
+					stuck = stuck == null ? new StringBuilder() : stuck.append(", ");
+					stuck.append(applied[i].GetName()).append(' ').append(amounts[i]);
+					left = left == null ? new Stock() : left;
+					left.addItem(applied[i]);
+					left.AddQuantity(applied[i], sign * amounts[i]);
+				}
+			}
+			if (stuck != null) {
+				PartialDeltaException partialErr = new PartialDeltaException("the delta failed and was only partly rolled back, "
+						+ "these lines are still applied: " + stuck, left);
+				partialErr.initCause(stockErr);
+				throw partialErr;
+			}
+			throw stockErr;
+		}
+	}
+
+	/**
+	 * Atomically adds a set amount to the quantity of an item in the stock
+	 *
+	 * @param item The item to be added into the stock
+	 * @param quantity The quantity to be added to the item's quantity
+	 * @return true if the quantity is correctly added, false if otherwise
+	 */
+	@Override
+	public boolean AddQuantity(Item item, int quantity) {
+		return change(item, quantity) >= 0;
+	}
+
+	/**
+	 * Returns the quantity of a specific item.
+	 *
+	 * @param item The item to return the quantity of
+	 * @return The quantity of the specified item
+	 */
+	@Override
+	public int getQuantity(Item item) {
+		AtomicInteger counter = counters.get(item);
+		int quantity = counter == null ? REMOVED : counter.get();
+		if (quantity == REMOVED) {
+			throw new NullPointerException(item.GetName() + " is not in the stock");
+		}
+		return quantity;
+	}
+
+	/**
+	 * Returns the total size of all items in the stock.
+	 *
+	 * @return The size of all items currently in the stock
+	 */
+	@Override
+	public int size() {
+		return (int) total.sum();
+	}
+
+	@Override
+	public int CountUniqueItems() {
+		return counters.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return counters.isEmpty();
+	}
+
+	@Override
+	public boolean Contains(Item item) {
+		return counters.containsKey(item);
+	}
+
+	@Override
+	public boolean Contains(String itemName) {
+		return itemNames.containsKey(itemName);
+	}
+
+	@Override
+	public Item getItem(String itemName) {
+		return itemNames.get(itemName);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return counters.containsKey(key);
+	}
+
+	@Override
+	public Integer get(Object key) {
+		AtomicInteger counter = counters.get(key);
+		if (counter == null || counter.get() == REMOVED) {
+			return null;
+		}
+		return counter.get();
+	}
+
+	/**
+	 * Returns a set of all the items in the stock.
+	 * <p>
+	 * The set can be iterated over while other threads change the stock.
+	 *
+	 * @return A read-only keyset of all unique items in the stock
+	 */
+	@Override
+	public Set<Item> keySet() {
+		return Collections.unmodifiableSet(counters.keySet());
+	}
+
+	/**
+	 * Returns a read-only entry set of the stock's items and quantities.
+	 * <p>
+	 * The set can be iterated over while other threads change the stock.
+	 *
+	 * @return The stock's entry set.
+	 */
+	@Override
+	public Set<Entry<Item, Integer>> entrySet() {
+		return new AbstractSet<Entry<Item, Integer>>() {
+
+			public Iterator<Entry<Item, Integer>> iterator() {
+				Iterator<Map.Entry<Item, AtomicInteger>> entries = counters.entrySet().iterator();
+				return new Iterator<Entry<Item, Integer>>() {
+
+					public boolean hasNext() {
+						return entries.hasNext();
+					}
+
+					public Entry<Item, Integer> next() {
+						Map.Entry<Item, AtomicInteger> entry = entries.next();
+						return new AbstractMap.SimpleImmutableEntry<Item, Integer>(entry.getKey(), Math.max(0, entry.getValue().get()));
+					}
+				};
+			}
+
+			public int size() {
+				return counters.size();
+			}
+		};
+	}
+
+	/**
+	 * Returns the temperature of the item in the stock with the lowest temperature
+	 * <p>
+	 * A concurrent stock doesn't keep track of its coldest item, so this checks every item.
+	 * Returns positive infinity if there are no cold items in the stock.
+	 *
+	 * @return The minimum temperature required for this stock
+	 */
+	@Override
+	public double getLowestTemp() {
+		double lowest = Double.POSITIVE_INFINITY;
+		for (Item item : counters.keySet()) {
+			if (item.hasTemperature()) {
+				lowest = Math.min(lowest, item.temperature());
+			}
+		}
+		return lowest;
+	}
+
+	/**
+	 * Returns every item in the stock in lexicographical order by name.
+	 * <p>
+	 * A concurrent stock doesn't keep its items in order, so this sorts a copy
+	 * of the items on each call.
+	 *
+	 * @return A collection of the stock's items, sorted by name
+	 */
+	@Override
+	public Collection<Item> orderedItems() {
+		return new TreeMap<String, Item>(itemNames).values();
+	}
+
+	/**
+	 * Returns a read-only copy of the stock.
+	 * <p>
+	 * Unlike a normal Stock, this copies every item. Each item's quantity is read
+	 * atomically, but quantities changed by other threads during the copy may or
+	 * may not be included.
+	 *
+	 * @return a read-only copy of the stock
+	 */
+	@Override
+	public Stock snapshot() {
+		Stock copy = new Stock();
+		for (Map.Entry<Item, AtomicInteger> entry : counters.entrySet()) {
+			int quantity = entry.getValue().get();
+			if (quantity != REMOVED && copy.addItem(entry.getKey())) {
+				copy.AddQuantity(entry.getKey(), quantity);
+			}
+		}
+		return copy.snapshot();
+	}
+
+	/**
+	 * Builds the exception thrown when an item isn't in the stock.
+	 */
+	private static StockException MissingItem(Item item) {
+		return new StockException("The given item key for '"+item.GetName()+"' is not in the stock");
+	}
+}
@@ -0,0 +1,182 @@
+package supermart.backEnd;
+
+import java.util.Arrays;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * An exponentially smoothed estimate of how many units of each item a store sells per sales period.
+ * <p>
+ * Every period the estimate moves towards that period's sales by the smoothing factor:
+ * estimate = (1 - smoothing) * estimate + smoothing * sold. Like SalesHistory, items are kept by
+ * catalogue ID in flat arrays, and an item that sells nothing for a while isn't touched each period.
+ * Instead it remembers the last period it sold in, and its estimate is decayed by
+ * (1 - smoothing) for every period since then when it's next read or written, so each sale
+ * costs O(1) however many items the store has.
+ * <p>
+ * Estimates start at 0, and are divided by 1 - (1 - smoothing)^periods when read (as in a
+ * bias corrected moving average), so an item doesn't look slow just because the forecast is new.
+ */
+public final class DemandForecast {
+
+	//the fewest items the arrays are allocated for
+	private static final int MIN_ITEMS = 16;
+
+	//how far each period's sales move the estimate, from 0 (not at all) to 1 (all the way)
+	private final double smoothing;
+
+	//each item's estimate as of its last period, before bias correction
+	private double[] demand;
+
+	//the last period each item's estimate was updated in (0 if never)
+	private long[] lastPeriod;
+
+	//the current period, counted from 1, and the period before the first one the estimates include
+	private long period;
+	private long start;
+
+	/**
+	 * Constructs a forecast with no sales.
+	 *
+	 * @param smoothing How far each period's sales move the estimate, above 0 and at most 1
+	 * @param expectedItems The number of items the forecast is expected to hold
+	 */
+	public DemandForecast(double smoothing, int expectedItems) {
+		if (!(smoothing > 0 && smoothing <= 1)) {
+			throw new IllegalArgumentException("forecast smoothing must be above 0 and at most 1, not " + smoothing);
+		}
+		this.smoothing = smoothing;
+		int items = Math.max(expectedItems, MIN_ITEMS);
+		demand = new double[items];
+		lastPeriod = new long[items];
+	}
+
+	/**
+	 * Starts a new period, which later sales are added to.
+	 *
+	 * @return The number of the new period
+	 */
+	public synchronized long nextPeriod() {
+		return ++period;
+	}
+
+	/**
+	 * Adds units sold of an item to the current period.
+	 *
+	 * @param itemId The item's catalogue ID
+	 * @param quantity The number of units sold
+	 */
+	public synchronized void add(int itemId, int quantity) {
+		if (period == 0) {
+			throw new IllegalStateException("no sales period has been started");
+		}
+		ensureItem(itemId);
+
+		//bring the estimate up to this period first (the periods since its last sale sold nothing)
+		if (lastPeriod[itemId] != period) {
+			demand[itemId] = decayed(itemId);
+			lastPeriod[itemId] = period;
+		}
+		demand[itemId] += smoothing * quantity;
+	}
+
+	/**
+	 * Returns the expected units of an item sold per period.
+	 *
+	 * @param itemId The item's catalogue ID
+	 * @return The smoothed units sold per period, or 0 if the item has never sold
+	 */
+	public synchronized double demand(int itemId) {
+		if (itemId < 0 || itemId >= demand.length || lastPeriod[itemId] == 0) {
+			return 0;
+		}
+		return decayed(itemId) / (1 - Math.pow(1 - smoothing, period - start));
+	}
+
+	/**
+	 * Rebuilds every estimate from a sales history in one pass over it, replacing what the forecast held.
+	 * <p>
+	 * The history only remembers its last few periods, so the estimates are as if the forecast
+	 * had started at the oldest of them.
+	 *
+	 * @param history The sales history to rebuild from
+	 * @param items The number of item IDs to rebuild (usually the catalogue's size)
+	 */
+	public void refresh(SalesHistory history, int items) {
+		synchronized (history) {
+			synchronized (this) {
+				period = history.getPeriod();
+				int periods = (int) Math.min(period, history.getPeriods());
+				start = period - periods;
+				if (items > demand.length) {
+					demand = new double[items];
+					lastPeriod = new long[items];
+				}
+				Arrays.fill(demand, 0);
+				Arrays.fill(lastPeriod, 0);
+
+				for (int itemId = 0; itemId < items; itemId++) {
+
+					//replay the item's periods oldest first
+					double estimate = 0;
+					boolean sold = false;
+					for (int ago = periods - 1; ago >= 0; ago--) {
+						int units = history.unitsSold(itemId, ago);
+						estimate = (1 - smoothing) * estimate + smoothing * units;
+						sold |= units != 0;
+					}
+					if (sold) {
+						demand[itemId] = estimate;
+						lastPeriod[itemId] = period;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns how far each period's sales move the estimate
+	 * @return The smoothing factor
+	 */
+	public double getSmoothing() {
+		return smoothing;
+	}
+
+	/**
+	 * Returns the current period
+	 * @return The number of periods started so far
+	 */
+	public synchronized long getPeriod() {
+		return period;
+	}
+
+	/**
+	 * Returns an item's estimate decayed through every period since it last sold.
+	 */
+	private double decayed(int itemId) {
+		long idle = period - lastPeriod[itemId];
+		if (lastPeriod[itemId] == 0 || idle == 0) {
+			return demand[itemId];
+		}
+
+		//most items sell every period, so skip the pow for them
+		if (idle == 1) {
+			return demand[itemId] * (1 - smoothing);
+		}
+		return demand[itemId] * Math.pow(1 - smoothing, idle);
+	}
+
+	/**
+	 * Grows the arrays to hold an item ID, doubling them so growing stays rare.
+	 */
+	private void ensureItem(int itemId) {
+		if (itemId < 0) {
+			throw new IndexOutOfBoundsException("no item has the ID " + itemId);
+		}
+		if (itemId >= demand.length) {
+			int items = Math.max(demand.length * 2, itemId + 1);
+			demand = Arrays.copyOf(demand, items);
+			lastPeriod = Arrays.copyOf(lastPeriod, items);
+		}
+	}
+}
@@ -0,0 +1,806 @@
+package supermart.backEnd;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+import supermart.exceptions.DeliveryException;
+import supermart.exceptions.StockException;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * An append-only log of every change made to a store, so the store can be rebuilt
+ * after a crash by replaying the log (see Replay).
+ * <p>
+ * A store with a log (see Store.SetEventLog) records each import of items, sale or delivery
+ * delta, quantity change and capital change as it's made. Every record carries a CRC, so a
+ * record that was only half written when the program stopped is detected and dropped,
+ * along with anything after it.
+ * <p>
+ * The store builds each record first, then makes its change and appends the record in one step
+ * (see Store), so the records are in exactly the order the changes were made.
+ * <p>
+ * Records are gathered in a buffer and written out in batches (group commit). With
+ * syncEachEvent set, a change isn't finished until its record is on disk, but every thread
+ * waiting at the same time is covered by one write and one force, so the cost of forcing
+ * the file is shared. Without it, records are written when the buffer fills, and on
+ * commit() and close().
+ * <p>
+ * Every log file has a random ID, which changes whenever the log is reset or compacted. A
+ * snapshot of the store records the ID and position of the log it was taken at (see Mark), so
+ * replaying the log on top of that snapshot skips the records the snapshot already includes.
+ * <p>
+ * File layout (big endian): int magic ("SMEL"), int format version, long log ID, then records of
+ * int payload length, int CRC32 of the payload, payload (a type byte, then the event's fields).
+ * Logs are read a window at a time rather than memory mapped, so they can grow past the 2GB a
+ * single map can cover.
+ */
+public final class EventLog implements Closeable {
+
+	//"SMEL" in ASCII, the first four bytes of every log file
+	private static final int MAGIC = 0x534D454C;
+	private static final int VERSION = 3;
+	private static final int HEADER_BYTES = 4 + 4 + 8;
+
+	//each record starts with its payload length and the payload's CRC
+	private static final int RECORD_HEADER_BYTES = 4 + 4;
+
+	//the record types
+	private static final byte ITEMS = 1;
+	private static final byte DELTA = 2;
+	private static final byte QUANTITY = 3;
+	private static final byte CAPITAL_CHANGE = 4;
+	private static final byte CAPITAL_SET = 5;
+
+	//an imported sales log: a sale delta that is also a period of the sales history (see Store.ImportSales)
+	private static final byte SALES = 6;
+
+	//records are written out once this many bytes are waiting
+	private static final int BATCH_BYTES = 1 << 16;
+
+	private final File file;
+	private FileChannel channel;
+	private final boolean syncEachEvent;
+
+	//the log file's ID, and the position in the file just after the last record appended
+	//(including records still waiting in the pending batch)
+	private long id;
+	private long end;
+
+	//records waiting to be written, and the spare buffer swapped in while a batch is written
+	//(both are only touched while holding lock, apart from the batch being written)
+	private final Object lock = new Object();
+	private ByteBuffer pending = ByteBuffer.allocate(BATCH_BYTES);
+	private ByteBuffer spare = ByteBuffer.allocate(BATCH_BYTES);
+
+	//number of records appended, and how many of them are known to be on disk
+	private long appended;
+	private long durable;
+
+	//true while a thread is writing a batch
+	private boolean flushing;
+
+	//set if writing a batch fails, after which the log refuses every change
+	private IOException failure;
+
+	/**
+	 * Opens a log file for appending, creating it if it doesn't exist.
+	 * <p>
+	 * If the log ends in a record that was only half written, that record is cut off.
+	 *
+	 * @param file The log file
+	 * @param syncEachEvent true to wait for every record to be forced to disk before a change finishes
+	 * @throws IOException Thrown if the file can't be opened, or isn't an event log
+	 */
+	public EventLog(File file, boolean syncEachEvent) throws IOException {
+		this.file = file;
+		this.syncEachEvent = syncEachEvent;
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			if (channel.size() == 0) {
+				writeHeader();
+			} else {
+				//drop a torn record at the end, so new records follow straight on from the last whole one
+				id = checkHeader(channel, file);
+				RecordReader records = new RecordReader(channel, HEADER_BYTES);
+				while (records.next() != null) {
+					//just finding the end
+				}
+				end = records.position();
+				channel.truncate(end);
+				channel.position(end);
+			}
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the log's file
+	 * @return The file the log is written to
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	// ======================================================
+	// recording events (called by Store)
+	// ======================================================
+
+	//each of these builds a finished record (length and CRC filled in) without touching the log,
+	//so the store can build it before it starts making the change, see append
+
+	/**
+	 * Builds the record of items imported into the store.
+	 */
+	static ByteBuffer itemsRecord(Stock items) {
+		int size = 1 + 4;
+		for (Item item : items.keySet()) {
+			size += nameBytes(item) + 8 + 8 + 4 + 4 + 1 + 8;
+		}
+
+		ByteBuffer record = record(size, ITEMS);
+		record.putInt(items.CountUniqueItems());
+		for (Item item : items.keySet()) {
+			putName(record, item);
+			record.putLong(item.GetCostCents())
+					.putLong(item.GetPriceCents())
+					.putInt(item.GetReorderPoint())
+					.putInt(item.GetReorderAmount())
+					.put((byte) (item.hasTemperature() ? 1 : 0))
+					.putDouble(item.temperature());
+		}
+		return finish(record);
+	}
+
+	/**
+	 * Builds the record of a sale (sign -1) or delivery (sign 1) delta, along with any extra capital change (truck hire).
+	 * An imported sales log is recorded as a SALES record, so replay adds it to the sales history just as the import did.
+	 */
+	static ByteBuffer deltaRecord(Stock delta, int sign, long extraCents, boolean sales) {
+		int size = 1 + 1 + 8 + 4;
+		for (Item item : delta.keySet()) {
+			size += nameBytes(item) + 4;
+		}
+
+		ByteBuffer record = record(size, sales ? SALES : DELTA);
+		record.put((byte) sign).putLong(extraCents).putInt(delta.CountUniqueItems());
+		for (Item item : delta.keySet()) {
+			putName(record, item);
+			record.putInt(delta.getQuantity(item));
+		}
+		return finish(record);
+	}
+
+	/**
+	 * Builds the record of a change to one item's quantity.
+	 */
+	static ByteBuffer quantityRecord(Item item, int quantity) {
+		ByteBuffer record = record(1 + nameBytes(item) + 4, QUANTITY);
+		putName(record, item);
+		record.putInt(quantity);
+		return finish(record);
+	}
+
+	/**
+	 * Builds the record of a change to the capital, in cents.
+	 */
+	static ByteBuffer capitalChangeRecord(long cents) {
+		return finish(record(1 + 8, CAPITAL_CHANGE).putLong(cents));
+	}
+
+	/**
+	 * Builds the record of the capital being set, in cents.
+	 */
+	static ByteBuffer capitalSetRecord(long cents) {
+		return finish(record(1 + 8, CAPITAL_SET).putLong(cents));
+	}
+
+	/**
+	 * Adds a finished record to the pending batch, and returns its sequence number.
+	 * <p>
+	 * This only waits for the disk if the batch is full. The store appends each record in the
+	 * same step as it makes the change (so records are in the order the changes were made), then
+	 * calls awaitDurable once that step is over, so threads waiting for the disk don't hold up
+	 * the next change.
+	 *
+	 * @throws IOException Thrown if the log has failed, or a full batch can't be written
+	 */
+	long append(ByteBuffer record) throws IOException {
+		while (true) {
+			long waitFor;
+			synchronized (lock) {
+				checkFailure();
+				if (pending.remaining() >= record.remaining()) {
+					end += record.remaining();
+					pending.put(record);
+					return ++appended;
+				}
+
+				//a record bigger than a whole batch gets a buffer of its own size
+				if (pending.position() == 0) {
+					pending = ByteBuffer.allocate(record.remaining());
+					continue;
+				}
+				waitFor = appended;
+			}
+
+			//the batch is full, so write it out and try again
+			sync(waitFor);
+		}
+	}
+
+	/**
+	 * Waits for a record to reach the disk if syncEachEvent is set (otherwise returns straight away).
+	 *
+	 * @param sequence The record's sequence number, from append
+	 * @throws IOException Thrown if the record can't be written
+	 */
+	void awaitDurable(long sequence) throws IOException {
+		if (syncEachEvent) {
+			sync(sequence);
+		}
+	}
+
+	/**
+	 * Checks the log can still be written to (it hasn't failed to write a batch).
+	 *
+	 * @throws IOException Thrown if the log has failed
+	 */
+	void checkWritable() throws IOException {
+		synchronized (lock) {
+			checkFailure();
+		}
+	}
+
+	// ======================================================
+	// group commit
+	// ======================================================
+
+	/**
+	 * Writes every record appended so far, and forces them to disk.
+	 *
+	 * @throws IOException Thrown if the records can't be written
+	 */
+	public void commit() throws IOException {
+		long upTo;
+		synchronized (lock) {
+			upTo = appended;
+		}
+		sync(upTo);
+	}
+
+	/**
+	 * Commits every record, and closes the file.
+	 *
+	 * @throws IOException Thrown if the records can't be written, or the file can't be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			commit();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Empties the log (e.g. once the store has been saved to a snapshot, which makes every record in it redundant).
+	 *
+	 * @throws IOException Thrown if the file can't be truncated
+	 */
+	public void Reset() throws IOException {
+		synchronized (lock) {
+			waitForFlush();
+			checkFailure();
+			pending.clear();
+			durable = appended;
+			channel.truncate(0);
+			channel.position(0);
+			writeHeader();
+		}
+	}
+
+	/**
+	 * Returns the log's current ID and the position just after the last record appended.
+	 * <p>
+	 * Store takes the mark while no change is half made, so the mark lines up exactly with the
+	 * store's state at that moment.
+	 */
+	Mark mark() {
+		synchronized (lock) {
+			return new Mark(id, end);
+		}
+	}
+
+	/**
+	 * Drops every record before a mark, once a snapshot taken at that mark has been saved.
+	 * <p>
+	 * The records after the mark are copied into a new log file (with a new ID), which then
+	 * replaces the old file in one atomic rename, so a crash part way through leaves either
+	 * the old log or the new one. Appends wait while this happens, but there are only ever the
+	 * records since the snapshot to copy.
+	 * <p>
+	 * Nothing is dropped if the log has been reset or compacted since the mark was taken.
+	 *
+	 * @param mark The mark the snapshot was taken at
+	 * @return The number of bytes dropped from the log
+	 * @throws IOException Thrown if the new log file can't be written
+	 */
+	long Compact(Mark mark) throws IOException {
+		synchronized (lock) {
+			waitForFlush();
+			checkFailure();
+			if (mark.id != id || mark.offset <= HEADER_BYTES) {
+				return 0;
+			}
+
+			//write out the pending batch, so every record is in the file
+			pending.flip();
+			while (pending.hasRemaining()) {
+				channel.write(pending);
+			}
+			pending.clear();
+			durable = appended;
+
+			//copy the records after the mark into a new log
+			File temp = new File(file.getPath() + ".tmp");
+			long newId = newId();
+			try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				writeHeader(out, newId);
+				long position = mark.offset;
+				while (position < end) {
+					position += channel.transferTo(position, end - position, out);
+				}
+				out.force(true);
+			}
+
+			//swap the new log in, and carry on appending to it
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			channel.close();
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+			long dropped = mark.offset - HEADER_BYTES;
+			id = newId;
+			end -= dropped;
+			channel.position(end);
+			return dropped;
+		}
+	}
+
+	/**
+	 * Returns the size of the log in bytes, including records not yet written to the file.
+	 */
+	public long size() {
+		synchronized (lock) {
+			return end;
+		}
+	}
+
+	/**
+	 * A position in a log file: the file's ID, and a position just after a record.
+	 */
+	static final class Mark {
+		final long id;
+		final long offset;
+
+		Mark(long id, long offset) {
+			this.id = id;
+			this.offset = offset;
+		}
+	}
+
+	/**
+	 * Makes sure every record up to the given sequence number is on disk.
+	 * <p>
+	 * If another thread is already writing a batch, this waits for it and then checks again
+	 * (its batch may have covered this record). Otherwise this thread takes every pending record
+	 * as one batch, and writes and forces it without holding the lock, so other threads can keep
+	 * appending to the next batch meanwhile.
+	 */
+	private void sync(long sequence) throws IOException {
+		ByteBuffer batch;
+		long upTo;
+
+		synchronized (lock) {
+			while (true) {
+				checkFailure();
+				if (durable >= sequence) {
+					return;
+				}
+				if (!flushing) {
+					break;
+				}
+				waitForFlush();
+			}
+
+			//take the pending records as this thread's batch
+			flushing = true;
+			batch = pending;
+			pending = spare;
+			spare = null;
+			upTo = appended;
+		}
+
+		IOException error = null;
+		try {
+			batch.flip();
+			while (batch.hasRemaining()) {
+				channel.write(batch);
+			}
+			channel.force(false);
+		} catch (IOException e) {
+			error = e;
+		}
+
+		synchronized (lock) {
+			batch.clear();
+			spare = batch.capacity() == BATCH_BYTES ? batch : ByteBuffer.allocate(BATCH_BYTES);
+			flushing = false;
+			if (error == null) {
+				durable = upTo;
+			} else {
+				failure = error;
+			}
+			lock.notifyAll();
+		}
+
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	/**
+	 * Waits (holding the lock) until no batch is being written.
+	 */
+	private void waitForFlush() throws IOException {
+		while (flushing) {
+			try {
+				lock.wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("interrupted waiting for the event log");
+			}
+		}
+	}
+
+	private void checkFailure() throws IOException {
+		if (failure != null) {
+			IOException logErr = new IOException("the event log failed to write, and can't be used", failure);
+			throw logErr;
+		}
+	}
+
+	/**
+	 * Writes the header of a new, empty log file with a new ID.
+	 */
+	private void writeHeader() throws IOException {
+		id = newId();
+		writeHeader(channel, id);
+		channel.force(false);
+		end = HEADER_BYTES;
+	}
+
+	private static void writeHeader(FileChannel out, long id) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putLong(id);
+		header.flip();
+		while (header.hasRemaining()) {
+			out.write(header);
+		}
+	}
+
+	private static long newId() {
+		return ThreadLocalRandom.current().nextLong();
+	}
+
+	/**
+	 * Fills in the length and CRC of a record's payload, and flips it ready to be appended.
+	 */
+	private static ByteBuffer finish(ByteBuffer record) {
+		int length = record.position() - RECORD_HEADER_BYTES;
+		CRC32 crc = new CRC32();
+		crc.update(record.array(), RECORD_HEADER_BYTES, length);
+		record.putInt(0, length).putInt(4, (int) crc.getValue());
+		record.flip();
+		return record;
+	}
+
+	/**
+	 * Builds a buffer for a record with the given payload size, with room for its header and its type already written.
+	 */
+	private static ByteBuffer record(int payloadBytes, byte type) {
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payloadBytes);
+		record.position(RECORD_HEADER_BYTES);
+		return record.put(type);
+	}
+
+	private static int nameBytes(Item item) {
+		return 2 + item.GetName().getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	private static void putName(ByteBuffer record, Item item) {
+		byte[] name = item.GetName().getBytes(StandardCharsets.UTF_8);
+		record.putShort((short) name.length).put(name);
+	}
+
+	private static String getName(ByteBuffer data) {
+		byte[] name = new byte[data.getShort()];
+		data.get(name);
+		return new String(name, StandardCharsets.UTF_8);
+	}
+
+	// ======================================================
+	// replay
+	// ======================================================
+
+	/**
+	 * Replays a log file into a store, making every change recorded in it again.
+	 * <p>
+	 * The file is read straight through a window at a time (see RecordReader). Each sale or
+	 * delivery is applied all or nothing, exactly as the store applied it when it was recorded.
+	 * The store's own log, if it has one, isn't written to while replaying.
+	 * <p>
+	 * If the store was loaded from a snapshot taken while this log was being written, the records
+	 * the snapshot already includes are skipped.
+	 * <p>
+	 * Replay stops at a record that was only half written (the end of the log after a crash).
+	 *
+	 * @param store The store to replay the log into (e.g. the store as it was loaded from a snapshot)
+	 * @param file The log file to replay
+	 * @return The number of records replayed
+	 * @throws IOException Thrown if the file can't be read, isn't an event log, or doesn't fit the store
+	 */
+	public static long Replay(Store store, File file) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long id = checkHeader(channel, file);
+
+			//start after the store's snapshot, if it was taken from this log
+			long start = HEADER_BYTES;
+			if (id == store.logId && store.logOffset > start && store.logOffset <= channel.size()) {
+				start = store.logOffset;
+			}
+			RecordReader reader = new RecordReader(channel, start);
+
+			//don't log the replayed changes again
+			EventLog log = store.log;
+			store.log = null;
+
+			long records = 0;
+			try {
+				ByteBuffer record;
+				while ((record = reader.next()) != null) {
+					replayRecord(store, record);
+					records++;
+				}
+			} catch (StockException | DeliveryException e) {
+				IOException replayErr = new IOException(file.getName() + " record " + (records + 1) + " doesn't fit the store: " + e.getMessage());
+				throw replayErr;
+			} finally {
+				store.log = log;
+			}
+			return records;
+		}
+	}
+
+	/**
+	 * Applies one record to a store (the buffer holds the record's payload, starting at its type).
+	 */
+	private static void replayRecord(Store store, ByteBuffer data) throws StockException, DeliveryException, IOException {
+		byte type = data.get();
+		switch (type) {
+
+		case ITEMS:
+			Stock items = new Stock();
+			int count = data.getInt();
+			for (int i = 0; i < count; i++) {
+				String name = getName(data);
+				double cost = Money.toDollars(data.getLong());
+				double price = Money.toDollars(data.getLong());
+				int reorderPoint = data.getInt();
+				int reorderAmount = data.getInt();
+				boolean cold = data.get() == 1;
+				double temperature = data.getDouble();
+				items.addItem(cold
+						? new Item(name, cost, price, reorderPoint, reorderAmount, temperature)
+						: new Item(name, cost, price, reorderPoint, reorderAmount));
+			}
+			store.ImportItems(items);
+			break;
+
+		case DELTA:
+		case SALES:
+			int sign = data.get();
+			long extraCents = data.getLong();
+			int lines = data.getInt();
+			Stock delta = new Stock(lines);
+			for (int i = 0; i < lines; i++) {
+				Item item = replayItem(store, getName(data));
+				if (!delta.addItem(item)) {
+					IOException lineErr = new IOException("a delta record has " + item.GetName() + " twice");
+					throw lineErr;
+				}
+				delta.AddQuantity(item, data.getInt());
+			}
+
+			//apply the whole delta (and its capital change) in one step, just as the store did
+			//a replayed sales log is a period of the sales history and forecast, just as it was when imported
+			//(a sale delta applied any other way never was)
+			store.applyDelta(delta, sign, extraCents);
+			if (type == SALES) {
+				store.recordSales(delta);
+			}
+			break;
+
+		case QUANTITY:
+			Item item = replayItem(store, getName(data));
+			store.getStock().ChangeQuantity(item, data.getInt());
+			break;
+
+		case CAPITAL_CHANGE:
+			store.ChangeCapitalCents(data.getLong());
+			break;
+
+		case CAPITAL_SET:
+			store.capital.set(data.getLong());
+			break;
+
+		default:
+			IOException typeErr = new IOException("unknown event log record type " + type);
+			throw typeErr;
+		}
+	}
+
+	private static Item replayItem(Store store, String name) throws StockException {
+		Item item = store.getItem(name);
+		if (item == null) {
+			StockException stockErr = new StockException("The item '" + name + "' is not in the stock");
+			throw stockErr;
+		}
+		return item;
+	}
+
+	/**
+	 * Checks a log file's header, and returns the log's ID.
+	 */
+	private static long checkHeader(FileChannel channel, File file) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+		while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+			//keep reading until the header is full or the file ends
+		}
+		header.flip();
+		if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+			IOException formatErr = new IOException(file.getName() + " is not an event log");
+			throw formatErr;
+		}
+		int version = header.getInt();
+		if (version != VERSION) {
+			IOException versionErr = new IOException(file.getName() + " is event log version " + version + ", expected " + VERSION);
+			throw versionErr;
+		}
+		return header.getLong();
+	}
+
+	/**
+	 * Reads the whole records of a log file one at a time, through a window of the file.
+	 * <p>
+	 * Only the window (1MB, or one record if a record is bigger) is ever in memory, and
+	 * positions in the file are longs, so a log of any size can be read. Each record's
+	 * length and CRC are checked before it's returned.
+	 */
+	private static final class RecordReader {
+
+		//how much of the file is read in at a time
+		private static final int WINDOW_BYTES = 1 << 20;
+
+		private final FileChannel channel;
+		private final long size;
+
+		//the bytes read in so far (from position 0 to the limit), and the position in the file of the first one
+		private ByteBuffer window = ByteBuffer.allocate(WINDOW_BYTES);
+		private long windowStart;
+
+		//the position in the file just after the last whole record returned
+		private long position;
+
+		/**
+		 * Starts reading records at the given position in the file.
+		 */
+		RecordReader(FileChannel channel, long position) throws IOException {
+			this.channel = channel;
+			this.size = channel.size();
+			this.position = position;
+			windowStart = position;
+			window.limit(0);
+		}
+
+		/**
+		 * Returns the position in the file just after the last whole record returned
+		 * (which is the end of the log once next has returned null).
+		 */
+		long position() {
+			return position;
+		}
+
+		/**
+		 * Returns the payload of the next record (positioned at its type, and only valid until
+		 * the next call), or null at the end of the log or at a record that was only half written.
+		 */
+		ByteBuffer next() throws IOException {
+			if (!fill(RECORD_HEADER_BYTES)) {
+				return null;
+			}
+			int at = (int) (position - windowStart);
+			int length = window.getInt(at);
+			int checksum = window.getInt(at + 4);
+			if (length <= 0 || length > size - position - RECORD_HEADER_BYTES) {
+				return null;
+			}
+			if (!fill(RECORD_HEADER_BYTES + length)) {
+				return null;
+			}
+
+			at = (int) (position - windowStart);
+			ByteBuffer payload = window.duplicate();
+			payload.limit(at + RECORD_HEADER_BYTES + length).position(at + RECORD_HEADER_BYTES);
+			CRC32 crc = new CRC32();
+			crc.update(payload.duplicate());
+			if ((int) crc.getValue() != checksum) {
+				return null;
+			}
+
+			position += RECORD_HEADER_BYTES + length;
+			return payload;
+		}
+
+		/**
+		 * Makes sure the window holds the given number of bytes from the current position,
+		 * reading more of the file in if it needs to.
+		 *
+		 * @return false if the file ends first
+		 */
+		private boolean fill(int bytes) throws IOException {
+			if (size - position < bytes) {
+				return false;
+			}
+			int at = (int) (position - windowStart);
+			if (window.limit() - at >= bytes) {
+				return true;
+			}
+
+			//keep the unread bytes, moved to the front of the window (or of a bigger one, for a big record)
+			long readFrom = windowStart + window.limit();
+			window.position(at);
+			if (window.capacity() < bytes) {
+				ByteBuffer bigger = ByteBuffer.allocate(bytes);
+				bigger.put(window);
+				window = bigger;
+			} else {
+				window.compact();
+			}
+			windowStart = position;
+
+			while (window.hasRemaining()) {
+				int read = channel.read(window, readFrom);
+				if (read < 0) {
+					break;
+				}
+				readFrom += read;
+			}
+			window.flip();
+			return window.limit() >= bytes;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package supermart.backEnd;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Works out totals over a whole stock (value at cost and at price, margins, items to reorder,
+ * and the cold / dry split), along with every item's margin per unit, in one parallel pass.
+ * <p>
+ * The stock is snapshotted first, so the totals come from one point in time and the stock can
+ * keep being changed while they're worked out. The snapshot's slots are then split into ranges
+ * with fork/join, each range is added up on its own thread without boxing any quantities,
+ * and the ranges' totals are combined. Each item's margin per unit is written into one long[]
+ * indexed by slot as its range is added up (the ranges never share a slot).
+ */
+public final class InventoryAnalytics {
+
+	//ranges of slots smaller than this are added up on one thread rather than split again
+	private static final int THRESHOLD = 4096;
+
+	//no instances, every method is static
+	private InventoryAnalytics() {
+	}
+
+	/**
+	 * Works out the totals for a stock on the common fork/join pool.
+	 *
+	 * @param stock The stock to analyse
+	 * @return The stock's totals
+	 */
+	public static InventoryReport analyse(Stock stock) {
+		return analyse(stock, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Works out the totals for a stock on the given fork/join pool.
+	 *
+	 * @param stock The stock to analyse
+	 * @param pool The pool whose threads do the work
+	 * @return The stock's totals
+	 */
+	public static InventoryReport analyse(Stock stock, ForkJoinPool pool) {
+		Stock snapshot = stock.snapshot();
+		long[] unitMargins = new long[snapshot.slotCount()];
+		InventoryReport report = pool.invoke(new ScanTask(snapshot, unitMargins, 0, unitMargins.length));
+		report.snapshot = snapshot;
+		report.unitMargins = unitMargins;
+		return report;
+	}
+
+	/**
+	 * Adds up a range of a snapshot's slots, splitting it in half until it's small enough.
+	 */
+	private static final class ScanTask extends RecursiveTask<InventoryReport> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Stock snapshot;
+		private final long[] unitMargins;
+		private final int from;
+		private final int to;
+
+		ScanTask(Stock snapshot, long[] unitMargins, int from, int to) {
+			this.snapshot = snapshot;
+			this.unitMargins = unitMargins;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected InventoryReport compute() {
+
+			//split big ranges in half, running one half here and the other on another thread
+			if (to - from > THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				ScanTask left = new ScanTask(snapshot, unitMargins, from, middle);
+				left.fork();
+				InventoryReport right = new ScanTask(snapshot, unitMargins, middle, to).compute();
+				return left.join().merge(right);
+			}
+
+			InventoryReport report = new InventoryReport();
+			for (int slot = from; slot < to; slot++) {
+				Item item = snapshot.itemAt(slot);
+				if (item != null) {
+					report.add(item, snapshot.quantityAt(slot));
+					unitMargins[slot] = Money.subtract(item.GetPriceCents(), item.GetCostCents());
+				}
+			}
+			return report;
+		}
+	}
+}
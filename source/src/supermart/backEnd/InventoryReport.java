@@ -0,0 +1,194 @@
+package supermart.backEnd;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Totals worked out over every item in a stock by InventoryAnalytics.
+ * <p>
+ * Money is in whole cents (see Money), with a dollar getter for each amount.
+ */
+public final class InventoryReport {
+
+	//number of unique items, and total units, in the stock
+	long items;
+	long units;
+
+	//what the stock cost the store, and what it sells for
+	long costCents;
+	long retailCents;
+
+	//number of items at or below their reorder point
+	long itemsToReorder;
+
+	//the cold / dry split of the stock
+	long coldItems;
+	long coldUnits;
+	long dryItems;
+	long dryUnits;
+
+	//every item's margin per unit in cents, indexed by its slot in the snapshot the report was worked out from
+	//(only set on the finished report, not on the parts of the scan)
+	Stock snapshot;
+	long[] unitMargins;
+
+	/**
+	 * Constructs an empty report, which the analytics add items to.
+	 */
+	InventoryReport() {
+	}
+
+	/**
+	 * Adds one line of a stock to the report.
+	 */
+	void add(Item item, int quantity) {
+		items++;
+		units += quantity;
+		costCents = Money.add(costCents, Money.multiply(item.GetCostCents(), quantity));
+		retailCents = Money.add(retailCents, Money.multiply(item.GetPriceCents(), quantity));
+		if (quantity <= item.GetReorderPoint()) {
+			itemsToReorder++;
+		}
+		if (item.hasTemperature()) {
+			coldItems++;
+			coldUnits += quantity;
+		} else {
+			dryItems++;
+			dryUnits += quantity;
+		}
+	}
+
+	/**
+	 * Adds another report's totals to this one (used to combine the parts of a parallel scan).
+	 */
+	InventoryReport merge(InventoryReport other) {
+		items += other.items;
+		units += other.units;
+		costCents = Money.add(costCents, other.costCents);
+		retailCents = Money.add(retailCents, other.retailCents);
+		itemsToReorder += other.itemsToReorder;
+		coldItems += other.coldItems;
+		coldUnits += other.coldUnits;
+		dryItems += other.dryItems;
+		dryUnits += other.dryUnits;
+		return this;
+	}
+
+	/**
+	 * Returns the number of unique items in the stock
+	 * @return The number of unique items
+	 */
+	public long getItems() {
+		return items;
+	}
+
+	/**
+	 * Returns the total number of units in the stock
+	 * @return The sum of every item's quantity
+	 */
+	public long getUnits() {
+		return units;
+	}
+
+	/**
+	 * Returns the value of the stock at cost, in cents
+	 * @return The sum of every item's cost multiplied by its quantity
+	 */
+	public long getCostValueCents() {
+		return costCents;
+	}
+
+	/**
+	 * Returns the value of the stock at cost
+	 * @return The value of the stock at cost, in dollars
+	 */
+	public double getCostValue() {
+		return Money.toDollars(costCents);
+	}
+
+	/**
+	 * Returns the value of the stock at its sell price, in cents
+	 * @return The sum of every item's price multiplied by its quantity
+	 */
+	public long getRetailValueCents() {
+		return retailCents;
+	}
+
+	/**
+	 * Returns the value of the stock at its sell price
+	 * @return The value of the stock at price, in dollars
+	 */
+	public double getRetailValue() {
+		return Money.toDollars(retailCents);
+	}
+
+	/**
+	 * Returns the margin the store would make selling the whole stock, in cents
+	 * @return The retail value minus the cost value
+	 */
+	public long getMarginCents() {
+		return Money.subtract(retailCents, costCents);
+	}
+
+	/**
+	 * Returns the margin (price minus cost) the store makes on one unit of an item
+	 * @param itemName The name of the item
+	 * @return The item's margin per unit, in cents
+	 * @throws IllegalArgumentException Thrown if the item wasn't in the stock when the report was worked out
+	 */
+	public long getUnitMarginCents(String itemName) {
+		int slot = snapshot.slotOf(itemName);
+		if (slot < 0) {
+			throw new IllegalArgumentException(itemName + " wasn't in the stock");
+		}
+		return unitMargins[slot];
+	}
+
+	/**
+	 * Returns the number of items at or below their reorder point
+	 * @return The number of items that need reordering
+	 */
+	public long getItemsToReorder() {
+		return itemsToReorder;
+	}
+
+	/**
+	 * Returns the number of cold items in the stock
+	 * @return The number of unique cold items
+	 */
+	public long getColdItems() {
+		return coldItems;
+	}
+
+	/**
+	 * Returns the number of units of cold items in the stock
+	 * @return The sum of every cold item's quantity
+	 */
+	public long getColdUnits() {
+		return coldUnits;
+	}
+
+	/**
+	 * Returns the number of dry items in the stock
+	 * @return The number of unique dry items
+	 */
+	public long getDryItems() {
+		return dryItems;
+	}
+
+	/**
+	 * Returns the number of units of dry items in the stock
+	 * @return The sum of every dry item's quantity
+	 */
+	public long getDryUnits() {
+		return dryUnits;
+	}
+
+	/**
+	 * Returns the report as one line of text, e.g. for a status bar or log.
+	 */
+	public String toString() {
+		return 	items + " items, " + units + " units, cost " + Money.format(costCents) +
+				", retail " + Money.format(retailCents) + ", " + itemsToReorder + " to reorder, " +
+				coldItems + " cold / " + dryItems + " dry";
+	}
+}
@@ -16,6 +16,10 @@ public class Item {
 	private String name;
 	private double cost;
 	private double price;
+	
+	//the cost and price in whole cents, for exact money arithmetic (see Money)
+	private long costCents;
+	private long priceCents;
 	private int reorderPoint;
 	private int reorderAmount;
 	private double temperature;
@@ -23,6 +27,13 @@ public class Item {
 	//isDry is a boolean variable used to determine whether or not the item will require special storage
 	private boolean isDry;
 	
+	//the catalogue this item was interned into, and its dense ID in that catalogue (-1 until then)
+	//see ItemCatalog. both are set once, by the catalogue while it holds the item's lock, the ID first.
+	//they're read without a lock (GetId, ItemCatalog.Contains), so they're volatile: a thread that
+	//sees the catalogue set always sees the ID that goes with it
+	volatile ItemCatalog catalog;
+	volatile int id = -1;
+	
 	/**
 	 * An abstract item constructor used in the other two constructors
 	 * <p>
@@ -39,6 +50,8 @@ public class Item {
 		this.name = name;
 		this.cost = cost;
 		this.price = price;
+		this.costCents = Money.fromDollars(cost);
+		this.priceCents = Money.fromDollars(price);
 		this.reorderPoint = reorderPoint;
 		this.reorderAmount = reorderAmount;
 	}
@@ -106,6 +119,22 @@ public class Item {
 		return price;
 	}
 	
+	/**
+	 * Returns the cost of the item in cents
+	 * @return The cost of the item when purchased by the store, rounded to the nearest cent
+	 */
+	public long GetCostCents() {
+		return costCents;
+	}
+	
+	/**
+	 * Returns the price of the item in cents
+	 * @return The price of the item the store sells it at, rounded to the nearest cent
+	 */
+	public long GetPriceCents() {
+		return priceCents;
+	}
+	
 	/**
 	 * Returns the reordering point of the item
 	 * @return The quantity the item must reach before it's reordered
@@ -122,6 +151,27 @@ public class Item {
 		return reorderAmount;
 	}
 	
+	/**
+	 * Returns the item's ID in the catalogue it was interned into
+	 * <p>
+	 * IDs are dense (0, 1, 2, ...), so they can be used to index arrays.
+	 * @return The item's catalogue ID, or -1 if it isn't in a catalogue
+	 */
+	public int GetId() {
+		return id;
+	}
+	
+	/**
+	 * Returns a new item with the same details, which isn't in any catalogue
+	 * @return A copy of the item
+	 */
+	Item copy() {
+		if (isDry) {
+			return new Item(name, cost, price, reorderPoint, reorderAmount);
+		}
+		return new Item(name, cost, price, reorderPoint, reorderAmount, temperature);
+	}
+	
 	/**
 	 * Returns true if the item is dry and has no temperature.
 	 * Returns false if the item is cold.
@@ -163,6 +213,9 @@ public class Item {
 	 * Used to return the current temperature of the item, first isDry is checked
 	 * to determine if the item is dry, if it is a DryException is thrown
 	 * as there is no temperature to return.
+	 * <p>
+	 * Code that just needs to know whether an item is cold should use hasTemperature()
+	 * and temperature() instead, which never throw.
 	 * 
 	 * @return The item's temperature if the item is cold
 	 * @throws DryException If the item is dry, to prevent errors
@@ -170,10 +223,11 @@ public class Item {
 	// ----------------------------------------
 	public double GetTemperature() throws DryException {
 		
-
-		DryException dry = new DryException(this, name);
-		
 		if (isDry) {
+			
+			//the exception is only built for dry items, and without a stack trace
+			//(asking a dry item for its temperature is an expected mistake, not a bug)
+			DryException dry = new DryException(this, name, false);
 			throw dry;
 		} else {
 
@@ -181,6 +235,25 @@ public class Item {
 		}
 	}
 	
+	/**
+	 * Returns true if the item is cold and has a temperature.
+	 * @return Returns true if item is cold, false if it is dry
+	 */
+	public boolean hasTemperature() {
+		return !isDry;
+	}
+	
+	/**
+	 * Returns the temperature of the item, without throwing an exception
+	 * <p>
+	 * Check hasTemperature() first, a dry item returns NaN.
+	 * 
+	 * @return The item's temperature if the item is cold, NaN if it is dry
+	 */
+	public double temperature() {
+		return isDry ? Double.NaN : temperature;
+	}
+	
 	//for use in the comparator
 	//explicitly suppresses 
 	/**
@@ -0,0 +1,173 @@
+package supermart.backEnd;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * The catalogue of every item a store knows about, with exactly one Item per name.
+ * <p>
+ * Items have no equals method, so two Items built from the same line of a CSV file
+ * are different items to a Stock. The catalogue interns items by name: the first item
+ * with a name becomes that name's catalogue entry, and every later item with the same
+ * name is swapped for that entry. Importing the same items file twice therefore reuses
+ * the existing items instead of making duplicates.
+ * <p>
+ * Every entry is also given a dense integer ID (0, 1, 2, ... in the order they were added),
+ * so per-item data can be kept in plain arrays indexed by Item.GetId() instead of hash maps.
+ * The catalogue keeps every entry's details in one of these, its ItemTable.
+ */
+public class ItemCatalog {
+
+	//entries in ID order (items.get(id) is the item with that ID)
+	private ArrayList<Item> items;
+
+	//entries indexed by their name
+	private HashMap<String, Item> names;
+
+	//every entry's details, one row per ID
+	private ItemTable table;
+
+	/**
+	 * Constructs an empty catalogue.
+	 */
+	public ItemCatalog() {
+		items = new ArrayList<Item>();
+		names = new HashMap<String, Item>();
+		table = new ItemTable();
+	}
+
+	/**
+	 * Constructs an empty catalogue with room for the given number of items before it needs to grow.
+	 *
+	 * @param expectedItems the number of items the catalogue is expected to hold
+	 */
+	public ItemCatalog(int expectedItems) {
+		items = new ArrayList<Item>(expectedItems);
+		names = new HashMap<String, Item>(Math.max(16, expectedItems * 4 / 3 + 1));
+		table = new ItemTable(expectedItems);
+	}
+
+	/**
+	 * Returns the catalogue's entry for an item's name, adding the item if the name is new.
+	 * <p>
+	 * A new item is given the next ID. If the item already belongs to another catalogue
+	 * a copy of it is added instead, so an item's ID always belongs to one catalogue.
+	 *
+	 * @param item The item to intern
+	 * @return The catalogue's item with the same name (which might be the given item)
+	 */
+	public synchronized Item intern(Item item) {
+
+		//reuse the existing entry if there is one
+		Item entry = names.get(item.GetName());
+		if (entry != null) {
+			return entry;
+		}
+
+		//claim the item while holding its lock, so two catalogues can't both take the same item
+		//(the one that loses takes a copy instead)
+		synchronized (item) {
+			entry = item.catalog == null ? item : item.copy();
+			entry.id = table.add(entry);
+			entry.catalog = this;
+		}
+		items.add(entry);
+		names.put(entry.GetName(), entry);
+		return entry;
+	}
+
+	/**
+	 * Interns every item in a stock.
+	 *
+	 * @param stock The stock whose items are added to the catalogue
+	 */
+	public synchronized void internAll(Stock stock) {
+		for (Item item : stock.keySet()) {
+			intern(item);
+		}
+	}
+
+	/**
+	 * Returns the item with the given name.
+	 *
+	 * @param itemName The name of the item
+	 * @return The item, or null if no item in the catalogue has this name
+	 */
+	public synchronized Item getItem(String itemName) {
+		return names.get(itemName);
+	}
+
+	/**
+	 * Returns the item with the given ID.
+	 *
+	 * @param id The item's ID, from Item.GetId()
+	 * @return The item with that ID
+	 * @throws IndexOutOfBoundsException if no item has this ID
+	 */
+	public synchronized Item getItem(int id) {
+		return items.get(id);
+	}
+
+	/**
+	 * Returns true if the item is this catalogue's entry (not just an item with the same name).
+	 *
+	 * @param item The item to check
+	 * @return True if the item's ID belongs to this catalogue
+	 */
+	public boolean Contains(Item item) {
+		return item.catalog == this;
+	}
+
+	/**
+	 * Returns the number of items in the catalogue, which is also one more than the highest ID.
+	 *
+	 * @return The number of items in the catalogue
+	 */
+	public synchronized int size() {
+		return items.size();
+	}
+
+	/**
+	 * Returns every item in the catalogue in ID order.
+	 *
+	 * @return A read-only copy of the catalogue's items
+	 */
+	public synchronized List<Item> getItems() {
+		return Collections.unmodifiableList(new ArrayList<Item>(items));
+	}
+
+	/**
+	 * Returns the catalogue's item table, which holds every entry's details by ID.
+	 *
+	 * @return The catalogue's item table
+	 */
+	public ItemTable getTable() {
+		return table;
+	}
+
+	/**
+	 * Returns the quantity of every catalogue item in a stock, indexed by item ID.
+	 * <p>
+	 * Items in the stock are matched to the catalogue by name, and items that aren't in the
+	 * catalogue are left out. Catalogue items that aren't in the stock have a quantity of 0.
+	 *
+	 * @param stock The stock to read the quantities from
+	 * @return An array of quantities, one for each item ID in the catalogue
+	 */
+	public synchronized int[] quantitiesOf(Stock stock) {
+		int[] quantities = new int[items.size()];
+		for (Entry<Item, Integer> line : stock.entrySet()) {
+			Item item = line.getKey();
+			Item entry = item.catalog == this ? item : names.get(item.GetName());
+			if (entry != null) {
+				quantities[entry.id] = line.getValue();
+			}
+		}
+		return quantities;
+	}
+}
@@ -0,0 +1,276 @@
+package supermart.backEnd;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Open addressing hash table of items and their int quantities.
+ * <p>
+ * Used as the backing store of Stock. Keys and quantities are kept in parallel
+ * arrays (linear probing), so quantities are never boxed into Integers and changing
+ * the quantity of an item that is already in the table allocates nothing.
+ * <p>
+ * Callers look an item up once with slotOf, then read and write its quantity
+ * through that slot with get and set.
+ * <p>
+ * Quantities are split into fixed size pages so the table can be snapshotted cheaply.
+ * A snapshot shares every page with the live table, and the live table copies a page
+ * the first time it writes to it after the snapshot (copy on write), so a snapshot
+ * never sees later changes and only the pages that are actually written get copied.
+ */
+class ItemQuantityMap {
+
+	//value returned by slotOf when the item isn't in the table
+	static final int MISSING = -1;
+
+	//the table is grown once it is more than two thirds full
+	private static final int MIN_CAPACITY = 16;
+
+	//quantities are stored in pages of 1024 slots
+	private static final int PAGE_SHIFT = 10;
+	private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+
+	//keys[slot] is the item stored in a slot (an empty slot has a null key)
+	Item[] keys;
+
+	//pages[slot >> PAGE_SHIFT][slot & PAGE_MASK] is the quantity of the item in a slot
+	private int[][] pages;
+
+	//the version each page was last copied in, a page whose version doesn't match
+	//the table's version might be shared with a snapshot, so it is copied before it's written to
+	private int[] pageVersions;
+	private int version;
+
+	//true if the keys array might be shared with a snapshot
+	private boolean keysShared;
+
+	//number of items in the table
+	int size;
+
+	//bumped on every structural change (add / remove), used by Stock's iterators to fail fast
+	int modCount;
+
+	/**
+	 * Constructs an empty table with the default capacity.
+	 */
+	ItemQuantityMap() {
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty table big enough to hold the given number of items without growing.
+	 * @param expectedItems the number of unique items the table is expected to hold
+	 */
+	ItemQuantityMap(int expectedItems) {
+		int capacity = MIN_CAPACITY;
+
+		//keep doubling until the expected items fit under the load factor
+		while (capacity * 2 / 3 < expectedItems) {
+			capacity *= 2;
+		}
+
+		allocate(capacity);
+	}
+
+	/**
+	 * Constructs a read-only table sharing the given arrays (used for snapshots).
+	 */
+	private ItemQuantityMap(Item[] keys, int[][] pages, int size) {
+		this.keys = keys;
+		this.pages = pages;
+		this.size = size;
+	}
+
+	/**
+	 * Allocates new, empty arrays for the given capacity (must be a power of two).
+	 */
+	private void allocate(int capacity) {
+		keys = new Item[capacity];
+
+		int pageSize = Math.min(capacity, PAGE_MASK + 1);
+		pages = new int[capacity / pageSize][pageSize];
+		pageVersions = new int[pages.length];
+		version = 0;
+		keysShared = false;
+	}
+
+	/**
+	 * Returns the home slot of an item, spread across the table with a multiplicative hash.
+	 */
+	private int home(Item item, int mask) {
+		int hash = item.hashCode() * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	/**
+	 * Finds the slot an item is stored in.
+	 * @param item the item to search for
+	 * @return the item's slot, or MISSING if the item isn't in the table
+	 */
+	int slotOf(Item item) {
+		int mask = keys.length - 1;
+		int slot = home(item, mask);
+
+		//probe forwards until we find the item or hit an empty slot
+		Item key;
+		while ((key = keys[slot]) != null) {
+			if (key == item || key.equals(item)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return MISSING;
+	}
+
+	/**
+	 * Returns the quantity stored in a slot.
+	 * @param slot the slot to read (from slotOf)
+	 * @return the quantity of the item in that slot
+	 */
+	int get(int slot) {
+		return pages[slot >>> PAGE_SHIFT][slot & PAGE_MASK];
+	}
+
+	/**
+	 * Sets the quantity stored in a slot.
+	 * @param slot the slot to write (from slotOf or insert)
+	 * @param quantity the item's new quantity
+	 */
+	void set(int slot, int quantity) {
+		int page = slot >>> PAGE_SHIFT;
+
+		//copy the page first if a snapshot might still be reading it
+		if (pageVersions[page] != version) {
+			pages[page] = pages[page].clone();
+			pageVersions[page] = version;
+		}
+		pages[page][slot & PAGE_MASK] = quantity;
+	}
+
+	/**
+	 * Inserts an item that isn't in the table yet.
+	 * @param item the item to insert
+	 * @param quantity the item's starting quantity
+	 * @return the slot the item was stored in
+	 */
+	int insert(Item item, int quantity) {
+
+		//grow first, so the slot returned stays valid
+		if ((size + 1) * 3 > keys.length * 2) {
+			resize(keys.length * 2);
+		}
+		unshareKeys();
+
+		int mask = keys.length - 1;
+		int slot = home(item, mask);
+		while (keys[slot] != null) {
+			slot = (slot + 1) & mask;
+		}
+
+		keys[slot] = item;
+		set(slot, quantity);
+		size++;
+		modCount++;
+		return slot;
+	}
+
+	/**
+	 * Removes an item from the table.
+	 * <p>
+	 * Uses backward shift deletion, so no tombstones are left behind in the table.
+	 * @param item the item to remove
+	 * @return the removed item's quantity, or MISSING if the item wasn't in the table
+	 */
+	int remove(Item item) {
+		int slot = slotOf(item);
+		if (slot == MISSING) {
+			return MISSING;
+		}
+		int removed = get(slot);
+		unshareKeys();
+
+		int mask = keys.length - 1;
+		int gap = slot;
+		int next = (gap + 1) & mask;
+
+		//shift every entry in the rest of the probe run back into the gap if its home slot allows it
+		Item key;
+		while ((key = keys[next]) != null) {
+			int home = home(key, mask);
+
+			//the entry can move back if its home slot isn't cyclically between the gap and its current slot
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				keys[gap] = key;
+				set(gap, get(next));
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+
+		keys[gap] = null;
+		set(gap, 0);
+		size--;
+		modCount++;
+		return removed;
+	}
+
+	/**
+	 * Rebuilds the table with a new capacity (must be a power of two).
+	 */
+	private void resize(int capacity) {
+		Item[] oldKeys = keys;
+		int[][] oldPages = pages;
+
+		allocate(capacity);
+
+		int mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			Item key = oldKeys[i];
+			if (key != null) {
+				int slot = home(key, mask);
+				while (keys[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = key;
+				pages[slot >>> PAGE_SHIFT][slot & PAGE_MASK] = oldPages[i >>> PAGE_SHIFT][i & PAGE_MASK];
+			}
+		}
+	}
+
+	/**
+	 * Copies the keys array if a snapshot might still be reading it.
+	 */
+	private void unshareKeys() {
+		if (keysShared) {
+			keys = keys.clone();
+			keysShared = false;
+		}
+	}
+
+	/**
+	 * Returns a read-only copy of the table as it is right now.
+	 * <p>
+	 * Only the array of page references is copied. The pages and keys themselves are
+	 * shared until this table next writes to them.
+	 * @return a table that will never change
+	 */
+	ItemQuantityMap snapshot() {
+		ItemQuantityMap snapshot = new ItemQuantityMap(keys, pages.clone(), size);
+
+		//every page (and the keys) are now shared, so they'll be copied on their next write
+		version++;
+		keysShared = true;
+		return snapshot;
+	}
+
+	/**
+	 * Returns the index of the first occupied slot at or after the given slot.
+	 * @param slot the slot to start searching from
+	 * @return the next occupied slot, or the table's capacity if there are none left
+	 */
+	int nextSlot(int slot) {
+		while (slot < keys.length && keys[slot] == null) {
+			slot++;
+		}
+		return slot;
+	}
+}
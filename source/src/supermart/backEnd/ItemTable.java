@@ -0,0 +1,223 @@
+package supermart.backEnd;
+
+import java.util.Arrays;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * The details of every item in an ItemCatalog, stored column by column.
+ * <p>
+ * Each detail (name, cost, price, reorder point, reorder amount, temperature and
+ * whether the item is dry) has its own array, and an item's details are at its ID
+ * (Item.GetId()) in every array. Working something out over the whole catalogue, such
+ * as the value of the inventory, then reads straight through one or two arrays instead
+ * of visiting every Item object in turn.
+ * <p>
+ * Quantities aren't part of the table (they belong to a stock), so the bulk methods take
+ * an array of quantities indexed by item ID, see ItemCatalog.quantitiesOf.
+ * <p>
+ * Rows are only ever added, by the table's catalogue.
+ */
+public class ItemTable {
+
+	//the smallest number of rows the arrays are allocated with
+	private static final int MIN_CAPACITY = 16;
+
+	//one array per item detail, indexed by item ID
+	//costs and prices are in whole cents (see Money), and a dry item has NaN as its temperature
+	private String[] names;
+	private long[] costs;
+	private long[] prices;
+	private int[] reorderPoints;
+	private int[] reorderAmounts;
+	private double[] temperatures;
+	private boolean[] dry;
+
+	//number of rows in the table
+	private int size;
+
+	/**
+	 * Constructs an empty item table.
+	 */
+	public ItemTable() {
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty item table with room for the given number of items before it needs to grow.
+	 *
+	 * @param expectedItems the number of items the table is expected to hold
+	 */
+	public ItemTable(int expectedItems) {
+		int capacity = Math.max(expectedItems, MIN_CAPACITY);
+		names = new String[capacity];
+		costs = new long[capacity];
+		prices = new long[capacity];
+		reorderPoints = new int[capacity];
+		reorderAmounts = new int[capacity];
+		temperatures = new double[capacity];
+		dry = new boolean[capacity];
+	}
+
+	/**
+	 * Adds a row holding an item's details.
+	 *
+	 * @param item the item to copy the details of
+	 * @return the new row, which is the item's ID
+	 */
+	int add(Item item) {
+
+		//double every array when they're full
+		if (size == names.length) {
+			int capacity = size * 2;
+			names = Arrays.copyOf(names, capacity);
+			costs = Arrays.copyOf(costs, capacity);
+			prices = Arrays.copyOf(prices, capacity);
+			reorderPoints = Arrays.copyOf(reorderPoints, capacity);
+			reorderAmounts = Arrays.copyOf(reorderAmounts, capacity);
+			temperatures = Arrays.copyOf(temperatures, capacity);
+			dry = Arrays.copyOf(dry, capacity);
+		}
+
+		int id = size;
+		names[id] = item.GetName();
+		costs[id] = item.GetCostCents();
+		prices[id] = item.GetPriceCents();
+		reorderPoints[id] = item.GetReorderPoint();
+		reorderAmounts[id] = item.GetReorderAmount();
+		temperatures[id] = item.temperature();
+		dry[id] = item.CheckIfDry();
+		size++;
+		return id;
+	}
+
+	/**
+	 * Returns the number of rows (items) in the table.
+	 * @return The number of items in the table
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the name of the item with the given ID.
+	 * @param id the item's ID
+	 * @return The item's name
+	 */
+	public String getName(int id) {
+		return names[checkId(id)];
+	}
+
+	/**
+	 * Returns the cost of the item with the given ID.
+	 * @param id the item's ID
+	 * @return The cost of the item when purchased by the store
+	 */
+	public double getCost(int id) {
+		return Money.toDollars(costs[checkId(id)]);
+	}
+
+	/**
+	 * Returns the price of the item with the given ID.
+	 * @param id the item's ID
+	 * @return The price of the item the store sells it at
+	 */
+	public double getPrice(int id) {
+		return Money.toDollars(prices[checkId(id)]);
+	}
+
+	/**
+	 * Returns the reorder point of the item with the given ID.
+	 * @param id the item's ID
+	 * @return The quantity the item must reach before it's reordered
+	 */
+	public int getReorderPoint(int id) {
+		return reorderPoints[checkId(id)];
+	}
+
+	/**
+	 * Returns the reorder amount of the item with the given ID.
+	 * @param id the item's ID
+	 * @return The quantity of items reordered whenever the reorder point is reached
+	 */
+	public int getReorderAmount(int id) {
+		return reorderAmounts[checkId(id)];
+	}
+
+	/**
+	 * Returns the temperature of the item with the given ID.
+	 * @param id the item's ID
+	 * @return The item's temperature, or NaN if the item is dry
+	 */
+	public double getTemperature(int id) {
+		return temperatures[checkId(id)];
+	}
+
+	/**
+	 * Returns true if the item with the given ID is dry.
+	 * @param id the item's ID
+	 * @return True if the item is dry, false if it's cold
+	 */
+	public boolean isDry(int id) {
+		return dry[checkId(id)];
+	}
+
+	/**
+	 * Returns what the given quantities of every item cost the store.
+	 *
+	 * @param quantities each item's quantity, indexed by item ID
+	 * @return The total of each item's cost multiplied by its quantity
+	 */
+	public double stockValue(int[] quantities) {
+		return Money.toDollars(weightedSum(costs, quantities));
+	}
+
+	/**
+	 * Returns what the given quantities of every item sell for.
+	 *
+	 * @param quantities each item's quantity, indexed by item ID
+	 * @return The total of each item's price multiplied by its quantity
+	 */
+	public double retailValue(int[] quantities) {
+		return Money.toDollars(weightedSum(prices, quantities));
+	}
+
+	/**
+	 * Counts the items whose quantity is at or below their reorder point.
+	 *
+	 * @param quantities each item's quantity, indexed by item ID
+	 * @return The number of items that need to be reordered
+	 */
+	public int countToReorder(int[] quantities) {
+		int rows = Math.min(size, quantities.length);
+		int count = 0;
+		for (int id = 0; id < rows; id++) {
+			if (quantities[id] <= reorderPoints[id]) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Multiplies a column of cents by the quantities and adds it up exactly, in one pass over both arrays.
+	 */
+	private long weightedSum(long[] column, int[] quantities) {
+		int rows = Math.min(size, quantities.length);
+		long total = 0;
+		for (int id = 0; id < rows; id++) {
+			total = Money.add(total, Money.multiply(column[id], quantities[id]));
+		}
+		return total;
+	}
+
+	/**
+	 * Checks an ID is a row in the table.
+	 */
+	private int checkId(int id) {
+		if (id < 0 || id >= size) {
+			throw new IndexOutOfBoundsException("no item has the ID " + id);
+		}
+		return id;
+	}
+}
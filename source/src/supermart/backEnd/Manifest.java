@@ -1,5 +1,7 @@
 package supermart.backEnd;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.AbstractList; 
 import java.util.ArrayList;
 
@@ -108,13 +110,34 @@ public class Manifest extends AbstractList<Truck> {
 	 */
 	public String toString() {
 		
-		String string1 = "";
-		for(Truck i : manifest) {
-			string1 += i.toString() + "\n";
+		StringBuilder string = new StringBuilder();
+		try {
+			writeTo(string);
+		} catch (IOException ioErr) {
+			//a StringBuilder never throws an IOException
+			throw new UncheckedIOException(ioErr);
+		}
+		return string.toString();
+	}
+	
+	/**
+	 * Writes the manifest to the given output
+	 * <p>
+	 * Writes the same text as toString, one truck at a time, straight
+	 * to the output (e.g. a Writer or StringBuilder).
+	 * 
+	 * @param out The output to write the manifest to
+	 * @throws IOException thrown if the output can't be written to
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		
+		for (int i = 0; i < manifest.size(); i++) {
+			//each truck goes on a new line (no newline after the last truck)
+			if (i > 0) {
+				out.append('\n');
+			}
+			manifest.get(i).writeTo(out);
 		}
-		//Removes the last comma from the string
-		String string2 = string1.substring(0, string1.length() - 1);
-		return string2;
 	}
 	
 	
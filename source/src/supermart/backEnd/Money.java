@@ -0,0 +1,96 @@
+package supermart.backEnd;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Static methods for working with amounts of money stored as a whole number of cents.
+ * <p>
+ * A double can't hold most amounts of cents exactly (0.10 is really 0.1000000000000000055...),
+ * so adding up millions of sales lines as doubles slowly drifts away from the real total.
+ * Amounts held as a long of cents add up exactly, and are plain primitives, so working with
+ * them never allocates anything.
+ * <p>
+ * Every method throws an ArithmeticException instead of silently overflowing.
+ */
+public final class Money {
+
+	//number of cents in a dollar
+	public static final long CENTS_PER_DOLLAR = 100;
+
+	//no instances, every method is static
+	private Money() {
+	}
+
+	/**
+	 * Converts an amount of dollars to cents, rounded to the nearest cent.
+	 *
+	 * @param dollars an amount of dollars e.g. 12.34
+	 * @return the amount in cents e.g. 1234
+	 * @throws ArithmeticException if the amount doesn't fit in a long of cents
+	 */
+	public static long fromDollars(double dollars) {
+		double cents = dollars * CENTS_PER_DOLLAR;
+		if (Double.isNaN(cents) || Math.abs(cents) >= Long.MAX_VALUE) {
+			throw new ArithmeticException(dollars + " dollars can't be held in cents");
+		}
+		return Math.round(cents);
+	}
+
+	/**
+	 * Converts an amount of cents to dollars, for display and for the double getters.
+	 *
+	 * @param cents an amount of cents e.g. 1234
+	 * @return the amount in dollars e.g. 12.34
+	 */
+	public static double toDollars(long cents) {
+		return cents / (double) CENTS_PER_DOLLAR;
+	}
+
+	/**
+	 * Adds two amounts of cents.
+	 *
+	 * @param a the first amount
+	 * @param b the second amount
+	 * @return a + b
+	 * @throws ArithmeticException if the result overflows
+	 */
+	public static long add(long a, long b) {
+		return Math.addExact(a, b);
+	}
+
+	/**
+	 * Takes one amount of cents away from another.
+	 *
+	 * @param a the amount to take away from
+	 * @param b the amount to take away
+	 * @return a - b
+	 * @throws ArithmeticException if the result overflows
+	 */
+	public static long subtract(long a, long b) {
+		return Math.subtractExact(a, b);
+	}
+
+	/**
+	 * Multiplies an amount of cents by a quantity, e.g. an item's price by the number sold.
+	 *
+	 * @param cents the amount for one
+	 * @param quantity how many
+	 * @return cents * quantity
+	 * @throws ArithmeticException if the result overflows
+	 */
+	public static long multiply(long cents, long quantity) {
+		return Math.multiplyExact(cents, quantity);
+	}
+
+	/**
+	 * Formats an amount of cents as dollars with two decimal places, e.g. "-12.05".
+	 *
+	 * @param cents the amount to format
+	 * @return the formatted amount
+	 */
+	public static String format(long cents) {
+		long whole = Math.abs(cents / CENTS_PER_DOLLAR);
+		long part = Math.abs(cents % CENTS_PER_DOLLAR);
+		return (cents < 0 ? "-" : "") + whole + (part < 10 ? ".0" : ".") + part;
+	}
+}
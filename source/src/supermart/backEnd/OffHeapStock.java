@@ -0,0 +1,1012 @@
+package supermart.backEnd;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import supermart.exceptions.StockException;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * A stock for very large catalogues (millions of items), kept in memory outside the Java heap.
+ * <p>
+ * Every item is given a dense slot (0 to CountUniqueItems() - 1), and each of its details
+ * (quantity, cost, price, reorder point, reorder amount, temperature and name) is stored in
+ * its own column of direct memory at that slot. The name index used to find an item's slot is
+ * off the heap as well, so the stock holds no objects per item and the heap stays the same size
+ * however big the catalogue gets (nothing for the garbage collector to trace).
+ * <p>
+ * Items aren't kept as objects, so getItem, keySet, entrySet and orderedItems build a new Item
+ * from the columns as they are called or iterated over. An item is looked up in this stock by its
+ * name (names are unique in a stock), so these copies can be used anywhere the original item could.
+ * The coldest item and the name order are kept in columns too (a heap of the cold items' slots,
+ * and the slots sorted by name), so neither needs the whole stock scanned or any items built.
+ * <p>
+ * Only the stock itself is heap-flat. A Store using an OffHeapStock still keeps one Item object
+ * on the heap for every item it knows about, in its ItemCatalog (and a row of the catalogue's
+ * ItemTable), and one for each item in its reorder index (the items at or below their reorder point).
+ * So a store's heap still grows with its catalogue. Keeping the heap the same size however big
+ * the catalogue gets needs the stock to be used on its own (e.g. to load, check or total a very
+ * large catalogue).
+ * <p>
+ * Used exactly like a normal Stock, e.g. new Store(name, capital, new OffHeapStock(1000000)).
+ */
+public class OffHeapStock extends Stock {
+
+	//value returned by slotOf when no item has the given name
+	private static final int MISSING = -1;
+
+	//an empty entry in the name index (entries hold slot + 1)
+	private static final int EMPTY = 0;
+
+	//the smallest number of slots the columns are allocated with
+	private static final int MIN_CAPACITY = 16;
+
+	//one column per item detail, indexed by slot
+	//costs and prices are whole cents (see Money), and a dry item has NaN stored as its temperature
+	private IntBuffer quantities;
+	private LongBuffer costs;
+	private LongBuffer prices;
+	private IntBuffer reorderPoints;
+	private IntBuffer reorderAmounts;
+	private DoubleBuffer coldTemps;
+
+	//each item's name is stored back to back in nameChars, starting at nameStarts[slot]
+	//removed names are left where they are until the names are next compacted
+	private IntBuffer hashes;
+	private IntBuffer nameStarts;
+	private IntBuffer nameLengths;
+	private CharBuffer nameChars;
+	private int nameEnd;
+	private int deadChars;
+
+	//hash index from an item's name to its slot (linear probing, never more than half full)
+	private IntBuffer index;
+
+	//the cold items' slots as a binary min-heap by temperature, so the coldest is always at the top,
+	//and each slot's position in the heap + 1 (0 for a dry item), so a removed item can be found in it
+	private IntBuffer coldHeap;
+	private IntBuffer heapPositions;
+	private int coldCount;
+
+	//every slot, sorted by the name of its item, for orderedItems. items added in name order are
+	//appended to it, anything else leaves it unsorted until orderedItems next needs it
+	private IntBuffer order;
+	private boolean orderSorted = true;
+
+	//number of items in the stock, and how many slots the columns have room for
+	private int count;
+	private int capacity;
+
+	//bumped on every add / remove, used by the iterators to fail fast
+	private int modCount;
+
+	//true for the copies returned by snapshot()
+	private boolean readOnly;
+
+	/**
+	 * Constructs an empty off-heap stock.
+	 */
+	public OffHeapStock() {
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty off-heap stock with room for the given number of items
+	 * before it needs to grow.
+	 *
+	 * @param expectedItems the number of unique items the stock is expected to hold
+	 */
+	public OffHeapStock(int expectedItems) {
+		this(expectedItems, 0);
+	}
+
+	@Override
+	protected Stock newStock(int expectedItems) {
+		return new OffHeapStock(expectedItems);
+	}
+
+	/**
+	 * Constructs an empty off-heap stock with room for the given number of items
+	 * and characters of item names.
+	 */
+	private OffHeapStock(int expectedItems, int expectedChars) {
+		super(false);
+		int slots = MIN_CAPACITY;
+		while (slots < expectedItems) {
+			slots *= 2;
+		}
+
+		//allow for names of around 8 characters each, unless told otherwise
+		allocate(slots, Math.max(expectedChars, slots * 8));
+	}
+
+	/**
+	 * Adds an item to the stock with a starting quantity of 0.
+	 * <p>
+	 * The item's details are copied into the stock's columns. An item is not added if
+	 * another item with the same name is already in the stock.
+	 *
+	 * @param item The item to be added into the stock
+	 * @return returns true if the item is successfully added, false if otherwise
+	 */
+	@Override
+	public synchronized boolean addItem(Item item) {
+		checkWritable();
+
+		String name = item.GetName();
+		if (slotOf(name) != MISSING) {
+			return false;
+		}
+
+		//make room for one more item and its name
+		if (count == capacity) {
+			grow(capacity * 2);
+		}
+		if (nameEnd + name.length() > nameChars.capacity()) {
+			growNames(name.length());
+		}
+
+		//write the item's details into the next free slot
+		int slot = count;
+		quantities.put(slot, 0);
+		costs.put(slot, item.GetCostCents());
+		prices.put(slot, item.GetPriceCents());
+		reorderPoints.put(slot, item.GetReorderPoint());
+		reorderAmounts.put(slot, item.GetReorderAmount());
+		coldTemps.put(slot, item.temperature());
+		hashes.put(slot, name.hashCode());
+		nameStarts.put(slot, nameEnd);
+		nameLengths.put(slot, name.length());
+		for (int i = 0; i < name.length(); i++) {
+			nameChars.put(nameEnd + i, name.charAt(i));
+		}
+		nameEnd += name.length();
+
+		indexSlot(slot);
+		heapPositions.put(slot, 0);
+		if (item.hasTemperature()) {
+			heapInsert(slot);
+		}
+		if (orderSorted && (slot == 0 || compareNames(order.get(slot - 1), slot) < 0)) {
+			order.put(slot, slot);
+		} else {
+			orderSorted = false;
+		}
+		count++;
+		modCount++;
+		added(item);
+		return true;
+	}
+
+	/**
+	 * Removes an item (found by its name) from the stock, along with its quantity.
+	 * <p>
+	 * The last item in the stock is moved into the removed item's slot, so the slots stay dense.
+	 *
+	 * @param item The item to be removed from the stock
+	 * @return returns true if the item is succesfully removed, false if otherwise or item not found
+	 */
+	@Override
+	public synchronized boolean removeItem(Item item) {
+		checkWritable();
+
+		int slot = slotOf(item.GetName());
+		if (slot == MISSING) {
+			return false;
+		}
+
+		units -= quantities.get(slot);
+		deadChars += nameLengths.get(slot);
+		unindexSlot(slot);
+		if (heapPositions.get(slot) != 0) {
+			heapRemove(slot);
+		}
+
+		//fill the gap with the last item, and point its index entry (and heap entry) at its new slot
+		int last = count - 1;
+		if (slot != last) {
+			int entry = findEntry(last);
+			copySlot(last, slot);
+			index.put(entry, slot + 1);
+			int position = heapPositions.get(slot);
+			if (position != 0) {
+				coldHeap.put(position - 1, slot);
+			}
+		}
+		orderSorted = false;
+
+		count--;
+		modCount++;
+		removed(item);
+		return true;
+	}
+
+	/**
+	 * Sets the quantity of an item in the stock.
+	 *
+	 * @param item The item to be modified
+	 * @param quantity The quantity to be added to the item, must be positive
+	 * @throws StockException Thrown when a negative quantity is attempted, or the item isn't in the stock
+	 */
+	@Override
+	public synchronized void SetQuantity(Item item, int quantity) throws StockException {
+		checkWritable();
+
+		int slot = slotOf(item.GetName());
+		if (slot == MISSING) {
+			throw MissingItem(item);
+		}
+		if (quantity < 0) {
+			StockException stockErr = new StockException(	"negative quantity!: " + quantity +
+															" is an invalid number to assign to " + item.GetName() +  "!");
+			throw stockErr;
+		}
+
+		units += quantity - quantities.get(slot);
+		quantities.put(slot, quantity);
+		changed(item, quantity);
+	}
+
+	/**
+	 * Changes the quantity of an item in the stock by the given amount.
+	 *
+	 * @param item The item to be modified
+	 * @param quantity The amount to add to the item's quantity
+	 * @throws StockException Thrown when the item isn't in the stock or the result is negative
+	 */
+	@Override
+	public synchronized void ChangeQuantity(Item item, int quantity) throws StockException {
+		checkWritable();
+
+		int slot = slotOf(item.GetName());
+		if (slot == MISSING) {
+			throw MissingItem(item);
+		}
+		if (!change(item, slot, quantity)) {
+			StockException stockErr = new StockException(	"negative quantity!: " + (quantities.get(slot) + quantity) +
+															" is an invalid number to assign to " + item.GetName() +  "!");
+			throw stockErr;
+		}
+	}
+
+	/**
+	 * Changes the quantity in a slot, unless the result would be negative.
+	 *
+	 * @return true if the quantity was changed
+	 */
+	private boolean change(Item item, int slot, int quantity) {
+		int newQuantity = quantities.get(slot) + quantity;
+		if (newQuantity < 0) {
+			return false;
+		}
+		quantities.put(slot, newQuantity);
+		units += quantity;
+		changed(item, newQuantity);
+		return true;
+	}
+
+	/**
+	 * Applies every line of a delta stock to this stock, all or nothing.
+	 * <p>
+	 * Every line is checked first, and the new quantities are only written once they are
+	 * all valid, so a failed delta leaves this stock unchanged.
+	 *
+	 * @param delta A stock of items and the amounts to change them by
+	 * @param sign 1 to add the delta's quantities, -1 to take them away
+	 * @throws StockException Thrown if an item in the delta isn't in this stock, or would end up with a negative quantity
+	 */
+	@Override
+	public synchronized void applyDelta(Stock delta, int sign) throws StockException {
+		checkWritable();
+
+		if (sign != 1 && sign != -1) {
+			throw new IllegalArgumentException("sign must be 1 or -1, not " + sign);
+		}
+
+		int lines = delta.CountUniqueItems();
+		Item[] items = new Item[lines];
+		int[] slots = new int[lines];
+		int[] newQuantities = new int[lines];
+		int change = 0;
+
+		//first pass: validate every line
+		int i = 0;
+		for (Item item : delta.keySet()) {
+			int slot = slotOf(item.GetName());
+			if (slot == MISSING) {
+				throw MissingItem(item);
+			}
+
+			int quantity = sign * delta.getQuantity(item);
+			int newQuantity = quantities.get(slot) + quantity;
+			if (newQuantity < 0) {
+				StockException stockErr = new StockException(	"negative quantity!: " + newQuantity +
+																" is an invalid number to assign to " + item.GetName() +  "!");
+				throw stockErr;
+			}
+
+			items[i] = item;
+			slots[i] = slot;
+			newQuantities[i] = newQuantity;
+			change += quantity;
+			i++;
+		}
+
+		//second pass: commit them all
+		for (int j = 0; j < i; j++) {
+			quantities.put(slots[j], newQuantities[j]);
+			changed(items[j], newQuantities[j]);
+		}
+		units += change;
+	}
+
+	/**
+	 * Adds a set amount to the quantity of an item in the stock
+	 *
+	 * @param item The item to be added into the stock
+	 * @param quantity The quantity to be added to the item's quantity
+	 * @return true if the quantity is correctly added, false if otherwise
+	 */
+	@Override
+	public synchronized boolean AddQuantity(Item item, int quantity) {
+		checkWritable();
+
+		int slot = slotOf(item.GetName());
+		return slot != MISSING && change(item, slot, quantity);
+	}
+
+	/**
+	 * Returns the quantity of a specific item.
+	 *
+	 * @param item The item to return the quantity of
+	 * @return The quantity of the specified item
+	 */
+	@Override
+	public int getQuantity(Item item) {
+		int slot = slotOf(item.GetName());
+		if (slot == MISSING) {
+			throw new NullPointerException(item.GetName() + " is not in the stock");
+		}
+		return quantities.get(slot);
+	}
+
+	@Override
+	public int CountUniqueItems() {
+		return count;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	@Override
+	public boolean Contains(Item item) {
+		return slotOf(item.GetName()) != MISSING;
+	}
+
+	@Override
+	public boolean Contains(String itemName) {
+		return slotOf(itemName) != MISSING;
+	}
+
+	/**
+	 * Returns the item with the given name, built from the stock's columns.
+	 *
+	 * @param itemName A string containing the desired items name
+	 * @return A copy of the item, or null if no item in the stock has this name
+	 */
+	@Override
+	public Item getItem(String itemName) {
+		int slot = slotOf(itemName);
+		return slot == MISSING ? null : itemAt(slot);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof Item && this.Contains((Item) key);
+	}
+
+	@Override
+	public Integer get(Object key) {
+		if (key instanceof Item) {
+			int slot = slotOf(((Item) key).GetName());
+			if (slot != MISSING) {
+				return quantities.get(slot);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a set of all the items in the stock.
+	 * <p>
+	 * Each item is built from the stock's columns as the set is iterated over.
+	 *
+	 * @return A read-only keyset of all unique items in the stock
+	 */
+	@Override
+	public Set<Item> keySet() {
+		return new AbstractSet<Item>() {
+
+			public Iterator<Item> iterator() {
+				return new ColumnIterator<Item>() {
+					Item get(int slot) {
+						return itemAt(slot);
+					}
+				};
+			}
+
+			public int size() {
+				return count;
+			}
+
+			public boolean contains(Object o) {
+				return containsKey(o);
+			}
+		};
+	}
+
+	/**
+	 * Returns a read-only entry set of the stock's items and quantities.
+	 *
+	 * @return The stock's entry set.
+	 */
+	@Override
+	public Set<Entry<Item, Integer>> entrySet() {
+		return new AbstractSet<Entry<Item, Integer>>() {
+
+			public Iterator<Entry<Item, Integer>> iterator() {
+				return new ColumnIterator<Entry<Item, Integer>>() {
+					Entry<Item, Integer> get(int slot) {
+						return new AbstractMap.SimpleImmutableEntry<Item, Integer>(itemAt(slot), quantities.get(slot));
+					}
+				};
+			}
+
+			public int size() {
+				return count;
+			}
+		};
+	}
+
+	/**
+	 * Returns the temperature of the item in the stock with the lowest temperature
+	 * <p>
+	 * The cold items are kept in a heap by temperature as they are added and removed,
+	 * so this reads the top of the heap rather than scanning the stock.
+	 * Returns positive infinity if there are no cold items in the stock.
+	 *
+	 * @return The minimum temperature required for this stock
+	 */
+	@Override
+	public double getLowestTemp() {
+		return coldCount == 0 ? Double.POSITIVE_INFINITY : coldTemps.get(coldHeap.get(0));
+	}
+
+	/**
+	 * Returns every item in the stock in lexicographical order by name.
+	 * <p>
+	 * The stock keeps its slots sorted by name, and only sorts them again (in place, off the heap)
+	 * when items have been added out of order or removed since. Each item is built from the
+	 * stock's columns as the collection is iterated over, so no items are built up front.
+	 *
+	 * @return A read-only collection of the stock's items, sorted by name
+	 */
+	@Override
+	public Collection<Item> orderedItems() {
+		sortOrder();
+		return new AbstractCollection<Item>() {
+
+			public Iterator<Item> iterator() {
+				return new ColumnIterator<Item>() {
+					Item get(int position) {
+						return itemAt(order.get(position));
+					}
+				};
+			}
+
+			public int size() {
+				return count;
+			}
+		};
+	}
+
+	/**
+	 * Returns a read-only copy of the stock.
+	 * <p>
+	 * The columns are copied into new off-heap memory, so the copy doesn't take up
+	 * any more of the heap than the stock itself. Trying to change the copy throws an
+	 * UnsupportedOperationException.
+	 *
+	 * @return a read-only copy of the stock
+	 */
+	@Override
+	public synchronized Stock snapshot() {
+		if (readOnly) {
+			return this;
+		}
+
+		OffHeapStock copy = new OffHeapStock(count, nameEnd);
+		copy.quantities.put(slice(quantities, count));
+		copy.costs.put(slice(costs, count));
+		copy.prices.put(slice(prices, count));
+		copy.reorderPoints.put(slice(reorderPoints, count));
+		copy.reorderAmounts.put(slice(reorderAmounts, count));
+		copy.coldTemps.put(slice(coldTemps, count));
+		copy.hashes.put(slice(hashes, count));
+		copy.nameStarts.put(slice(nameStarts, count));
+		copy.nameLengths.put(slice(nameLengths, count));
+		copy.nameChars.put(slice(nameChars, nameEnd));
+		copy.coldHeap.put(slice(coldHeap, coldCount));
+		copy.heapPositions.put(slice(heapPositions, count));
+		copy.order.put(slice(order, count));
+		copy.coldCount = coldCount;
+		copy.orderSorted = orderSorted;
+		copy.nameEnd = nameEnd;
+		copy.deadChars = deadChars;
+		copy.count = count;
+		copy.units = units;
+		for (int slot = 0; slot < count; slot++) {
+			copy.indexSlot(slot);
+		}
+		copy.readOnly = true;
+		return copy;
+	}
+
+	//slots are dense, so every slot below the item count holds an item
+
+	@Override
+	int slotCount() {
+		return count;
+	}
+
+	@Override
+	int quantityAt(int slot) {
+		return quantities.get(slot);
+	}
+
+	/**
+	 * Finds the slot of the item with the given name.
+	 */
+	@Override
+	int slotOf(String name) {
+		int hash = name.hashCode();
+		int mask = index.capacity() - 1;
+		int i = home(hash, mask);
+
+		int entry;
+		while ((entry = index.get(i)) != EMPTY) {
+			int slot = entry - 1;
+			if (hashes.get(slot) == hash && nameEquals(slot, name)) {
+				return slot;
+			}
+			i = (i + 1) & mask;
+		}
+		return MISSING;
+	}
+
+	/**
+	 * Returns true if the name stored in a slot is the given name (without building a String).
+	 */
+	private boolean nameEquals(int slot, String name) {
+		int length = nameLengths.get(slot);
+		if (length != name.length()) {
+			return false;
+		}
+		int start = nameStarts.get(slot);
+		for (int i = 0; i < length; i++) {
+			if (nameChars.get(start + i) != name.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Builds a new Item from the details stored in a slot.
+	 */
+	@Override
+	Item itemAt(int slot) {
+		int start = nameStarts.get(slot);
+		char[] name = new char[nameLengths.get(slot)];
+		for (int i = 0; i < name.length; i++) {
+			name[i] = nameChars.get(start + i);
+		}
+
+		double temperature = coldTemps.get(slot);
+		if (Double.isNaN(temperature)) {
+			return new Item(new String(name), Money.toDollars(costs.get(slot)), Money.toDollars(prices.get(slot)),
+							reorderPoints.get(slot), reorderAmounts.get(slot));
+		}
+		return new Item(new String(name), Money.toDollars(costs.get(slot)), Money.toDollars(prices.get(slot)),
+						reorderPoints.get(slot), reorderAmounts.get(slot), temperature);
+	}
+
+	/**
+	 * Returns the home position of a name hash in the index.
+	 */
+	private static int home(int hash, int mask) {
+		int spread = hash * 0x9E3779B9;
+		return (spread ^ (spread >>> 16)) & mask;
+	}
+
+	/**
+	 * Adds a slot's name to the index.
+	 */
+	private void indexSlot(int slot) {
+		int mask = index.capacity() - 1;
+		int i = home(hashes.get(slot), mask);
+		while (index.get(i) != EMPTY) {
+			i = (i + 1) & mask;
+		}
+		index.put(i, slot + 1);
+	}
+
+	/**
+	 * Finds the position in the index that points at a slot.
+	 */
+	private int findEntry(int slot) {
+		int mask = index.capacity() - 1;
+		int i = home(hashes.get(slot), mask);
+		while (index.get(i) != slot + 1) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	/**
+	 * Takes a slot out of the index, using backward shift deletion so no tombstones are left behind.
+	 */
+	private void unindexSlot(int slot) {
+		int mask = index.capacity() - 1;
+		int gap = findEntry(slot);
+		int next = (gap + 1) & mask;
+
+		int entry;
+		while ((entry = index.get(next)) != EMPTY) {
+			int home = home(hashes.get(entry - 1), mask);
+
+			//the entry can move back if its home isn't cyclically between the gap and where it is now
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				index.put(gap, entry);
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		index.put(gap, EMPTY);
+	}
+
+	/**
+	 * Compares the names stored in two slots, as String.compareTo would (without building either String).
+	 */
+	private int compareNames(int a, int b) {
+		int startA = nameStarts.get(a);
+		int startB = nameStarts.get(b);
+		int lengthA = nameLengths.get(a);
+		int lengthB = nameLengths.get(b);
+		int length = Math.min(lengthA, lengthB);
+		for (int i = 0; i < length; i++) {
+			int difference = nameChars.get(startA + i) - nameChars.get(startB + i);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return lengthA - lengthB;
+	}
+
+	/**
+	 * Sorts the order column by name if it isn't already, with a heap sort so no memory is needed
+	 * beyond the column itself.
+	 */
+	private synchronized void sortOrder() {
+		if (orderSorted) {
+			return;
+		}
+		for (int slot = 0; slot < count; slot++) {
+			order.put(slot, slot);
+		}
+
+		//build a max-heap of the slots by name, then move the greatest to the end one at a time
+		for (int i = count / 2 - 1; i >= 0; i--) {
+			siftOrder(i, count);
+		}
+		for (int end = count - 1; end > 0; end--) {
+			int greatest = order.get(0);
+			order.put(0, order.get(end));
+			order.put(end, greatest);
+			siftOrder(0, end);
+		}
+		orderSorted = true;
+	}
+
+	/**
+	 * Moves an entry of the order column down its max-heap (of the first size entries) until it's in place.
+	 */
+	private void siftOrder(int i, int size) {
+		int slot = order.get(i);
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && compareNames(order.get(child + 1), order.get(child)) > 0) {
+				child++;
+			}
+			if (compareNames(order.get(child), slot) <= 0) {
+				break;
+			}
+			order.put(i, order.get(child));
+			i = child;
+		}
+		order.put(i, slot);
+	}
+
+	/**
+	 * Adds a cold item's slot to the heap of cold items.
+	 */
+	private void heapInsert(int slot) {
+		int position = coldCount++;
+		heapPlace(position, slot);
+		heapSiftUp(position);
+	}
+
+	/**
+	 * Takes a cold item's slot out of the heap of cold items, filling its place with the last entry.
+	 */
+	private void heapRemove(int slot) {
+		int position = heapPositions.get(slot) - 1;
+		heapPositions.put(slot, 0);
+		int last = --coldCount;
+		if (position != last) {
+			heapPlace(position, coldHeap.get(last));
+			heapSiftUp(position);
+			heapSiftDown(position);
+		}
+	}
+
+	private void heapSiftUp(int position) {
+		int slot = coldHeap.get(position);
+		double temperature = coldTemps.get(slot);
+		while (position > 0) {
+			int parent = (position - 1) / 2;
+			int parentSlot = coldHeap.get(parent);
+			if (coldTemps.get(parentSlot) <= temperature) {
+				break;
+			}
+			heapPlace(position, parentSlot);
+			position = parent;
+		}
+		heapPlace(position, slot);
+	}
+
+	private void heapSiftDown(int position) {
+		int slot = coldHeap.get(position);
+		double temperature = coldTemps.get(slot);
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= coldCount) {
+				break;
+			}
+			if (child + 1 < coldCount && coldTemps.get(coldHeap.get(child + 1)) < coldTemps.get(coldHeap.get(child))) {
+				child++;
+			}
+			int childSlot = coldHeap.get(child);
+			if (coldTemps.get(childSlot) >= temperature) {
+				break;
+			}
+			heapPlace(position, childSlot);
+			position = child;
+		}
+		heapPlace(position, slot);
+	}
+
+	/**
+	 * Puts a slot at a position in the heap of cold items, and remembers where it is.
+	 */
+	private void heapPlace(int position, int slot) {
+		coldHeap.put(position, slot);
+		heapPositions.put(slot, position + 1);
+	}
+
+	/**
+	 * Copies every column of one slot into another.
+	 */
+	private void copySlot(int from, int to) {
+		quantities.put(to, quantities.get(from));
+		costs.put(to, costs.get(from));
+		prices.put(to, prices.get(from));
+		reorderPoints.put(to, reorderPoints.get(from));
+		reorderAmounts.put(to, reorderAmounts.get(from));
+		coldTemps.put(to, coldTemps.get(from));
+		hashes.put(to, hashes.get(from));
+		nameStarts.put(to, nameStarts.get(from));
+		nameLengths.put(to, nameLengths.get(from));
+		heapPositions.put(to, heapPositions.get(from));
+	}
+
+	/**
+	 * Allocates new, empty columns (capacity must be a power of two).
+	 */
+	private void allocate(int slots, int chars) {
+		capacity = slots;
+		quantities = column(slots, Integer.BYTES).asIntBuffer();
+		costs = column(slots, Long.BYTES).asLongBuffer();
+		prices = column(slots, Long.BYTES).asLongBuffer();
+		reorderPoints = column(slots, Integer.BYTES).asIntBuffer();
+		reorderAmounts = column(slots, Integer.BYTES).asIntBuffer();
+		coldTemps = column(slots, Double.BYTES).asDoubleBuffer();
+		hashes = column(slots, Integer.BYTES).asIntBuffer();
+		nameStarts = column(slots, Integer.BYTES).asIntBuffer();
+		nameLengths = column(slots, Integer.BYTES).asIntBuffer();
+		nameChars = column(chars, Character.BYTES).asCharBuffer();
+		index = column(slots * 2, Integer.BYTES).asIntBuffer();
+		coldHeap = column(slots, Integer.BYTES).asIntBuffer();
+		heapPositions = column(slots, Integer.BYTES).asIntBuffer();
+		order = column(slots, Integer.BYTES).asIntBuffer();
+	}
+
+	/**
+	 * Moves every column into new memory with room for the given number of slots.
+	 */
+	private void grow(int slots) {
+		IntBuffer oldQuantities = quantities;
+		LongBuffer oldCosts = costs;
+		LongBuffer oldPrices = prices;
+		IntBuffer oldReorderPoints = reorderPoints;
+		IntBuffer oldReorderAmounts = reorderAmounts;
+		DoubleBuffer oldColdTemps = coldTemps;
+		IntBuffer oldHashes = hashes;
+		IntBuffer oldNameStarts = nameStarts;
+		IntBuffer oldNameLengths = nameLengths;
+		CharBuffer oldNameChars = nameChars;
+		IntBuffer oldColdHeap = coldHeap;
+		IntBuffer oldHeapPositions = heapPositions;
+		IntBuffer oldOrder = order;
+
+		allocate(slots, oldNameChars.capacity());
+		quantities.put(slice(oldQuantities, count));
+		costs.put(slice(oldCosts, count));
+		prices.put(slice(oldPrices, count));
+		reorderPoints.put(slice(oldReorderPoints, count));
+		reorderAmounts.put(slice(oldReorderAmounts, count));
+		coldTemps.put(slice(oldColdTemps, count));
+		hashes.put(slice(oldHashes, count));
+		nameStarts.put(slice(oldNameStarts, count));
+		nameLengths.put(slice(oldNameLengths, count));
+		nameChars.put(slice(oldNameChars, nameEnd));
+		coldHeap.put(slice(oldColdHeap, coldCount));
+		heapPositions.put(slice(oldHeapPositions, count));
+		order.put(slice(oldOrder, count));
+
+		//the index is twice the size now, so every slot needs to be indexed again
+		for (int slot = 0; slot < count; slot++) {
+			indexSlot(slot);
+		}
+	}
+
+	/**
+	 * Makes room for a new name, first by dropping removed names and then (if
+	 * that isn't enough) by moving the names into bigger memory.
+	 */
+	private void growNames(int needed) {
+		int live = nameEnd - deadChars;
+		int chars = nameChars.capacity();
+		while (live + needed > chars / 2) {
+			chars *= 2;
+		}
+
+		//copy every live name to the front of the new memory
+		CharBuffer oldNameChars = nameChars;
+		nameChars = column(chars, Character.BYTES).asCharBuffer();
+		nameEnd = 0;
+		for (int slot = 0; slot < count; slot++) {
+			int start = nameStarts.get(slot);
+			int length = nameLengths.get(slot);
+			for (int i = 0; i < length; i++) {
+				nameChars.put(nameEnd + i, oldNameChars.get(start + i));
+			}
+			nameStarts.put(slot, nameEnd);
+			nameEnd += length;
+		}
+		deadChars = 0;
+	}
+
+	/**
+	 * Returns a view of the first used entries of a column, for bulk copying.
+	 * <p>
+	 * The column is only ever read and written at absolute positions, so the view
+	 * starts from 0 whatever position earlier bulk copies have left the column at.
+	 */
+	private static IntBuffer slice(IntBuffer column, int used) {
+		IntBuffer view = column.duplicate();
+		view.clear();
+		view.limit(used);
+		return view;
+	}
+
+	private static LongBuffer slice(LongBuffer column, int used) {
+		LongBuffer view = column.duplicate();
+		view.clear();
+		view.limit(used);
+		return view;
+	}
+
+	private static DoubleBuffer slice(DoubleBuffer column, int used) {
+		DoubleBuffer view = column.duplicate();
+		view.clear();
+		view.limit(used);
+		return view;
+	}
+
+	private static CharBuffer slice(CharBuffer column, int used) {
+		CharBuffer view = column.duplicate();
+		view.clear();
+		view.limit(used);
+		return view;
+	}
+
+	/**
+	 * Allocates a zeroed column of direct (off-heap) memory.
+	 */
+	private static ByteBuffer column(int entries, int bytesPerEntry) {
+		return ByteBuffer.allocateDirect(entries * bytesPerEntry).order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Throws if this stock is a read-only snapshot.
+	 */
+	private void checkWritable() {
+		if (readOnly) {
+			throw new UnsupportedOperationException("a stock snapshot is read-only");
+		}
+	}
+
+	/**
+	 * Builds the exception thrown when an item isn't in the stock.
+	 */
+	private static StockException MissingItem(Item item) {
+		return new StockException("The given item key for '"+item.GetName()+"' is not in the stock");
+	}
+
+	/**
+	 * Iterator over the used slots of the stock.
+	 * <p>
+	 * Throws a ConcurrentModificationException if items are added or removed
+	 * from the stock while it is being iterated over.
+	 */
+	private abstract class ColumnIterator<T> implements Iterator<T> {
+
+		int next = 0;
+		int expectedModCount = modCount;
+
+		abstract T get(int slot);
+
+		public boolean hasNext() {
+			return next < count;
+		}
+
+		public T next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (next >= count) {
+				throw new NoSuchElementException();
+			}
+			return get(next++);
+		}
+	}
+}
@@ -1,5 +1,8 @@
 package supermart.backEnd;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 import supermart.SupermartEnums.ToStringType;
 import supermart.SupermartEnums.TruckType;
 import supermart.exceptions.DeliveryException;
@@ -15,8 +18,9 @@ public class OrdinaryTruck implements Truck {
 	
 	Stock stock;
 	int capacity;
-	DeliveryException cap = new DeliveryException("Refrigerated Truck over capacity. given cap: "+capacity);
-	DryException dry = new DryException();
+	//built with every truck, so they're built without stack traces
+	DeliveryException cap = new DeliveryException("Refrigerated Truck over capacity. given cap: "+capacity, false);
+	DryException dry = new DryException(false);
 
 	/**
 	 * Constructs an OrdinaryTruck object
@@ -51,19 +55,18 @@ public class OrdinaryTruck implements Truck {
 	 */
 	public void SetStock(Stock stock) throws DeliveryException, DryException {
 		
-		for (Item i : stock.keySet()) {
+		//the stock's size is the same for every item, so check the capacity once up front
 		if (stock.size() > capacity) {
 			throw cap;
 		}
 		
-		else if(i.CheckIfDry() == false) {
-			throw dry;
-		}
-		else {
-			this.stock = stock;
-
-		}
+		for (Item i : stock.keySet()) {
+			if(i.CheckIfDry() == false) {
+				throw dry;
+			}
 		}
+		
+		this.stock = stock;
 	}
 	
 	/**
@@ -87,6 +90,17 @@ public class OrdinaryTruck implements Truck {
 		return price;
 	}
 	
+	/**
+	 * Returns the cost of using the truck in whole cents
+	 * <p>
+	 * $750 plus 25 cents per item, which is always a whole number of cents.
+	 * 
+	 * @return The price of using the truck, in cents
+	 */
+	public long getPriceCents() {
+		return Money.add(75000, Money.multiply(25, stock.size()));
+	}
+	
 	/**
 	 * For an OrdinaryTruck this should always just throw a DryException.
 	 * This is here as it's inherited from the Truck abstract class.
@@ -94,7 +108,7 @@ public class OrdinaryTruck implements Truck {
 	 * @throws DryException thrown every time the method is called as OrdinaryTrucks do not have temperature
 	 */
 	public double getTemperature() throws DryException {
-		DryException dry = new DryException();
+		DryException dry = new DryException(false);
 		throw dry;
 	}
 
@@ -133,8 +147,26 @@ public class OrdinaryTruck implements Truck {
 	 * and item quantity in it's stock
 	 */
 	public String toString() {
-		String string = ">Ordinary\n" + stock.toString(ToStringType.NAME);
-		return string;
+		StringBuilder string = new StringBuilder();
+		try {
+			writeTo(string);
+		} catch (IOException ioErr) {
+			//a StringBuilder never throws an IOException
+			throw new UncheckedIOException(ioErr);
+		}
+		return string.toString();
+	}
+	
+	/**
+	 * Writes the type of truck, the items in it's stock and their
+	 * quantities to the given output.
+	 * 
+	 * @param out The output to write the truck to
+	 * @throws IOException thrown if the output can't be written to
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		out.append(">Ordinary\n");
+		stock.writeTo(out, ToStringType.NAME);
 	}
 	
 
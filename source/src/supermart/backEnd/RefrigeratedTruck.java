@@ -1,5 +1,8 @@
 package supermart.backEnd;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 import supermart.SupermartEnums.ToStringType;
 import supermart.SupermartEnums.TruckType;
 import supermart.exceptions.DeliveryException;
@@ -15,7 +18,8 @@ public class RefrigeratedTruck implements Truck {
 	Stock stock;
 	double temperature;
 	int capacity;
-	DeliveryException cap = new DeliveryException("Refrigerated Truck over capacity. given cap: "+capacity);
+	//built with every truck, so it's built without a stack trace
+	DeliveryException cap = new DeliveryException("Refrigerated Truck over capacity. given cap: "+capacity, false);
 	
 	/**
 	 * Constructs a RefigeratedTruck object
@@ -67,7 +71,8 @@ public class RefrigeratedTruck implements Truck {
 	 * Returns the cost of using the truck
 	 * <p>
 	 * Calculated based on the lowest temperature the
-	 * truck requires to be to keep items fresh.
+	 * truck requires to be to keep items fresh. A truck with no
+	 * cold items doesn't need cooling, so it costs the base price of 900.
 	 * 
 	 * @return The price of using the truck
 	 */
@@ -76,6 +81,18 @@ public class RefrigeratedTruck implements Truck {
 		return price;
 	}
 	
+	/**
+	 * Returns the cost of using the truck in whole cents
+	 * <p>
+	 * The price equation rarely gives a whole number of cents,
+	 * so the price is rounded to the nearest cent.
+	 * 
+	 * @return The price of using the truck, in cents
+	 */
+	public long getPriceCents() {
+		return Money.fromDollars(getPrice());
+	}
+	
 	/**
 	 * Returns the temperature set by the truck.
 	 * 
@@ -120,8 +137,26 @@ public class RefrigeratedTruck implements Truck {
 	 * and item quantity in it's stock
 	 */
 	public String toString() {
-		String string = ">Refrigerated\n" + stock.toString(ToStringType.NAME);
-		return string;
+		StringBuilder string = new StringBuilder();
+		try {
+			writeTo(string);
+		} catch (IOException ioErr) {
+			//a StringBuilder never throws an IOException
+			throw new UncheckedIOException(ioErr);
+		}
+		return string.toString();
+	}
+	
+	/**
+	 * Writes the type of truck, the items in it's stock and their
+	 * quantities to the given output.
+	 * 
+	 * @param out The output to write the truck to
+	 * @throws IOException thrown if the output can't be written to
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		out.append(">Refrigerated\n");
+		stock.writeTo(out, ToStringType.NAME);
 	}
 
 }
@@ -0,0 +1,184 @@
+package supermart.backEnd;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * The items in a stock that are at or below their reorder point, already in the order
+ * they go onto a new stock order.
+ * <p>
+ * The index listens to its stock (see StockListener), and moves an item in or out as soon
+ * as a change takes its quantity across its reorder point. Cold items are kept sorted by
+ * temperature (coldest first) and dry items by reorder amount (largest first), with ties
+ * broken by name so the order never depends on how the stock happens to store its items.
+ * Generating an order then only copies out the items that need reordering, instead of
+ * checking and sorting the whole stock.
+ * <p>
+ * Most quantity changes don't take an item across its reorder point. The stock checks that
+ * without a lock (see needsChange), so only the changes that move an item in or out of the
+ * index take the index's lock, and changes to a ConcurrentStock still don't wait on each other.
+ * <p>
+ * As the store's stock listener, the index also catalogues every item added to the stock
+ * (however it was added), so every item in the store's stock is always in the store's catalogue.
+ */
+class ReorderIndex implements StockListener {
+
+	//cold items by temperature, coldest first
+	private static final Comparator<Item> COLD_ORDER =
+			Comparator.comparingDouble(Item::temperature).thenComparing(Item::GetName);
+
+	//dry items by reorder amount, largest first
+	private static final Comparator<Item> DRY_ORDER =
+			Comparator.comparingInt(Item::GetReorderAmount).reversed().thenComparing(Item::GetName);
+
+	private final TreeSet<Item> cold = new TreeSet<Item>(COLD_ORDER);
+	private final TreeSet<Item> dry = new TreeSet<Item>(DRY_ORDER);
+
+	//every item in the index by its name, so an item can be found again whichever
+	//Item object the stock passes in (stocks that don't keep Item objects build new ones)
+	//only changed while holding the index's lock, but read without it by needsChange
+	private final ConcurrentHashMap<String, Item> members = new ConcurrentHashMap<String, Item>();
+
+	//the stock being listened to
+	private Stock stock;
+
+	//the store's catalogue, which every item added to the stock is interned into
+	private final ItemCatalog catalog;
+
+	//true while attach is filling the index from a snapshot, and the names of the items the stock
+	//has told the index about since attach started listening (their snapshot quantity may be older)
+	private volatile boolean attaching;
+	private final HashSet<String> touched = new HashSet<String>();
+
+	//held for the whole of attach, so two stocks can't be attached at once
+	private final Object attachLock = new Object();
+
+	/**
+	 * Constructs an empty index, which catalogues the items added to its stock.
+	 *
+	 * @param catalog The catalogue to add new items to
+	 */
+	ReorderIndex(ItemCatalog catalog) {
+		this.catalog = catalog;
+	}
+
+	/**
+	 * Starts listening to a stock (and stops listening to the last one), filling the index from it.
+	 * <p>
+	 * A change to the stock holds the stock's lock while it tells the index, so the snapshot the
+	 * index is filled from is taken without holding the index's lock (otherwise the two could
+	 * wait for each other). The index listens first, and an item the stock tells it about while
+	 * the snapshot is taken keeps what it was told, rather than its quantity in the snapshot.
+	 *
+	 * @param newStock The stock to index
+	 */
+	void attach(Stock newStock) {
+		synchronized (attachLock) {
+			synchronized (this) {
+				if (stock != null && stock.listener == this) {
+					stock.setListener(null);
+				}
+				stock = newStock;
+				cold.clear();
+				dry.clear();
+				members.clear();
+				touched.clear();
+				attaching = true;
+			}
+
+			newStock.setListener(this);
+			Stock inventory = newStock.snapshot();
+
+			synchronized (this) {
+				for (Item item : inventory.keySet()) {
+					if (!touched.contains(item.GetName())) {
+						update(item, inventory.getQuantity(item));
+					}
+				}
+				touched.clear();
+				attaching = false;
+			}
+		}
+	}
+
+	/**
+	 * Returns every item that needs reordering: the cold items by temperature, then the dry items.
+	 *
+	 * @return A new list of the items to reorder
+	 */
+	synchronized ArrayList<Item> order() {
+		ArrayList<Item> order = new ArrayList<Item>(members.size());
+		order.addAll(cold);
+		order.addAll(dry);
+		return order;
+	}
+
+	/**
+	 * Returns the number of items that need reordering.
+	 */
+	int size() {
+		return members.size();
+	}
+
+	@Override
+	public void itemAdded(Item item) {
+		catalog.intern(item);
+		quantityChanged(item, 0);
+	}
+
+	@Override
+	public synchronized void itemRemoved(Item item) {
+		if (attaching) {
+			touched.add(item.GetName());
+		}
+		Item member = members.remove(item.GetName());
+		if (member != null) {
+			setFor(member).remove(member);
+		}
+	}
+
+	@Override
+	public synchronized void quantityChanged(Item item, int quantity) {
+		if (attaching) {
+			touched.add(item.GetName());
+		}
+		update(item, quantity);
+	}
+
+	/**
+	 * Returns true if a quantity would move the item in or out of the index (or the index is being filled).
+	 */
+	@Override
+	public boolean needsChange(Item item, int quantity) {
+		return attaching || (quantity <= item.GetReorderPoint()) != members.containsKey(item.GetName());
+	}
+
+	/**
+	 * Moves an item in or out of the index for its quantity (the caller holds the index's lock).
+	 */
+	private void update(Item item, int quantity) {
+		boolean reorder = quantity <= item.GetReorderPoint();
+		Item member = members.get(item.GetName());
+
+		//only touch the sorted sets when the item crosses its reorder point
+		if (reorder && member == null) {
+			members.put(item.GetName(), item);
+			setFor(item).add(item);
+		} else if (!reorder && member != null) {
+			members.remove(item.GetName());
+			setFor(member).remove(member);
+		}
+	}
+
+	/**
+	 * Returns the set an item belongs in.
+	 */
+	private TreeSet<Item> setFor(Item item) {
+		return item.hasTemperature() ? cold : dry;
+	}
+}
@@ -0,0 +1,173 @@
+package supermart.backEnd;
+
+import java.util.Arrays;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * How many units of each item a store sold in each of its last few sales periods.
+ * <p>
+ * Every sales log imported into a store is one period. Each item (by its catalogue ID, see
+ * Item.GetId) has a ring buffer of its units sold in the last getPeriods() periods, all kept
+ * in one flat int array: item ID * periods + (period % periods). Starting a period and adding
+ * a sale write straight into the array without allocating anything, and the buffers only grow
+ * when the catalogue gets a new item.
+ * <p>
+ * Periods an item sold nothing in aren't written at all. Each item remembers the last period
+ * it was written in, and the slots it skipped are cleared the next time it sells (or read as 0
+ * until then), so starting a period never touches every item.
+ */
+public final class SalesHistory {
+
+	//the fewest items the buffers are allocated for
+	private static final int MIN_ITEMS = 16;
+
+	//number of periods each item remembers
+	private final int periods;
+
+	//units sold, item ID * periods + (period % periods)
+	private int[] units;
+
+	//the last period each item's buffer was written in (0 if never)
+	private long[] lastPeriod;
+
+	//the current period, counted from 1 (0 before the first period starts)
+	private long period;
+
+	/**
+	 * Constructs an empty history.
+	 *
+	 * @param periods The number of periods to remember for each item
+	 * @param expectedItems The number of items the history is expected to hold
+	 */
+	public SalesHistory(int periods, int expectedItems) {
+		if (periods < 1) {
+			throw new IllegalArgumentException("a sales history needs at least one period, not " + periods);
+		}
+		this.periods = periods;
+		int items = Math.max(expectedItems, MIN_ITEMS);
+		units = new int[items * periods];
+		lastPeriod = new long[items];
+	}
+
+	/**
+	 * Starts a new period, which later sales are added to.
+	 *
+	 * @return The number of the new period
+	 */
+	public synchronized long nextPeriod() {
+		return ++period;
+	}
+
+	/**
+	 * Adds units sold of an item to the current period.
+	 *
+	 * @param itemId The item's catalogue ID
+	 * @param quantity The number of units sold
+	 */
+	public synchronized void add(int itemId, int quantity) {
+		if (period == 0) {
+			throw new IllegalStateException("no sales period has been started");
+		}
+		ensureItem(itemId);
+
+		int base = itemId * periods;
+		long last = lastPeriod[itemId];
+		if (last != period) {
+
+			//clear the slots of the periods the item didn't sell in (all of them if it's been a whole lap)
+			if (last == 0 || period - last >= periods) {
+				Arrays.fill(units, base, base + periods, 0);
+			} else {
+				for (long skipped = last + 1; skipped <= period; skipped++) {
+					units[base + (int) (skipped % periods)] = 0;
+				}
+			}
+			lastPeriod[itemId] = period;
+		}
+		units[base + (int) (period % periods)] += quantity;
+	}
+
+	/**
+	 * Returns the units of an item sold in one period.
+	 *
+	 * @param itemId The item's catalogue ID
+	 * @param periodsAgo 0 for the current period, 1 for the one before, and so on
+	 * @return The units sold, or 0 if the period is older than the history remembers
+	 */
+	public synchronized int unitsSold(int itemId, int periodsAgo) {
+		if (itemId < 0 || itemId >= lastPeriod.length || periodsAgo < 0 || periodsAgo >= periods || periodsAgo >= period) {
+			return 0;
+		}
+
+		//a period after the item's last sale hasn't been written yet, so it sold nothing
+		long wanted = period - periodsAgo;
+		if (wanted > lastPeriod[itemId]) {
+			return 0;
+		}
+		return units[itemId * periods + (int) (wanted % periods)];
+	}
+
+	/**
+	 * Returns the units of an item sold over the last few periods (including the current one).
+	 *
+	 * @param itemId The item's catalogue ID
+	 * @param lastPeriods How many periods to add up (at most getPeriods())
+	 * @return The total units sold in those periods
+	 */
+	public synchronized long sum(int itemId, int lastPeriods) {
+		int count = Math.min(lastPeriods, periods);
+		long total = 0;
+		for (int ago = 0; ago < count; ago++) {
+			total += unitsSold(itemId, ago);
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the average units of an item sold per period over the last few periods.
+	 * <p>
+	 * If fewer periods than asked for have passed, the average is over the periods there have been.
+	 *
+	 * @param itemId The item's catalogue ID
+	 * @param lastPeriods How many periods to average over (at most getPeriods())
+	 * @return The average units sold per period, or 0 if no period has started
+	 */
+	public synchronized double average(int itemId, int lastPeriods) {
+		long count = Math.min(Math.min(lastPeriods, periods), period);
+		if (count <= 0) {
+			return 0;
+		}
+		return sum(itemId, (int) count) / (double) count;
+	}
+
+	/**
+	 * Returns the number of periods remembered for each item
+	 * @return The length of each item's ring buffer
+	 */
+	public int getPeriods() {
+		return periods;
+	}
+
+	/**
+	 * Returns the current period
+	 * @return The number of periods started so far
+	 */
+	public synchronized long getPeriod() {
+		return period;
+	}
+
+	/**
+	 * Grows the buffers to hold an item ID, doubling them so growing stays rare.
+	 */
+	private void ensureItem(int itemId) {
+		if (itemId < 0) {
+			throw new IndexOutOfBoundsException("no item has the ID " + itemId);
+		}
+		if (itemId >= lastPeriod.length) {
+			int items = Math.max(lastPeriod.length * 2, itemId + 1);
+			units = Arrays.copyOf(units, items * periods);
+			lastPeriod = Arrays.copyOf(lastPeriod, items);
+		}
+	}
+}
@@ -1,16 +1,22 @@
 package supermart.backEnd;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.TreeMap;
 
 import supermart.SupermartEnums.ToStringType;
 import supermart.exceptions.DeliveryException;
-import supermart.exceptions.DryException;
 import supermart.exceptions.StockException;
 
 /**
@@ -20,26 +26,97 @@ import supermart.exceptions.StockException;
  * <p>
  * Builds a stock used to contain Item and Item information.
  * Used by both Trucks, Stores and Manifests as a list of items they carry.
+ * <p>
+ * A stock should only be changed by one thread at a time (use ConcurrentStock
+ * for several threads). Any thread can take a snapshot() of it to read from.
  */
 public class Stock extends AbstractMap<Item, Integer> {
 
-	//hashmap of items and their associated quantities
-	//this hashmap is the foundation of our stock
+	//hash table of items and their associated quantities
+	//this table is the foundation of our stock
 	//it lets us assign dynamic quantities to each item
 	//and it keeps the memory usage low
 	//(this helps with the large amounts of items to be passed through manifests and sales logs)
 	
+	//quantities are stored as plain ints (see ItemQuantityMap), so updating a quantity never boxes an Integer
+	//the Map<Item, Integer> view of the stock is still available through entrySet, keySet and get
+	
 	//the trade-off here is that stock can no longer be accessed via an index.
 	//therefore, when we do toString for our stock, we NEED to do it in lexicographical order by name
-	HashMap<Item, Integer> stock;
+	ItemQuantityMap stock;
+	
+	//second hashmap which indexes every item in the stock by its name
+	//the CSV imports look items up by name for every single row, so scanning the whole keyset
+	//each time made imports scale with (rows * items). this index makes those lookups constant time.
+	//it is kept in step with the stock hashmap by addItem and removeItem, so item names in a stock are unique
+	HashMap<String, Item> names;
+	
+	//every item in the stock, kept sorted lexicographically by name
+	//toString and the GUI table both list items in name order, so instead of copying and sorting
+	//the keyset every time, items are put in order as they are added (and taken out as they are removed)
+	TreeMap<String, Item> ordered;
+	
+	//the temperature of every cold item in the stock, and how many items need that temperature
+	//(a multiset of temperatures). refrigerated trucks need the coldest temperature in their stock
+	//every time they're built or given a new stock, so it is kept up to date in lowestTemp as items
+	//are added and removed, instead of searching every item each time
+	TreeMap<Double, Integer> temperatures;
+	double lowestTemp = Double.POSITIVE_INFINITY;
+	
+	//true if the name index, ordering and temperatures are shared with a snapshot of this stock
+	//(they are copied before they're next changed, see snapshot())
+	boolean indexesShared;
+	
+	//running total of every item's quantity in the stock
+	//trucks check the size of their stock all the time (capacity checks and pricing), so instead of
+	//adding up every quantity on each call, every method that changes a quantity also updates this count
+	int units;
+	
+	//told about every item added or removed and every quantity change (e.g. the store's reorder list)
+	//null when nothing is listening, snapshots never have a listener
+	volatile StockListener listener;
 		
 	/**
 	* Constructs a stock object and builds a hashmap.
 	*/
 	public Stock() {
 		
-		//initialise the stock hashmap
-		stock = new HashMap<Item, Integer>();
+		//initialise the stock table, its name index and its ordering
+		stock = new ItemQuantityMap();
+		names = new HashMap<String, Item>();
+		ordered = new TreeMap<String, Item>();
+		temperatures = new TreeMap<Double, Integer>();
+	}
+	
+	/**
+	 * Constructs a stock object with room for the given number of unique items before it needs to grow.
+	 * <p>
+	 * Used for stores whose catalogue size is known up front, so a small store doesn't
+	 * hold a large table and a large store doesn't grow its table over and over while loading.
+	 * @param expectedItems the number of unique items the stock is expected to hold
+	 */
+	public Stock(int expectedItems) {
+		stock = new ItemQuantityMap(expectedItems);
+		names = new HashMap<String, Item>(Math.max(16, expectedItems * 4 / 3 + 1));
+		ordered = new TreeMap<String, Item>();
+		temperatures = new TreeMap<Double, Integer>();
+	}
+	
+	/**
+	 * Constructs a stock object, optionally without its own table, name index, ordering and temperatures.
+	 * <p>
+	 * Used by subclasses that keep their items another way (e.g. ConcurrentStock and OffHeapStock),
+	 * so they don't allocate structures they never use. Such a subclass has to override every
+	 * method that reads or changes those structures.
+	 * @param structures true to build the structures (the same as Stock()), false to leave them out
+	 */
+	protected Stock(boolean structures) {
+		if (structures) {
+			stock = new ItemQuantityMap();
+			names = new HashMap<String, Item>();
+			ordered = new TreeMap<String, Item>();
+			temperatures = new TreeMap<Double, Integer>();
+		}
 	}
 	
 	 /**
@@ -50,7 +127,10 @@ public class Stock extends AbstractMap<Item, Integer> {
 	 */
 	public Stock(Store store, ArrayList<String> builder) throws DeliveryException {
 		
-		stock = new HashMap<Item,Integer>();
+		stock = new ItemQuantityMap();
+		names = new HashMap<String, Item>();
+		ordered = new TreeMap<String, Item>();
+		temperatures = new TreeMap<Double, Integer>();
 		
 		int i = 1;
 		while (i<builder.size()) {
@@ -65,9 +145,13 @@ public class Stock extends AbstractMap<Item, Integer> {
 					throw nullErr;
 					
 				} else {
-					Integer quantity = Integer.parseInt(builder.get(i+1));
+					int quantity = Integer.parseInt(builder.get(i+1));
 					
-					stock.put(item, quantity);
+					//initialise the item through addItem so the name index stays up to date
+					this.addItem(item);
+					int slot = stock.slotOf(item);
+					units += quantity - stock.get(slot);
+					stock.set(slot, quantity);
 				}
 			
 				
@@ -84,6 +168,19 @@ public class Stock extends AbstractMap<Item, Integer> {
 		
 	}
 	
+	/**
+	 * Constructs a stock around existing structures (used by snapshots).
+	 */
+	Stock(ItemQuantityMap stock, HashMap<String, Item> names, TreeMap<String, Item> ordered,
+			TreeMap<Double, Integer> temperatures, double lowestTemp, int units) {
+		this.stock = stock;
+		this.names = names;
+		this.ordered = ordered;
+		this.temperatures = temperatures;
+		this.lowestTemp = lowestTemp;
+		this.units = units;
+	}
+	
 	//Add item to the HashMap
 	//This initialises an item into the stock with quantity 0
 	//this is different from changing the quantity of an item (changeQuantity 
@@ -93,18 +190,35 @@ public class Stock extends AbstractMap<Item, Integer> {
 	 * <p>
 	 * Adds the specified item into the stock with a starting
 	 * quantity of 0.
+	 * <p>
+	 * Item names are unique within a stock, so an item is not added
+	 * if another item with the same name is already in the stock.
 	 * 
 	 * @param item The item to be added into the stock
 	 * @return returns true if the item is successfully added, false if otherwise
 	 */
-	public boolean addItem(Item item) {
+	public synchronized boolean addItem(Item item) {
 		
-		//first, check if this item isnt already in the stock
-		if (!this.Contains(item)) {
+		//first, check if this item (or another item with the same name) isnt already in the stock
+		if (!this.Contains(item) && !this.Contains(item.GetName())) {
 			 
 			//if the item hasnt already been added, then perform the addItem process
-			//set the item as a key in the hashmap, with its associated quantity as 0
-			stock.put(item, 0);
+			//set the item as a key in the stock table, with its associated quantity as 0
+			stock.insert(item, 0);
+			
+			//index the item by its name for getItem(String) and Contains(String)
+			unshareIndexes();
+			names.put(item.GetName(), item);
+			ordered.put(item.GetName(), item);
+			
+			//count the item's temperature if it's a cold item
+			if (item.hasTemperature()) {
+				double temperature = item.temperature();
+				temperatures.merge(temperature, 1, Integer::sum);
+				lowestTemp = Math.min(lowestTemp, temperature);
+			}
+			
+			added(item);
 			
 			//return true to signify that the collection has changed
 			return true;
@@ -131,13 +245,29 @@ public class Stock extends AbstractMap<Item, Integer> {
 	 * @param item The item to be removed from the stock
 	 * @return returns true if the item is succesfully removed, false if otherwise or item not found
 	 */
-	public boolean removeItem(Item item) {
+	public synchronized boolean removeItem(Item item) {
 		
-		//check if the given item is in the stock
-		if (this.Contains(item)) {
+		//try to remove the given item from the stock table (and its name from the index)
+		int removed = stock.remove(item);
+		if (removed != ItemQuantityMap.MISSING) {
+			
+			unshareIndexes();
+			names.remove(item.GetName());
+			ordered.remove(item.GetName());
+			
+			//stop counting the item's temperature, and find the new coldest temperature if this was it
+			if (item.hasTemperature()) {
+				double temperature = item.temperature();
+				if (temperatures.merge(temperature, -1, Integer::sum) == 0) {
+					temperatures.remove(temperature);
+				}
+				lowestTemp = temperatures.isEmpty() ? Double.POSITIVE_INFINITY : temperatures.firstKey();
+			}
+			
+			//the item's quantity leaves the stock with it
+			units -= removed;
+			removed(item);
 			
-			//if the item is a key in the stock hashmap, then remove it.
-			stock.remove(item);
 			//return true to signify the stock has changed
 			return true;
 		} else {
@@ -160,10 +290,11 @@ public class Stock extends AbstractMap<Item, Integer> {
 	 * @param quantity The quantity to be added to the item, must be positive
 	 * @throws StockException Thrown when a negative quantity is attempted
 	 */
-	public void SetQuantity(Item item, int quantity) throws StockException {
+	public synchronized void SetQuantity(Item item, int quantity) throws StockException {
 		
-		//first, check if the given item is currently within the stock.
-		if (this.Contains(item)) {
+		//first, find the given item's slot in the stock (this also checks it is currently within the stock).
+		int slot = stock.slotOf(item);
+		if (slot != ItemQuantityMap.MISSING) {
 			
 			//calculate a new quantity for the associated item, using the parsed argument
 			//if this newly calculated quantity is negative, then throw a stock exception
@@ -176,8 +307,11 @@ public class Stock extends AbstractMap<Item, Integer> {
 				throw stockErr;
 			} else {
 				
-				//if the quantity is valid, then assign it to the item key
-				stock.put(item, quantity);
+				//if the quantity is valid, then assign it to the item's slot
+				//and move the running total by the difference
+				units += quantity - stock.get(slot);
+				stock.set(slot, quantity);
+				changed(item, quantity);
 			}
 			
 		} else {
@@ -189,6 +323,96 @@ public class Stock extends AbstractMap<Item, Integer> {
 		}
 	}
 	
+	/**
+	 * Changes the quantity of an item in the stock by the given amount.
+	 * <p>
+	 * Looks the item up once, then adds the amount to its quantity (a negative
+	 * amount takes away from it). Throws StockException if the item isn't in the stock,
+	 * or if the change would leave the item with a negative quantity.
+	 * In both cases the stock is left unchanged.
+	 * 
+	 * @param item The item to be modified
+	 * @param quantity The amount to add to the item's quantity
+	 * @throws StockException Thrown when the item isn't in the stock or the result is negative
+	 */
+	public synchronized void ChangeQuantity(Item item, int quantity) throws StockException {
+		
+		//find the item's slot in the stock
+		int slot = stock.slotOf(item);
+		if (slot == ItemQuantityMap.MISSING) {
+			StockException stockErr = new StockException("The given item key for '"+item.GetName()+"' is not in the stock");
+			throw stockErr;
+		}
+		
+		//calculate the new quantity, and check it isnt negative before assigning it
+		int newQuantity = stock.get(slot) + quantity;
+		if (newQuantity < 0) {
+			StockException stockErr = new StockException(	"negative quantity!: " + newQuantity +
+															" is an invalid number to assign to " + item.GetName() +  "!");
+			throw stockErr;
+		}
+		
+		stock.set(slot, newQuantity);
+		units += quantity;
+		changed(item, newQuantity);
+	}
+	
+	/**
+	 * Applies every line of a delta stock to this stock, all or nothing.
+	 * <p>
+	 * Each item's quantity in the delta is added to (sign 1) or taken away from (sign -1)
+	 * the same item in this stock. Every line is checked first, and only if they are all
+	 * valid are the new quantities written, so a failed delta leaves this stock unchanged.
+	 * Each item is only looked up once in this stock.
+	 * 
+	 * @param delta A stock of items and the amounts to change them by
+	 * @param sign 1 to add the delta's quantities, -1 to take them away
+	 * @throws StockException Thrown if an item in the delta isn't in this stock, or would end up with a negative quantity
+	 */
+	public synchronized void applyDelta(Stock delta, int sign) throws StockException {
+		
+		if (sign != 1 && sign != -1) {
+			throw new IllegalArgumentException("sign must be 1 or -1, not " + sign);
+		}
+		
+		//remember the slot and new quantity of each line while validating, so committing
+		//doesn't need to look anything up again
+		int lines = delta.CountUniqueItems();
+		int[] slots = new int[lines];
+		int[] newQuantities = new int[lines];
+		int change = 0;
+		
+		//first pass: validate every line
+		int i = 0;
+		for (Item item : delta.keySet()) {
+			int slot = stock.slotOf(item);
+			if (slot == ItemQuantityMap.MISSING) {
+				StockException stockErr = new StockException("The given item key for '"+item.GetName()+"' is not in the stock");
+				throw stockErr;
+			}
+			
+			int quantity = sign * delta.getQuantity(item);
+			int newQuantity = stock.get(slot) + quantity;
+			if (newQuantity < 0) {
+				StockException stockErr = new StockException(	"negative quantity!: " + newQuantity +
+																" is an invalid number to assign to " + item.GetName() +  "!");
+				throw stockErr;
+			}
+			
+			slots[i] = slot;
+			newQuantities[i] = newQuantity;
+			change += quantity;
+			i++;
+		}
+		
+		//second pass: every line is valid, so commit them all
+		for (int j = 0; j < i; j++) {
+			stock.set(slots[j], newQuantities[j]);
+			changed(stock.keys[slots[j]], newQuantities[j]);
+		}
+		units += change;
+	}
+	
 	//this is just a simple method to bypass the SetQuantity method
 	//it automatically catched the stock exception and returns 'false' if 
 	//if you want to quickly add a quantity to the stock without checking it for errors
@@ -212,28 +436,29 @@ public class Stock extends AbstractMap<Item, Integer> {
 		 * @param quantity The quantity to be added to the item's quantity
 		 * @return true if the quantity is correctly added, false if otherwise
 		 */
-	public boolean AddQuantity(Item item, int quantity) {
+	public synchronized boolean AddQuantity(Item item, int quantity) {
 		
-		//check if the item exists in the stock
-		if (this.Contains(item)) {
+		//check if the item exists in the stock (grabbing its slot while we're at it)
+		int slot = stock.slotOf(item);
+		if (slot != ItemQuantityMap.MISSING) {
 			
 			//if the item exists, we can try to add to it's quantity
-			//these statements are in a try/catch to supress the throwing of a StockException
-			//this makes this method easy to access without the need to handle it over and over in the test suites.
-			try {
-				
-				//try adding to the quantity of the given item
-				//the new quantity is calculated by adding the items current quantity
-				//together with the quantity given as an argument
-				this.SetQuantity(item, this.getQuantity(item) + quantity);
-				
-				//return true to signify the method succeeded
-				return true;
-			} catch(StockException stockErr) {
-				
-				//return false to signify the method has failed
+			//the new quantity is calculated by adding the items current quantity
+			//together with the quantity given as an argument
+			int newQuantity = stock.get(slot) + quantity;
+			
+			//a negative quantity would make SetQuantity throw a StockException,
+			//so just return false to signify the method has failed
+			if (newQuantity < 0) {
 				return false;
 			}
+			
+			stock.set(slot, newQuantity);
+			units += quantity;
+			changed(item, newQuantity);
+			
+			//return true to signify the method succeeded
+			return true;
 		} else {
 			
 			//if the item doesn't exist in the stock, we can't change its quantity
@@ -249,8 +474,25 @@ public class Stock extends AbstractMap<Item, Integer> {
 	 */
 	public Set<Item> keySet() {
 		
-		//return stock's keyset, which is all unique items currently in the stock
-		return stock.keySet();
+		//return a view of the stock's keys, which is all unique items currently in the stock
+		return new AbstractSet<Item>() {
+			
+			public Iterator<Item> iterator() {
+				return new SlotIterator<Item>() {
+					Item get(int slot) {
+						return stock.keys[slot];
+					}
+				};
+			}
+			
+			public int size() {
+				return stock.size;
+			}
+			
+			public boolean contains(Object o) {
+				return containsKey(o);
+			}
+		};
 	}
 	
 	/**
@@ -258,7 +500,7 @@ public class Stock extends AbstractMap<Item, Integer> {
 	 * Returns false if stock has any items in it
 	 */
 	public boolean isEmpty() {
-		return stock.isEmpty();
+		return stock.size == 0;
 	}
 	
 	 /**
@@ -272,30 +514,25 @@ public class Stock extends AbstractMap<Item, Integer> {
 		//get the quantity associated with this item in the list
 		//check if this item exists in this list, else throw exception
 		//if item exists in this list, return its associated quantity
-		return stock.get(item);
+		int slot = stock.slotOf(item);
+		if (slot == ItemQuantityMap.MISSING) {
+			throw new NullPointerException(item.GetName() + " is not in the stock");
+		}
+		return stock.get(slot);
 	}
 
 	 /**
 	 * Returns the total size of all items in the stock.
+	 * <p>
+	 * The total is kept up to date as quantities change, so this doesn't
+	 * need to loop through the stock.
 	 *
 	 * @return The size of all items currently in the stock
 	 */
 	public int size() {
 		
-		//loop through each item in the stock list and add together their tallies
-		//initialise int size to keep track of total quantity
-		int size = 0;
-		
-		//use a for each loop format to iterate through the unindexed set
-		for (Item item : stock.keySet()) {
-			
-			//for this iteration, add the item's associated quantity to the final
-			//size count
-			size += this.getQuantity(item);
-		}
-		
-		//return the final size count
-		return size;
+		//return the running total of all item quantities
+		return units;
 	}
 	
 	/**
@@ -308,10 +545,10 @@ public class Stock extends AbstractMap<Item, Integer> {
 	 */
 	public int CountUniqueItems() {
 		
-		//return the size of the stocks keyset
-		//because the stock hashmap is keyed by item, this
-		//keyset will be a set of all items currently in the stock
-		return stock.keySet().size();
+		//return the number of keys in the stock table
+		//because the stock table is keyed by item, this
+		//will be the number of items currently in the stock
+		return stock.size;
 	}
 	
 	 /**
@@ -326,7 +563,7 @@ public class Stock extends AbstractMap<Item, Integer> {
 	public boolean Contains(Item item) {
 		
 		//check if there is an item in this Stock that has all the same attributes as the parsed item
-		return stock.containsKey(item);
+		return stock.slotOf(item) != ItemQuantityMap.MISSING;
 	}
 	
 	 /**
@@ -340,16 +577,8 @@ public class Stock extends AbstractMap<Item, Integer> {
 	 */
 	public boolean Contains(String itemName) {
 		
-		boolean contains = false;
-		
-		for (Item item : stock.keySet()) {
-			if (item.GetName().equals(itemName)) {
-				contains = true;
-			}
-		}
-		
-		return contains;
-	
+		//check the name index rather than scanning every item in the stock
+		return names.containsKey(itemName);
 	}
 	
 	 /**
@@ -361,116 +590,235 @@ public class Stock extends AbstractMap<Item, Integer> {
 	 */
 	public Item getItem(String itemName) {
 		
-		for (Item item : stock.keySet()) {
-			if (item.GetName().equals(itemName)) {
-				return item;
-			}
-		}
-		return null;
+		//grab the item straight from the name index (null if no item has this name)
+		return names.get(itemName);
 	}
 	
 	//Convert's the itemList to a string
 	//Example format: "Beef,Cheese,Corn,Milk"
-	//sorts the keys of the stock hashmap lexicographically then returns them
+	//sorts the keys of the stock lexicographically then returns them
 	//alongside their associated quantities
 	/**
 	 * Returns the itemList converted to a String
 	 * <p>
 	 * toStringType.NAME returns items and quantities
 	 * toStringType.DETAILS returns items and all item details other than quantity
+	 * <p>
+	 * This is a wrapper around writeTo, which builds the string in a single StringBuilder.
 	 * 
 	 * @param type The type to be used by toString (either NAME or DETAILS)
 	 * @return The itemList converted into a string
 	 */
 	public String toString(ToStringType type) {
 		
-		//two types of ways to toString stock
+		//write the stock into a string builder and return the final message that has been constructed
+		StringBuilder message = new StringBuilder();
+		try {
+			this.writeTo(message, type);
+		} catch (IOException ioErr) {
+			//a StringBuilder never throws an IOException
+			throw new UncheckedIOException(ioErr);
+		}
+		return message.toString();
+	}
+	
+	/**
+	 * Writes the itemList to the given output
+	 * <p>
+	 * Writes the same text as toString, but each row is appended straight to the output
+	 * (e.g. a Writer or StringBuilder) instead of being built up into one big string first.
+	 * <p>
+	 * toStringType.NAME writes items and quantities
+	 * toStringType.DETAILS writes items and all item details other than quantity
+	 * 
+	 * @param out The output to write the itemList to
+	 * @param type The type to be used (either NAME or DETAILS)
+	 * @throws IOException Thrown if the output can't be written to
+	 */
+	public void writeTo(Appendable out, ToStringType type) throws IOException {
+		
+		//two types of ways to write the stock
 		// items and quantities (NAME)
 		// items and details (DETAILS)
 		
-		// initialise the empty string to be used as the final message
-		String message = "";
-		
 		//check whether or not a ToStringType enum has been listed
 		//this will change the final outcome, and is included for scalability
 		//(i.e. if an 'export items list' feature ever needs to be added)
 		if (type == ToStringType.NAME || type == ToStringType.DETAILS) {
 			
-			// ------ SORT ITEMS IN THE KEYSET ALPHABETICALLY ------
-			
-			//this toString needs to be presented in alphabetical order
-			//because hashmaps don't order their contents by index like an arraylist does
-			//so the first step in a toString, is to alphabetically order the keyset of Items in the Stock
-			
-			//the first thing needed to order these items in alphabetical order, is a comparator.
-			//construct a new comparator for Item which compared by the item's GetName function
-			//this will allow us to sort out items list by their string values, which will give
-			//the Collections class the data it needs to perform a lexicographical ordering
-			Comparator<Item> lexicographicComparator = Comparator.comparing(Item::GetName);
+			//this output needs to be presented in alphabetical order
+			//the stock keeps its items sorted by name as they're added, so there's no sorting to do here
+			boolean first = true;
 			
-			//initialise a new arraylist to order the items
-			//because a Set isn't indexed, we need to copy our items over to this local ArrayList
-			//to perform the sort() method
-			List<Item> items = new ArrayList<Item>();
-			
-			//copy all items from the stock's keyset (all unique items) over to the sorting list
-			items.addAll(this.keySet());	
-			
-			//sort the items using the lexicographicComaparator
-			//this comparator, as previously stated, will reach into each item's GetName() method and sort 
-			//the resulting String values
-			Collections.sort(items, lexicographicComparator);
-			
-			//now that our items are alphabetically ordered, we run the actual toString code
-			//loop through each item in the alphabetically sorted list
-			for (int i = 0; i < items.size(); i++) {	
+			//loop through each item in alphabetical order
+			for (Item item : this.orderedItems()) {	
 				
-				//construct a new local item and assign its value to the currently indexed item
-				Item item = items.get(i);
+				//each item needs to be seperated from the one before it
+				//(a newline for NAME, a comma for DETAILS), but there's nothing before the first item
+				if (!first) {
+					out.append(type == ToStringType.NAME ? '\n' : ',');
+				}
+				first = false;
 				
-				//check what type of toString is being performed
+				//check what type of output is being performed
 				if (type == ToStringType.NAME) {
 					
-					//if this toString's type is NAME, then just give the names and quantities of the current item
+					//if this output's type is NAME, then just give the names and quantities of the current item
 					//these two values are seperated by a comma (no space, CSV formatting)
-					message += item.GetName() + "," + this.getQuantity(item);
+					out.append(item.GetName()).append(',').append(Integer.toString(this.getQuantity(item)));
 					
 				} else if (type == ToStringType.DETAILS) {
 					
-					//if this toString's type is DETAILS, then give a list of all the item's details
+					//if this output's type is DETAILS, then give a list of all the item's details
 					//this is done by calling the item's toString method
-					message += item.toString();
-				}
-				
-				//each item in the toString needs to be seperated by a comma ','
-				//but if this is the final item, then there shouldn't be a comma
-				//ergo, check if the current index is not yet at the end of the list
-				if (i < items.size() - 1) {
-					
-					//if this isn't the final item, then add a comma before the next iteration
-					if (type == ToStringType.NAME) {
-						message += "\n";
-					} else {
-						message += ",";
-					}
+					out.append(item.toString());
 				}
 			}
-			
-		} 
+		}
+	}
+	
+	/**
+	 * Returns a read-only snapshot of the stock as it is right now.
+	 * <p>
+	 * The snapshot never changes, even while this stock keeps being changed, so it can
+	 * be read (e.g. to refresh the GUI table, or to work out a new stock order) at the same
+	 * time as an import is changing the stock. Trying to change the snapshot throws an
+	 * UnsupportedOperationException.
+	 * <p>
+	 * Taking a snapshot doesn't copy the stock. The snapshot shares the stock's structures,
+	 * and this stock only copies the parts it changes afterwards (copy on write).
+	 * 
+	 * @return a read-only, point in time copy of the stock
+	 */
+	public synchronized Stock snapshot() {
 		
-		//return the final message that has been constructed
-		return message;
+		//the name index is now shared, so it is copied the next time an item is added or removed
+		indexesShared = true;
+		return new StockSnapshot(stock.snapshot(), names, ordered, temperatures, lowestTemp, units);
+	}
+	
+	/**
+	 * Returns a new, empty stock of the same kind as this one (e.g. a ConcurrentStock for a ConcurrentStock).
+	 * <p>
+	 * Used to build a replacement for a store's stock (see CatalogueSnapshot.Load) without
+	 * changing how the store keeps its stock. A snapshot's kind is a normal Stock.
+	 * 
+	 * @param expectedItems the number of unique items the new stock is expected to hold
+	 * @return an empty stock with room for that many items
+	 */
+	protected Stock newStock(int expectedItems) {
+		return new Stock(expectedItems);
+	}
+	
+	/**
+	 * Sets the listener told about every change to this stock, replacing any listener it already had.
+	 * <p>
+	 * A stock only has one listener at a time (the store using it).
+	 * 
+	 * @param listener The listener to tell about changes, or null to stop telling anything
+	 */
+	public void setListener(StockListener listener) {
+		this.listener = listener;
+	}
+	
+	/**
+	 * Tells the listener (if there is one) that an item has been added.
+	 */
+	void added(Item item) {
+		StockListener l = listener;
+		if (l != null) {
+			l.itemAdded(item);
+		}
+	}
+	
+	/**
+	 * Tells the listener (if there is one) that an item has been removed.
+	 */
+	void removed(Item item) {
+		StockListener l = listener;
+		if (l != null) {
+			l.itemRemoved(item);
+		}
+	}
+	
+	/**
+	 * Tells the listener (if there is one) that an item's quantity has changed.
+	 */
+	void changed(Item item, int quantity) {
+		StockListener l = listener;
+		if (l != null && l.needsChange(item, quantity)) {
+			l.quantityChanged(item, quantity);
+		}
+	}
+	
+	/**
+	 * Copies the name index if a snapshot might still be reading it.
+	 */
+	private void unshareIndexes() {
+		if (indexesShared) {
+			names = new HashMap<String, Item>(names);
+			ordered = new TreeMap<String, Item>(ordered);
+			temperatures = new TreeMap<Double, Integer>(temperatures);
+			indexesShared = false;
+		}
+	}
+	
+	//slot by slot access to the stock, used by InventoryAnalytics to split a snapshot
+	//into ranges of slots that can be read in parallel (a slot can be empty)
+	
+	/**
+	 * Returns the number of slots in the stock, some of which may be empty.
+	 */
+	int slotCount() {
+		return stock.keys.length;
+	}
+	
+	/**
+	 * Returns the item in a slot, or null if the slot is empty.
+	 */
+	Item itemAt(int slot) {
+		return stock.keys[slot];
+	}
+	
+	/**
+	 * Returns the quantity of the item in a slot.
+	 */
+	int quantityAt(int slot) {
+		return stock.get(slot);
 	}
 	
 	/**
-	 * Exports the stock into it's raw hashmap format
+	 * Returns the slot of the item with the given name, or -1 if no item in the stock has it.
+	 */
+	int slotOf(String itemName) {
+		Item item = names.get(itemName);
+		return item == null ? ItemQuantityMap.MISSING : stock.slotOf(item);
+	}
+	
+	/**
+	 * Returns every item in the stock in lexicographical order by name.
+	 * <p>
+	 * The order is kept up to date as items are added and removed, so this
+	 * doesn't need to sort anything.
 	 * 
-	 * @return The hashmap used to make the stock
+	 * @return A read-only collection of the stock's items, sorted by name
+	 */
+	public Collection<Item> orderedItems() {
+		return Collections.unmodifiableCollection(ordered.values());
+	}
+	
+	/**
+	 * Exports the stock into a hashmap format
+	 * <p>
+	 * The stock no longer stores its quantities in a HashMap, so this returns
+	 * a copy. Changes to the returned hashmap don't change the stock.
+	 * 
+	 * @return A hashmap of each item in the stock and its quantity
 	 */
 	public HashMap<Item, Integer> getMap() {
 		
-		//return the stock as a hashmap
-		return stock;
+		//copy the stock into a new hashmap and return it
+		return new HashMap<Item, Integer>(this);
 	}
 	
 	/**
@@ -479,58 +827,154 @@ public class Stock extends AbstractMap<Item, Integer> {
 	 * 
 	 * Returns the temperature of the item in the stock with the lowest temperature
 	 * <p>
-	 * Uses a for loop to add each temperature for each item in the stock
-	 * into an ArrayList, which is then sorted to find the lowest number.
+	 * The coldest temperature is kept up to date as cold items are added to and
+	 * removed from the stock, so this just returns it.
 	 * This lowest number is the minimum temperature required for any refrigerated truck
 	 * carrying this stock.
+	 * <p>
+	 * If there are no cold items in the stock, nothing needs to be kept cold, so
+	 * positive infinity is returned.
 	 *  
 	 * @return The minimum temperature required for this stock
 	 */
 	public double getLowestTemp() {
 		
-		//construct a temporary arrayList to store each item's temperature
-		ArrayList<Double> temp = new ArrayList<Double>();
+		//return the coldest temperature of any item in the stock
+		return lowestTemp;
+	}
+	
+	/**
+	 * An inherited method from the AbstractMap class to return an entry set of the stock
+	 * <p>
+	 * The entry set is a view over the stock, setting an entry's value
+	 * sets the quantity of that item in the stock.
+	 * 
+	 * @return The stock's entry set.
+	 */
+	@Override
+	public Set<Entry<Item, Integer>> entrySet() {
 		
-		//loop through each unique item in the stock to grab their temperatures
-		for (Item i : stock.keySet()) {
+		//return a view of the stock table's entries
+		return new AbstractSet<Entry<Item, Integer>>() {
 			
-			//check if the current item is cold (has a temperature)
-			//a dry item won't count in this test, so it's immediately overlooked
-			if (i.CheckIfDry() == false) {
-				
-				//try to add the current item's temperature to the temp list
-				try {
-					
-					//using the current item's GetTemperature method, add items
-					//temperature to the list
-					//GetTemperature() is a method which can throw a DryException, which is why it's in
-					//a try/catch statement
-					temp.add(i.GetTemperature());
-					
-				} catch (DryException e) {
-					
-					// if a dry exception is caught, then overlook the item
-					// print the stack trace of the error for debugging
-					//e.printStackTrace();
-				}
+			public Iterator<Entry<Item, Integer>> iterator() {
+				return new SlotIterator<Entry<Item, Integer>>() {
+					Entry<Item, Integer> get(int slot) {
+						return new QuantityEntry(stock.keys[slot]);
+					}
+				};
 			}
-		}
-		
-		//after all of the items in the stock have been cycled through and added to the temp list
-		//use the static 'min()' method inherited from the Collections class to return the minimum temperature 
-		return Collections.min(temp);
+			
+			public int size() {
+				return stock.size;
+			}
+		};
 	}
 	
 	/**
-	 * An inherited method from the HashMap class to return an entry set of the stock
+	 * An inherited method from the AbstractMap class to check if an item is in the stock
 	 * 
-	 * @return The stock HashMap's entry set.
+	 * @param key the item to search for
+	 * @return True if the item is in the stock, false if it isn't
 	 */
 	@Override
-	public Set<Entry<Item, Integer>> entrySet() {
+	public boolean containsKey(Object key) {
+		return key instanceof Item && this.Contains((Item) key);
+	}
+	
+	/**
+	 * An inherited method from the AbstractMap class to return the quantity of an item
+	 * <p>
+	 * Unlike getQuantity, this returns null if the item isn't in the stock.
+	 * 
+	 * @param key the item to get the quantity of
+	 * @return the item's quantity, or null if it isn't in the stock
+	 */
+	@Override
+	public Integer get(Object key) {
+		if (key instanceof Item) {
+			int slot = stock.slotOf((Item) key);
+			if (slot != ItemQuantityMap.MISSING) {
+				return stock.get(slot);
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Iterator over the occupied slots of the stock table.
+	 * <p>
+	 * Throws a ConcurrentModificationException if items are added or removed
+	 * from the stock while it is being iterated over.
+	 */
+	private abstract class SlotIterator<T> implements Iterator<T> {
+		
+		int next = stock.nextSlot(0);
+		int expectedModCount = stock.modCount;
+		
+		abstract T get(int slot);
+		
+		public boolean hasNext() {
+			return next < stock.keys.length;
+		}
+		
+		public T next() {
+			if (stock.modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (next >= stock.keys.length) {
+				throw new NoSuchElementException();
+			}
+			T value = get(next);
+			next = stock.nextSlot(next + 1);
+			return value;
+		}
+	}
+	
+	/**
+	 * Map entry for an item in the stock, reads and writes go straight to the stock.
+	 */
+	private class QuantityEntry implements Map.Entry<Item, Integer> {
+		
+		final Item item;
+		
+		QuantityEntry(Item item) {
+			this.item = item;
+		}
 		
-		//return the stock HashMap's entry set
-		return stock.entrySet();
+		public Item getKey() {
+			return item;
+		}
+		
+		public Integer getValue() {
+			return getQuantity(item);
+		}
+		
+		public Integer setValue(Integer value) {
+			int old = getQuantity(item);
+			try {
+				SetQuantity(item, value);
+			} catch (StockException stockErr) {
+				throw new IllegalArgumentException(stockErr.getMessage());
+			}
+			return old;
+		}
+		
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+			return item.equals(entry.getKey()) && getValue().equals(entry.getValue());
+		}
+		
+		public int hashCode() {
+			return item.hashCode() ^ getQuantity(item);
+		}
+		
+		public String toString() {
+			return item + "=" + getQuantity(item);
+		}
 	}
 
 }
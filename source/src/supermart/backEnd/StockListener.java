@@ -0,0 +1,55 @@
+package supermart.backEnd;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Told about every change made to a stock, see Stock.setListener.
+ * <p>
+ * A store uses this to keep its reorder list up to date as quantities change,
+ * instead of checking every item in the stock each time a new order is generated.
+ * <p>
+ * The methods are called by the thread that changed the stock, straight after the change,
+ * so they should be quick and must not change the stock themselves.
+ * <p>
+ * Before telling the listener about a quantity change, the stock asks needsChange whether the
+ * change matters to it. Most changes don't (e.g. they don't take an item across its reorder point),
+ * so a concurrent stock only takes the lock it tells the listener under for the ones that do.
+ */
+public interface StockListener {
+
+	/**
+	 * Called after an item is added to the stock (with a quantity of 0).
+	 *
+	 * @param item The item that was added
+	 */
+	void itemAdded(Item item);
+
+	/**
+	 * Called after an item is removed from the stock.
+	 *
+	 * @param item The item that was removed
+	 */
+	void itemRemoved(Item item);
+
+	/**
+	 * Called after the quantity of an item in the stock changes.
+	 *
+	 * @param item The item whose quantity changed
+	 * @param quantity The item's new quantity
+	 */
+	void quantityChanged(Item item, int quantity);
+
+	/**
+	 * Returns whether quantityChanged needs to be called for an item's new quantity.
+	 * <p>
+	 * Called without any lock held, so it has to be thread safe. Returning true when the change
+	 * doesn't matter is always safe, just slower (the default is always true).
+	 *
+	 * @param item The item whose quantity changed
+	 * @param quantity The item's new quantity
+	 * @return false only if the listener would do nothing with the change
+	 */
+	default boolean needsChange(Item item, int quantity) {
+		return true;
+	}
+}
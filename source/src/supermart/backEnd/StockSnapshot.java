@@ -0,0 +1,69 @@
+package supermart.backEnd;
+
+import java.util.HashMap;
+import java.util.TreeMap;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * A read-only, point in time view of a Stock, returned by Stock.snapshot().
+ * <p>
+ * Shares its structures with the stock it was taken from (that stock copies them
+ * before changing them), so every method that would change the snapshot throws
+ * an UnsupportedOperationException.
+ */
+final class StockSnapshot extends Stock {
+
+	/**
+	 * Constructs a snapshot around structures that will never be changed again.
+	 */
+	StockSnapshot(ItemQuantityMap stock, HashMap<String, Item> names, TreeMap<String, Item> ordered,
+			TreeMap<Double, Integer> temperatures, double lowestTemp, int units) {
+		super(stock, names, ordered, temperatures, lowestTemp, units);
+	}
+
+	@Override
+	public boolean addItem(Item item) {
+		throw ReadOnly();
+	}
+
+	@Override
+	public boolean removeItem(Item item) {
+		throw ReadOnly();
+	}
+
+	@Override
+	public void SetQuantity(Item item, int quantity) {
+		throw ReadOnly();
+	}
+
+	@Override
+	public void ChangeQuantity(Item item, int quantity) {
+		throw ReadOnly();
+	}
+
+	@Override
+	public boolean AddQuantity(Item item, int quantity) {
+		throw ReadOnly();
+	}
+
+	@Override
+	public void applyDelta(Stock delta, int sign) {
+		throw ReadOnly();
+	}
+
+	/**
+	 * A snapshot never changes, so it is its own snapshot.
+	 */
+	@Override
+	public Stock snapshot() {
+		return this;
+	}
+
+	/**
+	 * Builds the exception thrown when something tries to change the snapshot.
+	 */
+	private static UnsupportedOperationException ReadOnly() {
+		return new UnsupportedOperationException("a stock snapshot is read-only");
+	}
+}
@@ -1,10 +1,14 @@
 package supermart.backEnd;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import supermart.SupermartEnums.ReorderMode;
 import supermart.exceptions.DeliveryException;
+import supermart.exceptions.PartialDeltaException;
 import supermart.exceptions.StockException;
 
 /**
@@ -15,14 +19,68 @@ import supermart.exceptions.StockException;
  * <p>
  * Builds a Store object with it's own stock and capital that
  * changes when new items are bought and sold.
- * Must be a Singleton.
+ * The GUI's store is a Singleton (see getInstance), stores for many branches
+ * in one program are held by a StoreRegistry.
+ * <p>
+ * A store with an event log (see SetEventLog) makes its changes one at a time, each change and
+ * its log record in one step, so the log always has them in the order they were made. If the log
+ * fails to write, the change that found out is still made (and throws an UncheckedIOException
+ * saying so), and the store then refuses every later change until it's given a working log:
+ * a change that can't be recorded is never made.
  */
 public class Store {
 
 	String name;
-	double capital;
 	Stock stock;
 	
+	//the store's capital in whole cents (see Money)
+	//every sale and delivery line changes the capital, so it is kept as an exact
+	//number of cents rather than a double that drifts over millions of lines.
+	//the ledger lets several threads importing sales change it at once without losing an update
+	CapitalLedger capital;
+	
+	//every item the store knows about, one per name, each with a dense ID
+	ItemCatalog catalog;
+	
+	//the items at or below their reorder point, kept up to date as the stock changes
+	ReorderIndex reorders;
+	
+	//the number of sales logs each item's sales history remembers (four weeks of daily logs)
+	public static final int SALES_PERIODS = 28;
+	
+	//units of each item sold in each of the last SALES_PERIODS sales logs, by catalogue ID
+	final SalesHistory history;
+	
+	//how far each sales log moves an item's demand forecast, and the number of sales
+	//periods a forecast order should last (the time until the next delivery can arrive)
+	public static final double FORECAST_SMOOTHING = 0.2;
+	public static final int FORECAST_COVER = 7;
+	
+	//each item's smoothed units sold per sales log, kept up to date whatever the reorder mode
+	//(replaced, never changed in place, when the smoothing changes)
+	volatile DemandForecast forecast;
+	
+	//how reorder quantities are decided, and how many periods a forecast order covers
+	volatile ReorderMode reorderMode = ReorderMode.STATIC;
+	volatile int forecastCover = FORECAST_COVER;
+	
+	//records every change made to the store, so it can be replayed after a crash (null when there's no log)
+	volatile EventLog log;
+	
+	//held while a change is made and appended to the log, so the log has the changes in the order they were made
+	private final Object logOrder = new Object();
+	
+	//the point in an event log the store's state already includes (set when the store is loaded
+	//from a snapshot), so replaying that log skips the records before it. see EventLog.Mark
+	long logId;
+	long logOffset;
+	
+	//every change holds the read lock while it changes the store and records itself in the log
+	//(changes never wait for each other on it), and a snapshot holds the write lock just long
+	//enough to take a copy on write view of the stock and mark the log, so the snapshot and the
+	//mark always line up. see CatalogueSnapshot
+	final ReentrantReadWriteLock fence = new ReentrantReadWriteLock();
+	
 	private static Store store;
 	
 	//Store constructor the gives the stores name, capital and stock
@@ -35,15 +93,40 @@ public class Store {
 	 * @param stock The stock used by the store
 	 */
 	public Store(String name, double capital, Stock stock) {
+		this(name, capital, stock, stock.CountUniqueItems());
+	}
+	
+	/**
+	 * Constructor for a store object whose catalogue is sized up front.
+	 * <p>
+	 * Builds a store object and sets it's name, starting capital and stock, with room
+	 * in its catalogue for the given number of items (see StoreRegistry).
+	 * @param name The name of the store
+	 * @param capital The starting capital of the store (dollars and cents)
+	 * @param stock The stock used by the store
+	 * @param expectedItems The number of items the store is expected to catalogue
+	 */
+	public Store(String name, double capital, Stock stock, int expectedItems) {
 		this.name = name;
-		this.capital = capital;
+		this.capital = new CapitalLedger(Money.fromDollars(capital));
 		this.stock = stock;
+		
+		//catalogue the items the store starts with
+		catalog = new ItemCatalog(expectedItems);
+		catalog.internAll(stock);
+		history = new SalesHistory(SALES_PERIODS, expectedItems);
+		forecast = new DemandForecast(FORECAST_SMOOTHING, expectedItems);
+		
+		//start tracking which items need reordering
+		reorders = new ReorderIndex(catalog);
+		reorders.attach(stock);
 	}
 	
 	/**
 	 * Static getInstance method used to construct singleton Store.
 	 * <p>
 	 * Used to ensure the Store is singleton.
+	 * To run more than one store in the same program, use a StoreRegistry instead.
 	 * 
 	 * @param name The name of the store
 	 * @param capital The starting capital of the store (dollars and cents)
@@ -74,7 +157,15 @@ public class Store {
 	 * @return The current  capital of the store
 	 */
 	public double getCapital() {
-		return capital; 
+		return Money.toDollars(capital.get()); 
+	}
+	
+	/**
+	 * Returns the capital of the store in whole cents
+	 * @return The current capital of the store, in cents
+	 */
+	public long getCapitalCents() {
+		return capital.get();
 	}
 	
 	/**
@@ -91,8 +182,118 @@ public class Store {
 	 * @return The item being searched for
 	 */
 	public Item getItem(String itemName) {
+		
+		//prefer the catalogue's item, so every lookup of a name returns the same Item
+		//(stocks that don't keep Item objects build a new one each time)
+		Item item = catalog.getItem(itemName);
+		if (item != null && stock.Contains(item)) {
+			return item;
+		}
 		return stock.getItem(itemName);
 	}
+	
+	/**
+	 * Returns the catalogue of every item the store knows about
+	 * @return The store's item catalogue
+	 */
+	public ItemCatalog getCatalog() {
+		return catalog;
+	}
+	
+	/**
+	 * Returns how many units of each item the store sold in each of its last sales logs
+	 * <p>
+	 * Each imported sales log is one period, and items are looked up by their catalogue ID (see Item.GetId).
+	 * @return The store's sales history
+	 */
+	public SalesHistory getSalesHistory() {
+		return history;
+	}
+	
+	/**
+	 * Returns the store's smoothed estimate of each item's sales per sales log
+	 * @return The store's demand forecast
+	 */
+	public DemandForecast getDemandForecast() {
+		return forecast;
+	}
+	
+	/**
+	 * Changes how far each sales log moves the demand forecast.
+	 * <p>
+	 * The forecast is rebuilt from the sales history in one pass, so it's as if the new
+	 * smoothing had been used for every period the history remembers.
+	 * @param smoothing How far each period's sales move the estimate, above 0 and at most 1
+	 */
+	public void SetForecastSmoothing(double smoothing) {
+		synchronized (history) {
+			DemandForecast newForecast = new DemandForecast(smoothing, catalog.size());
+			newForecast.refresh(history, catalog.size());
+			forecast = newForecast;
+		}
+	}
+	
+	/**
+	 * Sets how the store decides how much of an item to reorder (see getReorderQuantity)
+	 * @param mode STATIC to order each item's reorder amount, FORECAST to order its forecast demand
+	 */
+	public void SetReorderMode(ReorderMode mode) {
+		reorderMode = mode;
+	}
+	
+	/**
+	 * Returns how the store decides how much of an item to reorder
+	 * @return The store's reorder mode
+	 */
+	public ReorderMode getReorderMode() {
+		return reorderMode;
+	}
+	
+	/**
+	 * Sets the number of sales periods a forecast order should last
+	 * @param periods The periods of forecast demand to order, at least 1
+	 */
+	public void SetForecastCover(int periods) {
+		if (periods < 1) {
+			throw new IllegalArgumentException("a forecast order must cover at least one period, not " + periods);
+		}
+		forecastCover = periods;
+	}
+	
+	/**
+	 * Returns how many units of an item a new stock order should have
+	 * <p>
+	 * In STATIC mode this is the item's reorder amount. In FORECAST mode it's the item's forecast
+	 * demand over the forecast cover (rounded up), but always at least enough to bring the item
+	 * back above its reorder point, so a slow seller isn't reordered again straight away.
+	 * @param item The item being reordered
+	 * @return The quantity to order
+	 * @throws IllegalArgumentException Thrown in FORECAST mode if the item isn't in the store's catalogue
+	 */
+	public int getReorderQuantity(Item item) {
+		if (reorderMode == ReorderMode.STATIC) {
+			return item.GetReorderAmount();
+		}
+		
+		//the item may be a copy (e.g. from the CSV reader), so find the catalogue's item with its name
+		Item entry = catalog.getItem(item.GetName());
+		if (entry == null) {
+			throw new IllegalArgumentException(item.GetName() + " is not in the store's catalogue");
+		}
+		
+		//the forecast is a double, so allow for rounding error before rounding up (30.000000001 units is 30)
+		long forecastUnits = (long) Math.ceil(forecast.demand(entry.GetId()) * forecastCover - 1e-6);
+		long shortfall = (long) item.GetReorderPoint() + 1 - stock.getQuantity(item);
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(forecastUnits, shortfall));
+	}
+	
+	/**
+	 * Returns the log the store records its changes to
+	 * @return The store's event log, or null if it doesn't have one
+	 */
+	public EventLog getEventLog() {
+		return log;
+	}
 
 	//new methods added to the store class
 	//these methods allow the store to change values
@@ -106,7 +307,12 @@ public class Store {
 	 * @param name The new name of the store
 	 */
 	public void SetName(String name) {
-		this.name = name;
+		fence.readLock().lock();
+		try {
+			this.name = name;
+		} finally {
+			fence.readLock().unlock();
+		}
 	}
 	
 	/**
@@ -114,129 +320,286 @@ public class Store {
 	 * @param capital The stores new capital
 	 */
 	public void SetCapital (double capital) {
-		this.capital = capital;
+		long cents = Money.fromDollars(capital);
+		fence.readLock().lock();
+		try {
+			logged(() -> this.capital.set(cents), () -> EventLog.capitalSetRecord(cents));
+		} finally {
+			fence.readLock().unlock();
+		}
 	}
 	
 	/**
 	 * Changes the stores capital by the parameter's amount
-	 * @param capital The amount to be added to the capital
+	 * @param capital The amount to be added to the capital, rounded to the nearest cent
 	 */
 	public void ChangeCapital(double capital) {
-		this.capital += capital;
+		ChangeCapitalCents(Money.fromDollars(capital));
+	}
+	
+	/**
+	 * Changes the stores capital by an exact number of cents
+	 * @param cents The amount to be added to the capital, in cents
+	 * @throws ArithmeticException Thrown if the capital would overflow
+	 */
+	public void ChangeCapitalCents(long cents) {
+		fence.readLock().lock();
+		try {
+			logged(() -> this.capital.add(cents), () -> EventLog.capitalChangeRecord(cents));
+		} finally {
+			fence.readLock().unlock();
+		}
 	}
 	
 	/**
 	 * Adds to the quantity of the selected item in the stores stock
+	 * <p>
+	 * The change is made by the stock in a single step, so it is also safe
+	 * to call from several threads when the store uses a ConcurrentStock.
 	 * @param item The item to have it's quantity changed
 	 * @param quantity The amount added to the items quantity 
-	 * @throws StockException Thrown if the item isn't in the stores stock
+	 * @throws StockException Thrown if the item isn't in the stores stock, or the quantity would become negative
 	 */
 	public void ChangeQuantity(Item item, int quantity) throws StockException {
+		fence.readLock().lock();
+		try {
+			logged(() -> stock.ChangeQuantity(item, quantity), () -> EventLog.quantityRecord(item, quantity));
+		} finally {
+			fence.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Applies a whole stock of quantity changes to the store, all or nothing.
+	 * <p>
+	 * With sign -1 the delta is a sale: each item's quantity is taken out of the store's
+	 * stock and the store earns the item's sell price for each one.
+	 * With sign 1 the delta is a delivery: each item's quantity is added to the store's
+	 * stock and the store pays the item's buy cost for each one.
+	 * <p>
+	 * Every line is validated before any are applied (see Stock.applyDelta), and the capital
+	 * change is worked out before the stock is touched, so if a line fails, neither the stock
+	 * nor the capital are changed. A delivery is paid for like AddCapital: if the store can't
+	 * afford it, it's refused and nothing changes, so deliveries made at the same time can't
+	 * overdraw the store between them. If a ConcurrentStock can't roll every line back (see
+	 * PartialDeltaException), the capital changes only for the lines that stayed applied.
+	 * @param delta A stock of items and the amounts to change them by
+	 * @param sign -1 for a sale, 1 for a delivery
+	 * @throws StockException Thrown if an item isn't in the store's stock, or would end up with a negative quantity
+	 * @throws DeliveryException Thrown if the store's capital would become negative
+	 */
+	public void applyDelta(Stock delta, int sign) throws StockException, DeliveryException {
+		applyDelta(delta, sign, 0);
+	}
+	
+	/**
+	 * Applies a delta to the store all or nothing, along with an extra change to the capital (e.g. truck hire).
+	 * <p>
+	 * Also used by EventLog.Replay, so a replayed delta is applied exactly as it was the first time.
+	 */
+	void applyDelta(Stock delta, int sign, long extraCents) throws StockException, DeliveryException {
+		applyDelta(delta, sign, extraCents, false);
+	}
+	
+	/**
+	 * Applies a delta to the store, logging it as an imported sales log if sales is set
+	 * (the caller adds it to the sales history, see ImportSales).
+	 */
+	private void applyDelta(Stock delta, int sign, long extraCents, boolean sales) throws StockException, DeliveryException {
 		
-		int currentQuantity = 0;
+		//add up the capital change for every line in exact cents
+		//(an overflow throws here, before anything has changed)
+		long lines = lineCents(delta, sign);
+		long change = Money.add(extraCents, lines);
 		
-		if (stock.Contains(item)) {
-				currentQuantity = stock.getQuantity(item);
-		} else {
-			StockException e = new StockException(item.GetName() + "isn't in the store's inventory yet! Initialise Item!");
-			throw e;
+		fence.readLock().lock();
+		try {
+			//money going out is taken first, with withdraw, which checks it against the whole capital,
+			//so a delivery the store can't pay for is refused before the stock has changed. if the stock
+			//then refuses the delta, the money is given back. money coming in is only added once the
+			//stock has changed, so undoing a refused delta never has to take money out of the store
+			//(which another thread may already have spent). either both change or neither does,
+			//except when a ConcurrentStock can only partly roll the delta back (another thread has
+			//already used units it added). then the capital is only changed for the lines that stayed
+			//applied, plus the extra change. the lines left applied aren't recorded in the event log.
+			long total = change;
+			this.<StockException, DeliveryException>logged(() -> {
+				if (total < 0) {
+					if (!capital.withdraw(total)) {
+						DeliveryException deliveryErr = new DeliveryException("ERR: Negative Capital!");
+						throw deliveryErr;
+					}
+					try {
+						stock.applyDelta(delta, sign);
+					} catch (PartialDeltaException e) {
+						capital.add(Money.subtract(lineCents(e.getApplied(), sign), lines));
+						throw e;
+					} catch (StockException | RuntimeException e) {
+						capital.add(-total);
+						throw e;
+					}
+				} else {
+					try {
+						stock.applyDelta(delta, sign);
+					} catch (PartialDeltaException e) {
+						capital.add(Money.add(extraCents, lineCents(e.getApplied(), sign)));
+						throw e;
+					}
+					try {
+						capital.add(total);
+					} catch (ArithmeticException e) {
+						//the capital can't hold the credit, so put the stock back
+						stock.applyDelta(delta, -sign);
+						throw e;
+					}
+				}
+			}, () -> EventLog.deltaRecord(delta, sign, extraCents, sales));
+		} finally {
+			fence.readLock().unlock();
 		}
-
-		
-		stock.SetQuantity(item, currentQuantity + quantity);
+	}
+	
+	/**
+	 * Returns the capital change for every line of a delta, in cents: each item's sell price
+	 * for a sale, or minus its buy cost for a delivery.
+	 * @throws ArithmeticException Thrown if the change overflows
+	 */
+	private static long lineCents(Stock delta, int sign) {
+		long change = 0;
+		for (Item item : delta.keySet()) {
+			if (sign < 0) {
+				change = Money.add(change, Money.multiply(item.GetPriceCents(), delta.getQuantity(item)));
+			} else {
+				change = Money.subtract(change, Money.multiply(item.GetCostCents(), delta.getQuantity(item)));
+			}
+		}
+		return change;
 	}
 	
 	/**
 	 * Adds the set amount to the stores already existing capital
+	 * <p>
+	 * The amount is checked and added in one atomic step, so deliveries paid for at the same
+	 * time can't overdraw the store between them. If the result would be negative, the capital
+	 * isn't changed.
 	 * @param capital The amount to be added 
-	 * @throws DeliveryException Thrown if the result is negative
+	 * @throws DeliveryException Thrown if the result would be negative
 	 */
 	public void AddCapital (double capital) throws DeliveryException {
-		this.capital+= capital;
+		long cents = Money.fromDollars(capital);
+		
+		fence.readLock().lock();
+		try {
+			logged(() -> {
+				if (!this.capital.withdraw(cents)) {
+					DeliveryException deliveryErr = new DeliveryException("ERR: Negative Capital!");
+					throw deliveryErr;
+				}
+			}, () -> EventLog.capitalChangeRecord(cents));
+		} finally {
+			fence.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Sets the log the store records every change to (imports of items, sales and deliveries,
+	 * quantity changes and capital changes), replacing any log it already had.
+	 * <p>
+	 * Changing the whole stock with SetStock isn't recorded, so a new snapshot of the store
+	 * should be saved after doing that (see Checkpointer).
+	 * @param log The log to record changes to, or null to stop recording
+	 */
+	public void SetEventLog(EventLog log) {
+		this.log = log;
+	}
+	
+	/**
+	 * Makes a change to the store, and records it in the event log if the store has one.
+	 * <p>
+	 * The record is built first. The change is then made and its record appended in one step
+	 * (holding logOrder), so no other change can be made or recorded in between, and replaying the
+	 * log makes the changes in the same order. A change that fails is never logged. Waiting for the
+	 * record to reach the disk happens after that step, so other changes can go ahead meanwhile.
+	 * <p>
+	 * If the log has already failed, the change isn't made. If the log fails while this change
+	 * is being recorded, the change has been made but won't survive a crash, and the log refuses
+	 * every later change (so the store does too).
+	 * @throws UncheckedIOException Thrown if the log can't be written
+	 */
+	private <E extends Exception, F extends Exception> void logged(Change<E, F> change, LogRecord record) throws E, F {
+		EventLog current = log;
+		if (current == null) {
+			change.apply();
+			return;
+		}
+		
+		ByteBuffer entry = record.build();
+		long sequence;
+		synchronized (logOrder) {
+			try {
+				current.checkWritable();
+			} catch (IOException e) {
+				throw new UncheckedIOException("the event log can't be written, so the store can't be changed", e);
+			}
+			change.apply();
+			try {
+				sequence = current.append(entry);
+			} catch (IOException e) {
+				throw new UncheckedIOException("the change was made, but couldn't be written to the event log", e);
+			}
+		}
 		
-		if (this.capital<0) {
-			DeliveryException deliveryErr = new DeliveryException("ERR: Negative Capital!");
-			throw deliveryErr;
+		try {
+			current.awaitDurable(sequence);
+		} catch (IOException e) {
+			throw new UncheckedIOException("the change was made, but couldn't be written to the event log", e);
 		}
 	}
 	
+	/**
+	 * One change to the store, which may throw up to two kinds of checked exception
+	 * (a change throwing two has to name them when calling logged, as Java can't infer both).
+	 */
+	private interface Change<E extends Exception, F extends Exception> {
+		void apply() throws E, F;
+	}
+	
+	/**
+	 * Builds the event log record of a change.
+	 */
+	private interface LogRecord {
+		ByteBuffer build();
+	}
+	
 	/**
 	 * Sets the stores stock to a new one
 	 * @param newStock The new stock the store will use
 	 */
 	public void SetStock(Stock newStock) {
-		this.stock = newStock;
+		fence.readLock().lock();
+		try {
+			this.stock = newStock;
+			catalog.internAll(newStock);
+			reorders.attach(newStock);
+		} finally {
+			fence.readLock().unlock();
+		}
 	}
 	
 	/**
 	 * Generate a new stock order to send through to the CSV Reader
 	 * <p>
-	 * algorithm that checks each item in the store's stock, and builds an arraylist
-	 * of all the items that need to be reordered. The list is sorted in ascending order by each
-	 * item's temperature, with the dry items appended on the end.
+	 * Returns an arraylist of all the items in the store's stock that need to be reordered
+	 * (their quantity is at or below their reorder point). The list is sorted in ascending order by each
+	 * item's temperature, with the dry items appended on the end from largest reorder amount to smallest.
+	 * Items that tie are ordered by name.
+	 * <p>
+	 * The store keeps this list up to date as quantities change (see ReorderIndex), so generating
+	 * an order only copies out the items that need reordering, rather than checking and sorting every item.
 	 * @return array list of each item in the current inventory that needs reordering
 	 */
 	public ArrayList<Item> generateNewOrder() {
-		
-		//to generate an optimised stock, we first need to order it by it's temperature.
-		//create two arraylists, one to store the dry items in the stock, and one to store the cold items
-		//(when we're using a comparator to sort our cold items by temperature, having dry items
-		//in the mix will cause a whole host of nullpointerexceptions. Therefore, we'll sort our
-		//cold items in a seperate arraylist, and then append our dry items on to it afterwards)
-		//the array list for cold items will also be the final arraylist we return from this method
-		//so it will be named finalOrder.
-		ArrayList<Item> finalOrder = new ArrayList<Item>();
-		ArrayList<Item> dryOrder = new ArrayList<Item>();
-		
-		//loop through store stock and grab each item whose quantity is below the items reorder point
-		for (Item item : stock.keySet()) {
-
-			//for this current item in the for loop, check if its quantity in the store
-			//is less than the items reorderPoint.
-			if (stock.getQuantity(item) <= item.GetReorderPoint()) {
-				
-				//if the item is below its reorder point, we need to add it to the stock order.
-				//check if the item is dry or not.
-				if (item.CheckIfDry()) {
-					
-					//if the item is dry, add it to the dry list
-					dryOrder.add(item);
-				} else {
-					
-					//if the item is cold, add it to the cold list (which is also serving as the final arraylist)
-					finalOrder.add(item);
-				}
-			}
-		}
-		
-		//initialise our comparator to use in ordering our cold items array.
-		//use the Item :: GetSafeTemeperature method as a way to sort the list.
-		//GetSafeTemperature is an altered version of getTemperature which is made explicitly to suppress errors.
-		//(because the comparator can't handle custom methods with unhandled exceptions.)
-		Comparator<Item> temperatureCompare = Comparator.comparing(Item :: GetSafeTemperature);
-		
-		//extra comparator for sorting dry items by their reorder amount (make sure the largest orders are placed first)
-		Comparator<Item> reorderCompare = Comparator.comparing(Item :: GetReorderAmount);
-		
-		//use the temperature comparator to sort the cold arraylist
-		Collections.sort(finalOrder,temperatureCompare);
-		
-		//use the reorder comparator to sort dry list
-		Collections.sort(dryOrder,reorderCompare.reversed());
-
-		//after the cold array list has been sorted, we're going to
-		//append all of the items from our dry arraylist onto it.
-		//loop through each item in the dryOrder
-		for (Item item : dryOrder) {
-			
-			//add each item from the dryOrder into the finalOrder (which already contains the sorted cold items)
-			//because of the indexed nature of arraylists, each of these dry items will be placed *after* the sorted cold items
-			//therefore this append respects the original temperature sorting.
-			finalOrder.add(item);
-		}
-		
-		//after the final arraylist of items has been constructed, return it.
-		return finalOrder;
+		return reorders.order();
 	}
 	
 	/**
@@ -247,33 +610,73 @@ public class Store {
 	 * over to the ImportSales method for it to make changes.
 	 * This method then loops through each item in the sales stock and 'sells' them. Increasing store capital
 	 * and decreasing quantities in the store's inventory
+	 * <p>
+	 * The import is all or nothing: if any sale fails, no sale in the log is applied.
 	 * @param toAdd the toAdd stock passed through by the CSV reader, contains item references and quantities for reordering
 	 * @throws StockException if a sale results in a negative quantity, or an item in log is not in the inventory
 	 */
 	public void ImportSales(Stock toAdd) throws StockException {
 	
-		//loop through each item in the given stock		
-		for (Item item : toAdd.keySet()) {
+		try {
 			
-			try {
-				
-				
-				//for the current item, use the store's ChangeQuantity method
-				//to decrease the stores current quantity of this item.
-				ChangeQuantity(item,-(toAdd.getQuantity(item)));
-				
-				
-				//increase the stores capital, based on this item's sell price multiplied by the quantity sold.
-				ChangeCapital(item.GetPrice() * toAdd.getQuantity(item));
-				
-			} catch (NullPointerException e) {
-				
-				StockException stockErr = new StockException("sales trying to reference an item which does not exist");
-				throw stockErr;
-				
+			//take every item in the given stock out of the store's stock in one step
+			//(decreasing the store's quantities, and increasing the store's capital by
+			//each item's sell price multiplied by the quantity sold)
+			//if any line is invalid, nothing is changed
+			applyDelta(toAdd, -1, 0, true);
+			
+		} catch (NullPointerException e) {
+			
+			StockException stockErr = new StockException("sales trying to reference an item which does not exist");
+			throw stockErr;
+			
+		} catch (DeliveryException e) {
+			
+			//sales only take capital away if an item sells for less than nothing
+			StockException stockErr = new StockException("sales would leave the store with negative capital");
+			stockErr.initCause(e);
+			throw stockErr;
+			
+		}
+		
+		//remember what was sold as a new period of the sales history
+		recordSales(toAdd);
+		
+	}
+	
+	/**
+	 * Adds a sales log to the sales history as a new period (also used by EventLog.Replay).
+	 */
+	void recordSales(Stock sold) {
+		synchronized (history) {
+			startSalesPeriod();
+			for (Item item : sold.keySet()) {
+				recordSale(item, sold.getQuantity(item));
 			}
 		}
+	}
+	
+	/**
+	 * Starts a new period of the sales history and demand forecast (the caller holds the history's lock).
+	 */
+	private void startSalesPeriod() {
+		history.nextPeriod();
+		forecast.nextPeriod();
+	}
+	
+	/**
+	 * Adds a sale to the current period of the sales history and demand forecast (the caller holds the history's lock).
+	 */
+	private void recordSale(Item item, int quantity) {
 		
+		//the sold item may be a copy from the CSV reader, so use the catalogue's ID for its name
+		//(every item in the stock is in the catalogue, see ReorderIndex, so a sold item always is)
+		Item entry = catalog.getItem(item.GetName());
+		if (entry == null) {
+			throw new IllegalStateException(item.GetName() + " was sold, but isn't in the store's catalogue");
+		}
+		history.add(entry.GetId(), quantity);
+		forecast.add(entry.GetId(), quantity);
 	}
 	
 	/**
@@ -285,15 +688,28 @@ public class Store {
 	 * @param toAdd a stock instance full of items that will be iterated through in the ImportItems method
 	 */
 	public void ImportItems(Stock toAdd) {
+		fence.readLock().lock();
+		try {
+			logged(() -> importItems(toAdd), () -> EventLog.itemsRecord(toAdd));
+		} finally {
+			fence.readLock().unlock();
+		}
+	}
+	
+	private void importItems(Stock toAdd) {
 		
 		//loop through each item in the given stock (use the stock's keyset to do a for each loop)
 		for (Item item : toAdd.keySet()) {
 			
+			//swap the item for the catalogue's item with the same name
+			//(if the item has been imported before, this is the item from the first import)
+			Item entry = catalog.intern(item);
+			
 			//check if the item isn't already in the stores stock
-			if (!stock.Contains(item)) {
+			if (!stock.Contains(entry.GetName())) {
 				
 				//if the items doesn't exist yet, add it to the stores stock
-				stock.addItem(item);
+				stock.addItem(entry);
 			}
 		}
 		
@@ -307,44 +723,61 @@ public class Store {
 	 * Method loops through each item in the given truck order, and 'buys' them.
 	 * Altering given quantities in the stores inventory and changing store capital based on the price of trucks
 	 * and buying cost of each item involved.
+	 * <p>
+	 * The import is all or nothing: if any truck fails, no truck in the manifest is applied.
 	 * @param toAdd the manifest given by the CSVReader's 'ImportManifest' method
-	 * @throws DeliveryException if the manifest tries to reference an item which doesnt exist in the store inventory
+	 * @throws DeliveryException if the manifest tries to reference an item which doesnt exist in the store inventory, or the store can't afford it
 	 * @throws StockException if the changeQuantity method (processing adding quantity to an inventory item) creates a negative quantity
 	 */
 	public void ImportManifest(Manifest toAdd) throws DeliveryException, StockException {
 
+		//all or nothing: every truck in the manifest is merged into one delivery, which is checked
+		//in full before anything changes. if any line of any truck fails, the store is left exactly
+		//as it was (instead of keeping the trucks before it), so it never has to be reloaded.
+		Stock delivery = new Stock();
+		long truckCosts = 0;
+		
 		//loop through each truck in the manifest
 		for (Truck truck : toAdd) {
-			
-			//initialise a temp stock, and assign it to the trucks stock reference.
-			Stock tempStock = truck.getStock();
-			
-			//loop through each item in the tempStock (use keyset to do an iterable for each loop)
-			for (Item item : tempStock.keySet()) {
+			Stock cargo = truck.getStock();
+			for (Item item : cargo.keySet()) {
 				
-				try {
-					//try changing the quantity and capital of current item.
-					//this works inversely to the importSales method.
-					//the quantity increases by the given quantity in the trucks stock
-					ChangeQuantity(item, tempStock.getQuantity(item));
-					
-					//the capital decreases by the current item's buy cost, multiplied by its quantity within the current truck.
-					ChangeCapital(-(item.GetCost() * tempStock.getQuantity(item)));
-					
-				} catch (NullPointerException | StockException e) {
-					
-					//if a null pointer exception is thrown, then the manifest is trying to reference an item which hasnt been
-					//initialised in the store yet.
-					
-					//translate that error into a delivery exception, and throw it.
-					DeliveryException deliveryErr = new DeliveryException("manifest is trying to reference an item which doesnt exist");
-					throw deliveryErr;
+				//two different items with the same name can't both be the store's item, so the
+				//manifest references an item which doesn't exist
+				if (!delivery.addItem(item) && !delivery.Contains(item)) {
+					throw MissingItems();
 				}
+				delivery.AddQuantity(item, cargo.getQuantity(item));
 			}
-			//after each truck has successfully iterated, we also need to decrease the capital by the truck's calculated price.
-			ChangeCapital(-truck.getPrice());
+			
+			//each truck's hire is charged along with its items
+			truckCosts = Money.subtract(truckCosts, truck.getPriceCents());
 		}
 		
+		try {
+			//change the quantity and capital of every item in the manifest in one step.
+			//this works inversely to the importSales method.
+			//the quantities increase by the given quantities in the trucks' stocks,
+			//and the capital decreases by each item's buy cost multiplied by its quantity, and by each truck's price.
+			applyDelta(delivery, 1, truckCosts);
+			
+		} catch (NullPointerException | StockException e) {
+			
+			//if a stock exception is thrown, then the manifest is trying to reference an item which hasnt been
+			//initialised in the store yet. (a delivery the store can't afford throws its own DeliveryException,
+			//which is passed on as it is.)
+			
+			//translate that error into a delivery exception, and throw it.
+			throw MissingItems();
+		}
+	}
+	
+	/**
+	 * Builds the exception thrown when a manifest references an item the store doesn't have.
+	 */
+	private static DeliveryException MissingItems() {
+		DeliveryException deliveryErr = new DeliveryException("manifest is trying to reference an item which doesnt exist");
+		return deliveryErr;
 	}
 	
 	// ======================================================
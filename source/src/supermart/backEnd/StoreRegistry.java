@@ -0,0 +1,227 @@
+package supermart.backEnd;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Holds many independent stores (one per branch) in one program.
+ * <p>
+ * Each store has an ID, and the stores are split into partitions by their ID. Each partition
+ * has one worker thread, and every task for a store (imports, reports, anything submitted) runs
+ * on its partition's thread, one at a time, in the order it was submitted. So a store is never
+ * changed by two threads at once and needs no locking of its own, while stores in different
+ * partitions are worked on in parallel without ever waiting on each other.
+ * <p>
+ * Each store's stock and catalogue are sized for the number of items that store expects,
+ * so a small branch doesn't carry a big store's tables.
+ */
+public final class StoreRegistry implements Closeable {
+
+	//the stores, by their ID
+	private final ConcurrentHashMap<String, Store> stores = new ConcurrentHashMap<String, Store>();
+
+	//one single threaded worker per partition
+	private final ExecutorService[] partitions;
+
+	/**
+	 * Constructs a registry with one partition per processor.
+	 */
+	public StoreRegistry() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs a registry with the given number of partitions (worker threads).
+	 *
+	 * @param partitionCount The number of partitions the stores are split into
+	 */
+	public StoreRegistry(int partitionCount) {
+		if (partitionCount < 1) {
+			throw new IllegalArgumentException("a registry needs at least one partition, not " + partitionCount);
+		}
+		partitions = new ExecutorService[partitionCount];
+		for (int i = 0; i < partitionCount; i++) {
+			String threadName = "supermart-partition-" + i;
+			partitions[i] = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, threadName);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * Creates a new store in the registry, with an empty stock sized for its catalogue.
+	 *
+	 * @param storeId The store's ID, which is also its name
+	 * @param capital The starting capital of the store (dollars and cents)
+	 * @param expectedItems The number of unique items the store is expected to stock
+	 * @return The new store
+	 * @throws IllegalArgumentException Thrown if a store with that ID is already in the registry
+	 */
+	public Store register(String storeId, double capital, int expectedItems) {
+		Store store = new Store(storeId, capital, new Stock(expectedItems), expectedItems);
+		return register(storeId, store);
+	}
+
+	/**
+	 * Adds an existing store to the registry.
+	 *
+	 * @param storeId The store's ID
+	 * @param store The store
+	 * @return The store
+	 * @throws IllegalArgumentException Thrown if a store with that ID is already in the registry
+	 */
+	public Store register(String storeId, Store store) {
+		if (stores.putIfAbsent(storeId, store) != null) {
+			throw new IllegalArgumentException("a store with the ID " + storeId + " is already registered");
+		}
+		return store;
+	}
+
+	/**
+	 * Returns the store with the given ID.
+	 * <p>
+	 * Changes to the store should be made through submit, so they run on the store's partition.
+	 *
+	 * @param storeId The store's ID
+	 * @return The store, or null if there isn't one with that ID
+	 */
+	public Store getStore(String storeId) {
+		return stores.get(storeId);
+	}
+
+	/**
+	 * Returns the ID of every store in the registry
+	 * @return A read-only view of the store IDs
+	 */
+	public Collection<String> getStoreIds() {
+		return Collections.unmodifiableSet(stores.keySet());
+	}
+
+	/**
+	 * Returns the number of stores in the registry
+	 * @return The number of stores
+	 */
+	public int size() {
+		return stores.size();
+	}
+
+	/**
+	 * Returns the number of partitions (worker threads) the stores are split into
+	 * @return The number of partitions
+	 */
+	public int getPartitionCount() {
+		return partitions.length;
+	}
+
+	/**
+	 * Returns the partition a store's tasks run on.
+	 *
+	 * @param storeId The store's ID
+	 * @return The store's partition, from 0 to getPartitionCount() - 1
+	 */
+	public int partitionOf(String storeId) {
+
+		//spread the hash's high bits into the low ones, so IDs that differ only at the end still spread out
+		int hash = storeId.hashCode();
+		hash ^= hash >>> 16;
+		return Math.floorMod(hash, partitions.length);
+	}
+
+	/**
+	 * Runs a task against a store on the store's partition thread.
+	 * <p>
+	 * Tasks for the same store run one at a time, in the order they were submitted.
+	 *
+	 * @param storeId The ID of the store to run the task against
+	 * @param task The task to run
+	 * @return A future holding the task's result, or the exception (or error) it threw
+	 * @throws IllegalArgumentException Thrown if there's no store with that ID
+	 */
+	public <T> CompletableFuture<T> submit(String storeId, StoreTask<T> task) {
+		Store store = stores.get(storeId);
+		if (store == null) {
+			throw new IllegalArgumentException("no store has the ID " + storeId);
+		}
+
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		partitions[partitionOf(storeId)].execute(() -> {
+			//an Error (e.g. an AssertionError) completes the future too, so nothing waiting on it hangs
+			try {
+				result.complete(task.run(store));
+			} catch (Throwable e) {
+				result.completeExceptionally(e);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Imports a sales log into a store, on the store's partition thread (see Store.ImportSales).
+	 *
+	 * @param storeId The ID of the store the sales were made in
+	 * @param sales The items sold and their quantities
+	 * @return A future that completes when the sales are imported, or holds the StockException if they fail
+	 */
+	public CompletableFuture<Void> ImportSales(String storeId, Stock sales) {
+		return submit(storeId, store -> {
+			store.ImportSales(sales);
+			return null;
+		});
+	}
+
+	/**
+	 * Imports a manifest into a store, on the store's partition thread (see Store.ImportManifest).
+	 *
+	 * @param storeId The ID of the store the manifest is delivered to
+	 * @param manifest The trucks delivered
+	 * @return A future that completes when the delivery is imported, or holds the exception if it fails
+	 */
+	public CompletableFuture<Void> ImportManifest(String storeId, Manifest manifest) {
+		return submit(storeId, store -> {
+			store.ImportManifest(manifest);
+			return null;
+		});
+	}
+
+	/**
+	 * Stops every partition's thread once the tasks already submitted have run.
+	 */
+	@Override
+	public void close() {
+		for (ExecutorService partition : partitions) {
+			partition.shutdown();
+		}
+		try {
+			for (ExecutorService partition : partitions) {
+				partition.awaitTermination(1, TimeUnit.MINUTES);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * A task run against one store by submit.
+	 */
+	public interface StoreTask<T> {
+
+		/**
+		 * Runs the task.
+		 *
+		 * @param store The store to run against
+		 * @return The task's result
+		 * @throws Exception Any exception the task throws is passed back through its future
+		 */
+		T run(Store store) throws Exception;
+	}
+}
@@ -1,5 +1,7 @@
 package supermart.backEnd;
 
+import java.io.IOException;
+
 import supermart.exceptions.DeliveryException;
 import supermart.exceptions.DryException;
 
@@ -39,6 +41,15 @@ public interface Truck {
 	 */
 	public double getPrice();
 	
+	/**
+	 * Returns the cost of using the truck in whole cents
+	 * <p>
+	 * This is the amount the store is charged for the truck.
+	 * 
+	 * @return The price of using the truck, in cents
+	 */
+	public long getPriceCents();
+	
 	/**
 	 * Returns the total number of items in the truck
 	 * 
@@ -73,4 +84,16 @@ public interface Truck {
 	 */
 	public String toString();
 	
+	/**
+	 * Writes the type of truck, the items in it's stock and their
+	 * quantities to the given output.
+	 * <p>
+	 * Writes the same text as toString, straight to the output
+	 * (e.g. a Writer or StringBuilder).
+	 * 
+	 * @param out The output to write the truck to
+	 * @throws IOException thrown if the output can't be written to
+	 */
+	public void writeTo(Appendable out) throws IOException;
+	
 }
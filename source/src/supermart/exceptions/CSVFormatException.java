@@ -14,6 +14,15 @@ public class CSVFormatException extends Exception {
 		super("CSV ERROR: " + message);
 	}
 	
+	/**
+	 * Constructs the exception, optionally without a stack trace.
+	 * @param message the error message
+	 * @param stackTrace false to skip filling in the stack trace (and recording suppressed exceptions)
+	 */
+	public CSVFormatException(String message, boolean stackTrace) {
+		super("CSV ERROR: " + message, null, stackTrace, stackTrace);
+	}
+	
 	public String getMessage() {
 		return super.getMessage();
 	}
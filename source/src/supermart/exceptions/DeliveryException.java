@@ -17,6 +17,15 @@ public class DeliveryException extends Exception {
 		super("DELIVERY ERROR: " + message);
 	}
 	
+	/**
+	 * Constructs the exception, optionally without a stack trace.
+	 * @param message the error message
+	 * @param stackTrace false to skip filling in the stack trace (and recording suppressed exceptions)
+	 */
+	public DeliveryException(String message, boolean stackTrace) {
+		super("DELIVERY ERROR: " + message, null, stackTrace, stackTrace);
+	}
+	
 	public String getMessage() {
 		return super.getMessage();
 	}
@@ -14,12 +14,31 @@ public class DryException extends Exception {
 	private static final long serialVersionUID = 1L;
 	
 	public DryException(Item item, String name) {
-		super(	"ITEM ERROR: " + name + " is a dry Item and doesnt have temperature! Item Hash: " 
-				+ System.identityHashCode(item));
+		this(item, name, true);
 	}
 	
 	public DryException() {
-		super(	"TRUCK ERROR: This is a dry Truck and doesnt accept temperature controlled items!");
+		this(true);
+	}
+	
+	/**
+	 * Constructs an item DryException, optionally without a stack trace.
+	 * @param item the dry item
+	 * @param name the dry item's name
+	 * @param stackTrace false to skip filling in the stack trace (and recording suppressed exceptions)
+	 */
+	public DryException(Item item, String name, boolean stackTrace) {
+		super(	"ITEM ERROR: " + name + " is a dry Item and doesnt have temperature! Item Hash: " 
+				+ System.identityHashCode(item), null, stackTrace, stackTrace);
+	}
+	
+	/**
+	 * Constructs a truck DryException, optionally without a stack trace.
+	 * @param stackTrace false to skip filling in the stack trace (and recording suppressed exceptions)
+	 */
+	public DryException(boolean stackTrace) {
+		super(	"TRUCK ERROR: This is a dry Truck and doesnt accept temperature controlled items!",
+				null, stackTrace, stackTrace);
 		
 	}
 
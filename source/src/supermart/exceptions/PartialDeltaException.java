@@ -0,0 +1,33 @@
+package supermart.exceptions;
+
+import supermart.backEnd.Stock;
+
+/**
+ * @author Zaine Ashe - 09469010
+ * 
+ * A StockException thrown when a delta failed part way through, and some of the lines
+ * already applied couldn't be rolled back (another thread had already used their units).
+ * <p>
+ * Carries the lines that are still applied, so whoever applied the delta (e.g. Store) can
+ * keep its own books in step with the stock.
+ */
+public class PartialDeltaException extends StockException {
+
+	private static final long serialVersionUID = 1L;
+	
+	//the lines left applied, with the delta's (unsigned) quantities
+	private final Stock applied;
+
+	public PartialDeltaException(String message, Stock applied) {
+		super(message);
+		this.applied = applied;
+	}
+	
+	/**
+	 * Returns the lines of the delta that are still applied
+	 * @return A stock of the items left applied and their amounts from the delta
+	 */
+	public Stock getApplied() {
+		return applied;
+	}
+}
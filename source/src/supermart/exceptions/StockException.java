@@ -15,6 +15,15 @@ public class StockException extends Exception {
 		super("STOCK ERROR: " + message);
 	}
 	
+	/**
+	 * Constructs the exception, optionally without a stack trace.
+	 * @param message the error message
+	 * @param stackTrace false to skip filling in the stack trace (and recording suppressed exceptions)
+	 */
+	public StockException(String message, boolean stackTrace) {
+		super("STOCK ERROR: " + message, null, stackTrace, stackTrace);
+	}
+	
 	public String getMessage() {
 		return super.getMessage();
 	}
@@ -1,5 +1,6 @@
 package supermart.frontEnd;
 
+import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
@@ -8,6 +9,7 @@ import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -60,6 +62,7 @@ public class CSVReader {
 	
 	// THERE ARE A LOT OF PRIVATE METHODS IN HERE
 	// THE ONLY METHOD YOU NEED TO ACCESS IS 'Import(CSVType type, Store store, File file)' AND 'ExportManifest(Store store, File file)'
+	// ('BuildManifest(Store store, List<Item> items)' builds the exported manifest without writing it, for the StoreSimulation)
 	// use the CSVType enumerator to decide what type of import to perform.
 	
 	//define some constant ASCII chars for the file reader
@@ -349,11 +352,12 @@ public class CSVReader {
 				//try creating a new file at the given directory from File object	
 				file.createNewFile();
 					
-				//create a writer for the new file
-				FileWriter writer = new FileWriter(file);
+				//create a (buffered) writer for the new file
+				BufferedWriter writer = new BufferedWriter(new FileWriter(file));
 					
-				//use writer's string intake method to dump the entire manifest toString into the file
-				writer.write(manifest.toString());
+				//stream the manifest straight into the file, one truck at a time
+				//(this avoids building the entire manifest toString in memory first)
+				manifest.writeTo(writer);
 					
 				//close the file from the writer
 				writer.close();
@@ -579,16 +583,14 @@ public class CSVReader {
 		while (i<data.length) {
 			
 			//data[i] will be an item name (a la 'beef' or 'rice')
-			//the first check will be to see if the store has an item
-			//of that name in its stock
-			//so ergo, check if stores stock contains an item
-			//of name given in data[i]
-			if (store.getStock().Contains(data[i])) {
-				
-				//grab the item that was just confirmed to exist
-				//stock's getItem method takes a string and returns
-				//an item that has that name.
-				Item item = store.getStock().getItem(data[i]);
+			//grab the item of that name from the store
+			//store's getItem method takes a string and returns
+			//an item that has that name (or null if the store doesnt have one)
+			//it returns the store's catalogue item, so every sales log uses the same Item for a name
+			Item item = store.getItem(data[i]);
+			
+			//check the store actually has an item of name given in data[i]
+			if (item != null) {
 				
 				//add that item to the sales tock
 				toAdd.addItem(item);
@@ -819,10 +821,10 @@ public class CSVReader {
 	// ==============================================================================================================================
 	
 	/**
-	 * Algorithm for generating an optimum manifest from a store's stock order.
+	 * Exports an optimum manifest for a store's stock order.
 	 * <p>
-	 * The export manifest method grabs the stock order from store, and runs through it. An optimum collection of trucks is generated
-	 * using an iterative algorithm, and finally the WriteManifest method is called on the given File object.
+	 * The export manifest method grabs the stock order from store, and builds the trucks for it with BuildManifest.
+	 * Finally the WriteManifest method is called on the given File object.
 	 * @param store the ExportManifest method needs to have the current store passed through to it to generate a stock order.
 	 * @param file The file path given by the GUI, to eventually write the optimized manifest to.
 	 * @throws DeliveryException the ImportCSV parent method inherets the DeliveryException throws from it's internal methods
@@ -831,10 +833,31 @@ public class CSVReader {
 	public static void ExportManifest(Store store, File file) throws DeliveryException, CSVFormatException {
 		
 		//use the store's generateNewOrder method to grab an arraylist of all items that need
-		//to be reordered.
-		ArrayList<Item> items = store.generateNewOrder();		
+		//to be reordered, and build the trucks to deliver them
+		Manifest manifest = BuildManifest(store, store.generateNewOrder());
+		
+		//finally, after the optimised manifest has been completed, write the manifest to the given file.
+		//this is done by calling the WriteManifest method
+		WriteManifest(manifest, file);
+	}
+	
+	// ==============================================================================================================================
+	
+	/**
+	 * Algorithm for generating an optimum manifest from a stock order.
+	 * <p>
+	 * Runs through the ordered items (coldest first, as given by the store's generateNewOrder), and an optimum collection
+	 * of trucks is generated using an iterative algorithm. Each item is ordered in the quantity given by the store's
+	 * getReorderQuantity method. The manifest isn't written anywhere, so it can be imported straight into the store
+	 * (this is how the StoreSimulation restocks).
+	 * @param store the store the order is for, used to look up the items and their reorder quantities.
+	 * @param items the items to order, sorted the way generateNewOrder sorts them.
+	 * @return the manifest of trucks delivering the order
+	 * @throws DeliveryException if a truck can't be built for part of the order
+	*/
+	public static Manifest BuildManifest(Store store, List<Item> items) throws DeliveryException {
 		
-		//create a new manifest to be exported as a csv
+		//create a new manifest to hold the trucks
 		Manifest manifest = new Manifest();
 		
 		//this is the arraylist that will build stocks for trucks
@@ -946,8 +969,10 @@ public class CSVReader {
 			
 			//add the items name and reorder point to the builder arraylist
 			//a quick calculation needs to be done here to ensure we aren't filling the truck over capacity.
-			//initialise this quantity int as the current items reorder amount 
-			int quantity = item.GetReorderAmount(); 
+			//initialise this quantity int as the current items reorder amount
+			//(the store decides the amount: the item's fixed reorder amount, or its forecast demand)
+			int amount = store.getReorderQuantity(item);
+			int quantity = amount; 
 			
 			//check if the truck will overflow after the reorder amount is added.
 			if ((current_quantity + quantity) > current_capacity) {
@@ -964,7 +989,7 @@ public class CSVReader {
 			
 			//despite the calculated quantity, add the items raw reorder amount to the current_quantity tracker variable.
 			//this will let the if statements at the start of the loop recognise that the truck has gone over capacity.
-			current_quantity += item.GetReorderAmount();
+			current_quantity += amount;
 			
 		}
 		
@@ -1009,8 +1034,7 @@ public class CSVReader {
 			}
 		}
 		
-		//finally, after the optimised manifest has been completed, write the manifest to the given file.
-		//this is done by calling the WriteManifest method
-		WriteManifest(manifest, file);
+		//return the optimised manifest
+		return manifest;
 	}
 }
\ No newline at end of file
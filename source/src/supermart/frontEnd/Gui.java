@@ -7,10 +7,10 @@ import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 import java.awt.GridBagConstraints;
 
 
@@ -28,12 +28,14 @@ import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
 
 import supermart.SupermartEnums.CSVType;
+import supermart.backEnd.CatalogueSnapshot;
+import supermart.backEnd.Checkpointer;
+import supermart.backEnd.EventLog;
 import supermart.backEnd.Item;
 import supermart.backEnd.Stock;
 import supermart.backEnd.Store;
 import supermart.exceptions.CSVFormatException;
 import supermart.exceptions.DeliveryException;
-import supermart.exceptions.DryException;
 import supermart.exceptions.StockException;
 
 
@@ -68,6 +70,8 @@ public class Gui extends JFrame implements ActionListener{
 	JButton importSalesLog;
 	JButton importManifest;
 	JButton exportManifest;
+	JButton saveSnapshot;
+	JButton loadSnapshot;
 	
 	JTextField storeName;
 	JTextField capital;
@@ -84,6 +88,20 @@ public class Gui extends JFrame implements ActionListener{
 	JFileChooser salesLogSelect = new JFileChooser();
 	JFileChooser importManifestSelect = new JFileChooser();
 	JFileChooser exportManifestSelect = new JFileChooser();
+	JFileChooser snapshotSelect = new JFileChooser();
+	
+	//the snapshot saved by the Save Snapshot button, loaded automatically on the next launch
+	//(the store starts with this instead of an empty stock, no need to import the items CSV again)
+	static File DEFAULT_SNAPSHOT = new File("supermart.snapshot");
+	
+	//every change made to the store since the default snapshot was saved, replayed on the next launch
+	//so nothing imported is lost if the program stops before the next snapshot
+	static File DEFAULT_LOG = new File("supermart.log");
+	EventLog eventLog;
+	
+	//saves the default snapshot every few minutes, and drops the changes it includes from the log
+	Checkpointer checkpointer = new Checkpointer(store, DEFAULT_SNAPSHOT);
+	static final long CHECKPOINT_MINUTES = 5;
 	
 	File itemFile;
 	File salesLogFile;
@@ -123,6 +141,8 @@ public class Gui extends JFrame implements ActionListener{
 		importSalesLog = new JButton("Import Sales Log");
 		importManifest = new JButton("Import Manifest");
 		exportManifest = new JButton("Export Manifest");
+		saveSnapshot = new JButton("Save Snapshot");
+		loadSnapshot = new JButton("Load Snapshot");
 		
 		tableLabel = new JLabel("Store Inventory", SwingConstants.CENTER);
 		
@@ -162,6 +182,8 @@ public class Gui extends JFrame implements ActionListener{
 		importSalesLog.addActionListener(this);
 		importManifest.addActionListener(this);
 		exportManifest.addActionListener(this);
+		saveSnapshot.addActionListener(this);
+		loadSnapshot.addActionListener(this);
 		
 		//Disables these labels from being edited by the user
 		storeName.setEditable(false);
@@ -196,6 +218,10 @@ public class Gui extends JFrame implements ActionListener{
 		leftPanel.add(importManifest, bc);
 		bc.gridy = 7;
 		leftPanel.add(importSalesLog, bc);
+		bc.gridy = 8;
+		leftPanel.add(saveSnapshot, bc);
+		bc.gridy = 9;
+		leftPanel.add(loadSnapshot, bc);
 		
 		//Adds table, text area and label to right and bottom panels
 		rightPanel.add(tableLabel, BorderLayout.PAGE_START);
@@ -207,6 +233,33 @@ public class Gui extends JFrame implements ActionListener{
 		salesLogSelect.setDialogTitle("Select Sales Log File");
 		importManifestSelect.setDialogTitle("Select Manifest File");
 		exportManifestSelect.setDialogTitle("Save Manifest");
+		snapshotSelect.setDialogTitle("Select Snapshot File");
+		snapshotSelect.setSelectedFile(DEFAULT_SNAPSHOT);
+		
+		//Loads the last saved snapshot, if there is one
+		if (DEFAULT_SNAPSHOT.isFile()) {
+			try {
+				CatalogueSnapshot.Load(store, DEFAULT_SNAPSHOT);
+				capital.setText("" + String.format("%.2f", store.getCapital()));
+				infoLog.append("Snapshot " + DEFAULT_SNAPSHOT.getName() + " loaded \n");
+			} catch (IOException e1) {
+				infoLog.append("EXCEPTION THROWN: Snapshot load failed! \n" + e1.getMessage() + "\n");
+			}
+		}
+		
+		//Replays the changes made since that snapshot, then keeps logging every change
+		try {
+			if (DEFAULT_LOG.isFile()) {
+				long events = EventLog.Replay(store, DEFAULT_LOG);
+				capital.setText("" + String.format("%.2f", store.getCapital()));
+				infoLog.append(events + " logged changes replayed \n");
+			}
+			eventLog = new EventLog(DEFAULT_LOG, true);
+			store.SetEventLog(eventLog);
+			checkpointer.start(CHECKPOINT_MINUTES, TimeUnit.MINUTES);
+		} catch (IOException e1) {
+			infoLog.append("EXCEPTION THROWN: Event log could not be replayed, changes won't be logged! \n" + e1.getMessage() + "\n");
+		}
 		
 		//Makes the entire frame visible, without this nothing would appear
 		updateTable();
@@ -345,6 +398,47 @@ public class Gui extends JFrame implements ActionListener{
 			updateTable();
 			capital.setText("" + String.format("%.2f", store.getCapital()));
 		}
+		
+		//Activates when saveSnapshot button is pressed, calls CatalogueSnapshot.Write to save the store's items, quantities and capital
+		if (e.getSource() == saveSnapshot) {
+			infoLog.append ("Select save location for snapshot \n");
+			int i = snapshotSelect.showSaveDialog(this);
+			if (i == JFileChooser.APPROVE_OPTION) {
+				try {
+					CatalogueSnapshot.Write(store, snapshotSelect.getSelectedFile());
+					checkpoint();
+					infoLog.append("Snapshot saved! \n");
+				} catch (IOException e1) {
+					infoLog.append("EXCEPTION THROWN: Snapshot save failed! \n" + e1.getMessage() + "\n");
+					e1.printStackTrace();
+				}
+			}
+			else {
+				infoLog.append("Snapshot save cancelled by user \n");
+			}
+		}
+		
+		//Activates when loadSnapshot button is pressed, calls CatalogueSnapshot.Load to replace the store's stock and capital
+		if (e.getSource() == loadSnapshot) {
+			infoLog.append("Select a snapshot to load \n");
+			int i = snapshotSelect.showOpenDialog(this);
+			if (i == JFileChooser.APPROVE_OPTION) {
+				try {
+					clearTable();
+					CatalogueSnapshot.Load(store, snapshotSelect.getSelectedFile());
+					checkpoint();
+					infoLog.append("Snapshot succesfully loaded! \n");
+				} catch (IOException e1) {
+					infoLog.append("EXCEPTION THROWN: Snapshot load failed! \n" + e1.getMessage() + "\n");
+					e1.printStackTrace();
+				}
+			}
+			else {
+				infoLog.append("File selection cancelled by user \n");
+			}
+			updateTable();
+			capital.setText("" + String.format("%.2f", store.getCapital()));
+		}
 
 
 	 }
@@ -360,22 +454,22 @@ public class Gui extends JFrame implements ActionListener{
 	 */
 	public void updateTable() {
 		
-		//Orders items alphabetically. Taken from Stock.java, keeps the Table neat and prevents rows being shuffled when updated.
-		Comparator<Item> lexicographicComparator = Comparator.comparing(Item::GetName);
-		List<Item> items = new ArrayList<Item>();
-		items.addAll((this.stock.keySet()));
-		Collections.sort(items, lexicographicComparator);
+		//Reads from a snapshot of the store's stock, so the table isn't torn by an import changing the stock while it's being filled
+		Stock inventory = store.getStock().snapshot();
+		
+		//Orders items alphabetically. The stock keeps its items in name order, keeps the Table neat and prevents rows being shuffled when updated.
+		Collection<Item> items = inventory.orderedItems();
 		
 		//Adds item row to JTable if itemRow doesn't already exist
-		//If a dryException is thrown the Temperature column isn't updated as it's a dry item which has no temperature
+		//If the item has no temperature the Temperature column isn't updated as it's a dry item
 		for (Item item : items) {
 			if (!(tableList.contains(item.GetName()))){
-			try {
-				itemModel.addRow(new Object[] {item.GetName() , Double.toString(store.getStock().getQuantity(item)) , Double.toString(item.GetCost()) , Double.toString(item.GetPrice()) ,
-				Double.toString(item.GetReorderPoint()) , Double.toString(item.GetReorderAmount()) , Double.toString(item.GetTemperature())});
+			if (item.hasTemperature()) {
+				itemModel.addRow(new Object[] {item.GetName() , Double.toString(inventory.getQuantity(item)) , Double.toString(item.GetCost()) , Double.toString(item.GetPrice()) ,
+				Double.toString(item.GetReorderPoint()) , Double.toString(item.GetReorderAmount()) , Double.toString(item.temperature())});
 				tableList.add(item.GetName());
-			} catch (DryException e) {
-				itemModel.addRow(new Object[] {item.GetName() , Double.toString(store.getStock().getQuantity(item)) , Double.toString(item.GetCost()) , Double.toString(item.GetPrice()) ,
+			} else {
+				itemModel.addRow(new Object[] {item.GetName() , Double.toString(inventory.getQuantity(item)) , Double.toString(item.GetCost()) , Double.toString(item.GetPrice()) ,
 						Double.toString(item.GetReorderPoint()) , Double.toString(item.GetReorderAmount())});
 				tableList.add(item.GetName());
 			} 
@@ -384,6 +478,14 @@ public class Gui extends JFrame implements ActionListener{
 		}
 	}
 	
+	/**
+	 * Saves the store to the default snapshot straight away, and drops the changes it includes from the event log.
+	 * @throws IOException Thrown if the snapshot can't be written or the log can't be compacted
+	 */
+	public void checkpoint() throws IOException {
+		checkpointer.Checkpoint();
+	}
+	
 	/**
 	 * Clears the Jtable and tableList ArrayList.
 	 * <p>
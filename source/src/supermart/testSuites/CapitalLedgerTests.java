@@ -0,0 +1,201 @@
+package supermart.testSuites;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import supermart.backEnd.CapitalLedger;
+import supermart.backEnd.ConcurrentStock;
+import supermart.backEnd.Item;
+import supermart.backEnd.Stock;
+import supermart.backEnd.Store;
+import supermart.exceptions.DeliveryException;
+import supermart.exceptions.StockException;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Tests for the striped CapitalLedger behind a store's capital
+ */
+public class CapitalLedgerTests {
+
+	//runs the same job on several threads at once, and waits for them all to finish
+	private static void runThreads(int threads, Runnable job) throws InterruptedException {
+		Thread[] workers = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Thread(job);
+			workers[i].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+	}
+
+	//Test 1: Test additions from many threads at once are never lost
+	@Test
+	public void concurrentAddTest() throws InterruptedException {
+		CapitalLedger ledger = new CapitalLedger(100);
+		runThreads(8, () -> {
+			for (int i = 0; i < 100000; i++) {
+				ledger.add(3);
+			}
+		});
+		assertEquals(100 + 8 * 100000 * 3, ledger.get());
+	}
+
+	//Test 2: Test withdrawals from many threads at once never take the ledger below zero
+	@Test
+	public void concurrentWithdrawTest() throws InterruptedException {
+		CapitalLedger ledger = new CapitalLedger(1000);
+		AtomicInteger accepted = new AtomicInteger();
+		runThreads(8, () -> {
+			for (int i = 0; i < 100; i++) {
+				if (ledger.withdraw(-7)) {
+					accepted.incrementAndGet();
+				}
+			}
+		});
+
+		//1000 cents pays for 142 withdrawals of 7, with 6 cents left over
+		assertEquals(142, accepted.get());
+		assertEquals(6, ledger.get());
+		assertFalse(ledger.withdraw(-7));
+		assertTrue(ledger.withdraw(-6));
+	}
+
+	//Test 3: Test setting the ledger replaces what every stripe held
+	@Test
+	public void setTest() throws InterruptedException {
+		CapitalLedger ledger = new CapitalLedger(0);
+		runThreads(4, () -> ledger.add(25));
+		ledger.set(-5);
+		assertEquals(-5, ledger.get());
+		assertEquals("-0.05", ledger.toString());
+	}
+
+	//Test 4: Test a store rejects a capital change that would make it negative, leaving the capital unchanged
+	@Test
+	public void storeRejectsOverdrawTest() {
+		Store store = new Store("ledgerStore", 10, new Stock());
+		try {
+			store.AddCapital(-10.01);
+			fail("overdrawing the store should throw a DeliveryException");
+		} catch (DeliveryException e) {
+			//expected
+		}
+		assertEquals(1000, store.getCapitalCents());
+	}
+
+	//Test 5: Test deliveries applied by many threads at once never overdraw the store, and every refused one changes nothing
+	@Test
+	public void concurrentDeliveryTest() throws InterruptedException {
+		Store store = new Store("deliveryStore", 100, new ConcurrentStock());
+		Stock items = new Stock();
+		items.addItem(new Item("rice", 1, 2, 10, 100));
+		store.ImportItems(items);
+		Item rice = store.getItem("rice");
+		AtomicInteger accepted = new AtomicInteger();
+		runThreads(8, () -> {
+			for (int i = 0; i < 100; i++) {
+				Stock delivery = new Stock();
+				delivery.addItem(rice);
+				delivery.AddQuantity(rice, 3);
+				try {
+					store.applyDelta(delivery, 1);
+					accepted.incrementAndGet();
+				} catch (DeliveryException e) {
+					//refused, the store can't afford it
+				} catch (StockException e) {
+					fail(e.getMessage());
+				}
+			}
+		});
+
+		//$100 pays for 33 deliveries of $3, with $1 left over
+		assertEquals(33, accepted.get());
+		assertEquals(100, store.getCapitalCents());
+		assertEquals(99, store.getStock().getQuantity(rice));
+	}
+
+	//Test 6: Test an addition that overflows one stripe, but not the total, still goes through
+	@Test
+	public void stripeOverflowTest() throws InterruptedException {
+		CapitalLedger ledger = new CapitalLedger(-1000);
+		runThreads(1, () -> {
+			ledger.add(Long.MAX_VALUE);
+			ledger.add(500);
+		});
+		assertEquals(Long.MAX_VALUE - 500, ledger.get());
+		assertFalse(ledger.withdraw(Long.MIN_VALUE));
+		assertTrue(ledger.withdraw(500 - Long.MAX_VALUE));
+		assertEquals(0, ledger.get());
+	}
+
+	//Test 7: Test a refused sale never lends the store money another thread can spend
+	@Test
+	public void refusedSaleTest() throws InterruptedException {
+		Store store = new Store("saleStore", 0, new ConcurrentStock());
+		Stock items = new Stock();
+		items.addItem(new Item("rice", 1, 2, 10, 100));
+		store.ImportItems(items);
+		Item rice = store.getItem("rice");
+		AtomicInteger roles = new AtomicInteger();
+		AtomicInteger sold = new AtomicInteger();
+		AtomicInteger spent = new AtomicInteger();
+		runThreads(4, () -> {
+			boolean seller = roles.getAndIncrement() % 2 == 0;
+			for (int i = 0; i < 2000; i++) {
+				if (seller) {
+
+					//there's no rice to sell, so every sale is refused
+					Stock sale = new Stock();
+					sale.addItem(rice);
+					sale.AddQuantity(rice, 1);
+					try {
+						store.ImportSales(sale);
+						sold.incrementAndGet();
+					} catch (StockException e) {
+						//expected
+					}
+				} else {
+					try {
+						store.AddCapital(-2);
+						spent.incrementAndGet();
+					} catch (DeliveryException e) {
+						//expected, the store has nothing to spend
+					}
+				}
+			}
+		});
+		assertEquals(0, sold.get());
+		assertEquals(0, spent.get());
+		assertEquals(0, store.getCapitalCents());
+	}
+
+	//Test 8: Test the addition that would overflow the total throws straight away, and leaves the ledger readable
+	@Test
+	public void totalOverflowTest() throws InterruptedException {
+		CapitalLedger ledger = new CapitalLedger(0);
+		runThreads(4, () -> ledger.add(Long.MAX_VALUE / 8));
+		ledger.add(Long.MAX_VALUE - 4 * (Long.MAX_VALUE / 8));
+		assertEquals(Long.MAX_VALUE, ledger.get());
+		AtomicInteger added = new AtomicInteger();
+		runThreads(4, () -> {
+			try {
+				ledger.add(1);
+				added.incrementAndGet();
+			} catch (ArithmeticException e) {
+				//expected
+			}
+		});
+		assertEquals(0, added.get());
+		assertEquals(Long.MAX_VALUE, ledger.get());
+		assertTrue(ledger.withdraw(-Long.MAX_VALUE));
+		assertEquals(0, ledger.get());
+	}
+}
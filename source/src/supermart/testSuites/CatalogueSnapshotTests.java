@@ -0,0 +1,102 @@
+package supermart.testSuites;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import supermart.SupermartEnums.ToStringType;
+import supermart.backEnd.CatalogueSnapshot;
+import supermart.backEnd.ConcurrentStock;
+import supermart.backEnd.Item;
+import supermart.backEnd.OffHeapStock;
+import supermart.backEnd.Stock;
+import supermart.backEnd.Store;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Tests for saving and loading CatalogueSnapshot files
+ */
+public class CatalogueSnapshotTests {
+
+	Item testItem1 = new Item("testItem1", 1.25, 2.5, 10, 20);
+	Item testItem2 = new Item("testItem2", 3, 4.99, 1, 20, -5.5);
+
+	//Test 1: Test a store saved to a snapshot loads back with the same name, items, quantities and capital
+	@Test
+	public void roundTripTest() throws IOException {
+		Stock inventory = new Stock();
+		inventory.addItem(testItem1);
+		inventory.AddQuantity(testItem1, 7);
+		inventory.addItem(testItem2);
+		inventory.AddQuantity(testItem2, 12);
+		Store savedStore = new Store("savedStore", 1234.56, inventory);
+
+		File file = File.createTempFile("supermart", ".snapshot");
+		file.deleteOnExit();
+		CatalogueSnapshot.Write(savedStore, file);
+
+		Store loadedStore = new Store("loadedStore", 0, new Stock());
+		CatalogueSnapshot.Load(loadedStore, file);
+
+		assertEquals("savedStore", loadedStore.getName());
+		assertEquals(1234.56, loadedStore.getCapital(), 0);
+		assertEquals(inventory.toString(ToStringType.NAME), loadedStore.getStock().toString(ToStringType.NAME));
+		assertEquals(inventory.toString(ToStringType.DETAILS), loadedStore.getStock().toString(ToStringType.DETAILS));
+		assertEquals(-5.5, loadedStore.getStock().getLowestTemp(), 0);
+		assertEquals(2, loadedStore.getCatalog().size());
+	}
+
+	//Test 2: Test a file that isn't a snapshot is rejected, and leaves the store as it was
+	@Test
+	public void notASnapshotTest() throws IOException {
+		File file = File.createTempFile("supermart", ".csv");
+		file.deleteOnExit();
+		try (FileWriter writer = new FileWriter(file)) {
+			writer.write("Rice,2,3,225,300\n");
+		}
+
+		Stock inventory = new Stock();
+		inventory.addItem(testItem1);
+		Store testStore = new Store("testStore", 10, inventory);
+		try {
+			CatalogueSnapshot.Load(testStore, file);
+			fail("loading a CSV as a snapshot should throw an IOException");
+		} catch (IOException e) {
+			//expected
+		}
+
+		assertEquals(inventory, testStore.getStock());
+		assertEquals(10, testStore.getCapital(), 0);
+	}
+
+	//Test 3: Test loading a snapshot keeps the kind of stock the store was using
+	@Test
+	public void keepsStockKindTest() throws IOException {
+		Stock inventory = new Stock();
+		inventory.addItem(testItem1);
+		inventory.AddQuantity(testItem1, 7);
+		inventory.addItem(testItem2);
+		inventory.AddQuantity(testItem2, 12);
+		File file = File.createTempFile("supermart", ".snapshot");
+		file.deleteOnExit();
+		CatalogueSnapshot.Write(new Store("savedStore", 10, inventory), file);
+
+		Store concurrentStore = new Store("concurrentStore", 0, new ConcurrentStock());
+		CatalogueSnapshot.Load(concurrentStore, file);
+		assertTrue(concurrentStore.getStock() instanceof ConcurrentStock);
+		assertEquals(inventory.toString(ToStringType.NAME), concurrentStore.getStock().toString(ToStringType.NAME));
+
+		Store offHeapStore = new Store("offHeapStore", 0, new OffHeapStock());
+		CatalogueSnapshot.Load(offHeapStore, file);
+		assertTrue(offHeapStore.getStock() instanceof OffHeapStock);
+		assertEquals(inventory.toString(ToStringType.DETAILS), offHeapStore.getStock().toString(ToStringType.DETAILS));
+		assertEquals(12, offHeapStore.getStock().getQuantity(offHeapStore.getItem("testItem2")));
+	}
+}
@@ -0,0 +1,176 @@
+package supermart.testSuites;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import supermart.SupermartEnums.ToStringType;
+import supermart.backEnd.CatalogueSnapshot;
+import supermart.backEnd.Checkpointer;
+import supermart.backEnd.EventLog;
+import supermart.backEnd.Item;
+import supermart.backEnd.Stock;
+import supermart.backEnd.Store;
+import supermart.exceptions.StockException;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Tests for checkpointing a store to a snapshot and compacting its event log
+ */
+public class CheckpointerTests {
+
+	Item rice = new Item("rice", 1.25, 2.5, 10, 20);
+
+	private static File tempFile(String suffix) throws IOException {
+		File file = File.createTempFile("supermart", suffix);
+		file.deleteOnExit();
+		return file;
+	}
+
+	//makes a store with a log, and a stock of rice
+	private Store loggedStore(EventLog log) {
+		Stock inventory = new Stock();
+		inventory.addItem(rice);
+		inventory.AddQuantity(rice, 1000000);
+		Store store = new Store("checkpointStore", 100, inventory);
+		store.SetEventLog(log);
+		return store;
+	}
+
+	//sells one rice
+	private static void sellRice(Store store) throws StockException {
+		Stock sale = new Stock();
+		sale.addItem(store.getItem("rice"));
+		sale.AddQuantity(store.getItem("rice"), 1);
+		store.ImportSales(sale);
+	}
+
+	//loads a snapshot into a new store, and replays the log on top of it
+	private static Store recover(File snapshot, File logFile) throws IOException {
+		Store recovered = new Store("", 0, new Stock());
+		CatalogueSnapshot.Load(recovered, snapshot);
+		EventLog.Replay(recovered, logFile);
+		return recovered;
+	}
+
+	//Test 1: Test a checkpoint shrinks the log, and the snapshot plus the rest of the log rebuild the store
+	@Test
+	public void checkpointTest() throws Exception {
+		File snapshot = tempFile(".snapshot");
+		File logFile = tempFile(".log");
+		try (EventLog log = new EventLog(logFile, false)) {
+			Store store = loggedStore(log);
+			for (int i = 0; i < 100; i++) {
+				sellRice(store);
+			}
+
+			long before = log.size();
+			assertTrue(new Checkpointer(store, snapshot).Checkpoint() > 0);
+			assertTrue(log.size() < before);
+
+			for (int i = 0; i < 10; i++) {
+				sellRice(store);
+			}
+			log.commit();
+
+			Store recovered = recover(snapshot, logFile);
+			assertEquals("checkpointStore", recovered.getName());
+			assertEquals(store.getCapitalCents(), recovered.getCapitalCents());
+			assertEquals(store.getStock().toString(ToStringType.DETAILS), recovered.getStock().toString(ToStringType.DETAILS));
+		}
+	}
+
+	//Test 2: Test a snapshot saved without compacting the log (a crash between the two) doesn't apply any change twice
+	@Test
+	public void snapshotWithoutCompactionTest() throws Exception {
+		File snapshot = tempFile(".snapshot");
+		File logFile = tempFile(".log");
+		try (EventLog log = new EventLog(logFile, false)) {
+			Store store = loggedStore(log);
+			for (int i = 0; i < 5; i++) {
+				sellRice(store);
+			}
+			CatalogueSnapshot.Write(store, snapshot);
+			sellRice(store);
+			log.commit();
+
+			Store recovered = recover(snapshot, logFile);
+			assertEquals(store.getCapitalCents(), recovered.getCapitalCents());
+			assertEquals(1000000 - 6, recovered.getStock().getQuantity(recovered.getItem("rice")));
+		}
+	}
+
+	//Test 3: Test checkpoints taken while another thread is importing sales never lose or repeat a sale
+	@Test
+	public void checkpointWhileImportingTest() throws Exception {
+		File snapshot = tempFile(".snapshot");
+		File logFile = tempFile(".log");
+		try (EventLog log = new EventLog(logFile, false)) {
+			Store store = loggedStore(log);
+			Checkpointer checkpointer = new Checkpointer(store, snapshot);
+
+			Thread seller = new Thread(() -> {
+				try {
+					for (int i = 0; i < 20000; i++) {
+						sellRice(store);
+					}
+				} catch (StockException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			seller.start();
+			while (seller.isAlive()) {
+				checkpointer.Checkpoint();
+			}
+			seller.join();
+			log.commit();
+
+			Store recovered = recover(snapshot, logFile);
+			assertEquals(1000000 - 20000, recovered.getStock().getQuantity(recovered.getItem("rice")));
+			assertEquals(store.getCapitalCents(), recovered.getCapitalCents());
+		}
+	}
+
+	//Test 4: Test a periodic checkpoint that runs into a RuntimeException reports it, and keeps checkpointing
+	@Test
+	public void periodicErrorTest() throws Exception {
+		File snapshot = tempFile(".snapshot");
+		boolean[] broken = new boolean[1];
+		Stock inventory = new Stock() {
+			public synchronized Stock snapshot() {
+				if (broken[0]) {
+					throw new IllegalStateException("the stock can't be read");
+				}
+				return super.snapshot();
+			}
+		};
+		Store store = new Store("checkpointStore", 100, inventory);
+
+		try (Checkpointer checkpointer = new Checkpointer(store, snapshot)) {
+			synchronized (inventory) {
+				broken[0] = true;
+			}
+			checkpointer.start(5, TimeUnit.MILLISECONDS);
+			long deadline = System.currentTimeMillis() + 5000;
+			while (checkpointer.getLastError() == null && System.currentTimeMillis() < deadline) {
+				Thread.sleep(5);
+			}
+			assertTrue(checkpointer.getLastError() instanceof IllegalStateException);
+
+			//the schedule wasn't cancelled, so once the stock can be read again a checkpoint succeeds
+			synchronized (inventory) {
+				broken[0] = false;
+			}
+			while (checkpointer.getLastError() != null && System.currentTimeMillis() < deadline) {
+				Thread.sleep(5);
+			}
+			assertEquals(null, checkpointer.getLastError());
+		}
+	}
+}
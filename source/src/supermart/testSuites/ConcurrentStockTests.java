@@ -0,0 +1,216 @@
+package supermart.testSuites;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import supermart.SupermartEnums.ToStringType;
+import supermart.backEnd.ConcurrentStock;
+import supermart.backEnd.Item;
+import supermart.backEnd.Stock;
+import supermart.backEnd.StockListener;
+import supermart.backEnd.Store;
+import supermart.exceptions.DeliveryException;
+import supermart.exceptions.PartialDeltaException;
+import supermart.exceptions.StockException;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Tests for the thread safe ConcurrentStock
+ */
+public class ConcurrentStockTests {
+
+	Item testItem1 = new Item("testItem1", 20, 20, 2, 20);
+	Item testItem2 = new Item("testItem2", 20, 20, 2, 20);
+
+	//Test 1: Test a concurrent stock works the same as a normal stock for single threaded use
+	@Test
+	public void singleThreadTest() throws StockException {
+		Stock testStock = new ConcurrentStock();
+		testStock.addItem(testItem1);
+		testStock.SetQuantity(testItem1, 3);
+		testStock.addItem(testItem2);
+		testStock.AddQuantity(testItem2, 4);
+
+		assertEquals(7, testStock.size());
+		assertEquals(testItem2, testStock.getItem("testItem2"));
+		assertEquals("testItem1,3\ntestItem2,4", testStock.toString(ToStringType.NAME));
+
+		testStock.removeItem(testItem1);
+		assertEquals(4, testStock.size());
+		assertTrue(!(testStock.Contains("testItem1")));
+	}
+
+	//Test 2: Test ChangeQuantity refuses to take a quantity below 0
+	@Test(expected = StockException.class)
+	public void negativeQuantityTest() throws StockException {
+		Stock testStock = new ConcurrentStock();
+		testStock.addItem(testItem1);
+		testStock.ChangeQuantity(testItem1, 5);
+		testStock.ChangeQuantity(testItem1, -6);
+	}
+
+	//Test 3: Test quantity changes from several threads at once are all counted
+	@Test
+	public void parallelChangesTest() throws InterruptedException {
+		Stock testStock = new ConcurrentStock();
+		testStock.addItem(testItem1);
+		testStock.addItem(testItem2);
+
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					testStock.AddQuantity(testItem1, 1);
+					testStock.AddQuantity(testItem2, 2);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(40000, testStock.getQuantity(testItem1));
+		assertEquals(80000, testStock.getQuantity(testItem2));
+		assertEquals(120000, testStock.size());
+	}
+
+	//Test 4: Test a delta whose rollback is refused says which lines are still applied
+	@Test
+	public void partialRollbackTest() throws StockException {
+		Stock testStock = new ConcurrentStock();
+		testStock.addItem(testItem1);
+		testStock.addItem(testItem2);
+		Stock delta = new Stock();
+		delta.addItem(testItem1);
+		delta.AddQuantity(testItem1, 5);
+		delta.addItem(testItem2);
+		delta.AddQuantity(testItem2, 5);
+
+		//stands in for other threads: as soon as the first line is applied, its units are used up
+		//and the other item is removed, so the second line fails and the first can't be undone
+		Item[] first = new Item[1];
+		testStock.setListener(new StockListener() {
+			public void itemAdded(Item item) {
+			}
+
+			public void itemRemoved(Item item) {
+			}
+
+			public void quantityChanged(Item item, int quantity) {
+				if (first[0] != null) {
+					return;
+				}
+				first[0] = item;
+				try {
+					testStock.removeItem(item == testItem1 ? testItem2 : testItem1);
+					testStock.ChangeQuantity(item, -5);
+				} catch (StockException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		});
+
+		try {
+			testStock.applyDelta(delta, 1);
+			fail("the delta should have failed");
+		} catch (PartialDeltaException stockErr) {
+			assertTrue(stockErr.getMessage().contains("partly rolled back"));
+			assertTrue(stockErr.getMessage().contains(first[0].GetName() + " 5"));
+			assertEquals(5, stockErr.getApplied().getQuantity(first[0]));
+		}
+		assertEquals(0, testStock.getQuantity(first[0]));
+		assertEquals(1, testStock.CountUniqueItems());
+	}
+
+	//Test 5: Test a store's reorder list is right after several threads move items back and forth across their reorder points
+	@Test
+	public void reorderUnderContentionTest() throws InterruptedException {
+		Store testStore = new Store("testStore", 0, new ConcurrentStock());
+		Item[] items = new Item[8];
+		for (int i = 0; i < items.length; i++) {
+			items[i] = new Item("item" + i, 1, 2, 10, 20);
+			testStore.getStock().addItem(items[i]);
+			testStore.getStock().AddQuantity(items[i], 10);
+		}
+
+		//every thread changes every item, so most changes race with a change to the same item
+		//the quantities only ever stay between 5 and 15, so each change may or may not cross 10
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			int seed = t;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 20000; i++) {
+					Item item = items[(i + seed) % items.length];
+					int step = (i * 7 + seed) % 3 + 1;
+					testStore.getStock().AddQuantity(item, step);
+					testStore.getStock().AddQuantity(item, -step);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		//leave every other item above its reorder point
+		for (int i = 0; i < items.length; i += 2) {
+			testStore.getStock().AddQuantity(items[i], 1);
+		}
+		TreeSet<String> expected = new TreeSet<String>();
+		for (int i = 1; i < items.length; i += 2) {
+			expected.add(items[i].GetName());
+		}
+		TreeSet<String> ordered = new TreeSet<String>();
+		for (Item item : testStore.generateNewOrder()) {
+			ordered.add(item.GetName());
+		}
+		assertEquals(expected, ordered);
+	}
+
+	//Test 6: Test a store only pays for the lines of a delivery its stock couldn't roll back
+	@Test
+	public void partialDeliveryTest() throws StockException, DeliveryException {
+		Item rice = new Item("rice", 1, 2, 10, 20);
+		Item beans = new Item("beans", 4, 5, 10, 20);
+
+		//stands in for a delta whose second line failed after another thread used the first line's units
+		Stock testStock = new ConcurrentStock() {
+			@Override
+			public void applyDelta(Stock delta, int sign) throws StockException {
+				Item first = getItem("rice");
+				ChangeQuantity(first, sign * delta.getQuantity(first));
+				Stock left = new Stock();
+				left.addItem(first);
+				left.AddQuantity(first, delta.getQuantity(first));
+				throw new PartialDeltaException("the delta was only partly rolled back", left);
+			}
+		};
+		testStock.addItem(rice);
+		testStock.addItem(beans);
+		Store testStore = new Store("testStore", 100, testStock);
+
+		Stock delivery = new Stock();
+		delivery.addItem(rice);
+		delivery.AddQuantity(rice, 5);
+		delivery.addItem(beans);
+		delivery.AddQuantity(beans, 5);
+		try {
+			testStore.applyDelta(delivery, 1);
+			fail("the delivery should have failed");
+		} catch (PartialDeltaException e) {
+			//expected
+		}
+
+		//only the rice stayed delivered, so only the rice is paid for
+		assertEquals(10000 - 500, testStore.getCapitalCents());
+		assertEquals(5, testStore.getStock().getQuantity(rice));
+		assertEquals(0, testStore.getStock().getQuantity(beans));
+	}
+}
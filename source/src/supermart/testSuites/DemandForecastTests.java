@@ -0,0 +1,92 @@
+package supermart.testSuites;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import supermart.SupermartEnums.ReorderMode;
+import supermart.backEnd.DemandForecast;
+import supermart.backEnd.Item;
+import supermart.backEnd.SalesHistory;
+import supermart.backEnd.Stock;
+import supermart.backEnd.Store;
+import supermart.exceptions.StockException;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Tests for the smoothed DemandForecast and the store's forecast reorder mode
+ */
+public class DemandForecastTests {
+
+	//Test 1: Test an item selling the same amount every period is forecast to sell exactly that
+	@Test
+	public void steadyDemandTest() {
+		DemandForecast forecast = new DemandForecast(0.2, 1);
+		for (int i = 0; i < 5; i++) {
+			forecast.nextPeriod();
+			forecast.add(0, 10);
+		}
+		assertEquals(10, forecast.demand(0), 0.0001);
+		assertEquals(0, forecast.demand(1), 0.0001);
+	}
+
+	//Test 2: Test quiet periods decay the forecast, and rebuilding from the sales history gives the same forecast
+	@Test
+	public void idleDecayAndRefreshTest() {
+		DemandForecast forecast = new DemandForecast(0.2, 1);
+		SalesHistory history = new SalesHistory(8, 1);
+		forecast.nextPeriod();
+		history.nextPeriod();
+		forecast.add(0, 10);
+		history.add(0, 10);
+		for (int i = 0; i < 2; i++) {
+			forecast.nextPeriod();
+			history.nextPeriod();
+		}
+
+		//0.2 * 10 decayed through two quiet periods, over the bias correction for three periods
+		double expected = 2 * 0.8 * 0.8 / (1 - 0.8 * 0.8 * 0.8);
+		assertEquals(expected, forecast.demand(0), 0.0001);
+
+		DemandForecast rebuilt = new DemandForecast(0.2, 1);
+		rebuilt.refresh(history, 1);
+		assertEquals(expected, rebuilt.demand(0), 0.0001);
+	}
+
+	//Test 3: Test a store in forecast mode orders forecast demand, but always enough to get back above the reorder point
+	@Test
+	public void storeForecastReorderTest() throws StockException {
+		Stock stock = new Stock();
+		stock.addItem(new Item("rice", 1, 2, 50, 300));
+		stock.addItem(new Item("beans", 1, 2, 50, 300));
+		Store store = new Store("forecastStore", 0, stock);
+		Item rice = store.getItem("rice");
+		Item beans = store.getItem("beans");
+		store.getStock().AddQuantity(rice, 200);
+		store.getStock().AddQuantity(beans, 60);
+
+		//rice sells 30 a day and beans 1 a day, for five days
+		for (int day = 0; day < 5; day++) {
+			Stock sales = new Stock();
+			sales.addItem(rice);
+			sales.AddQuantity(rice, 30);
+			sales.addItem(beans);
+			sales.AddQuantity(beans, 1);
+			store.ImportSales(sales);
+		}
+
+		//rice is at 50 and beans at 55, so only rice needs reordering
+		assertEquals(300, store.getReorderQuantity(rice));
+		store.SetReorderMode(ReorderMode.FORECAST);
+		assertEquals(30 * Store.FORECAST_COVER, store.getReorderQuantity(rice));
+
+		//a week of beans is only 7, but the store needs 51 to be above its reorder point of 50
+		store.getStock().ChangeQuantity(beans, -55);
+		assertEquals(51, store.getReorderQuantity(beans));
+
+		//changing the smoothing rebuilds the forecast from the sales history
+		store.SetForecastSmoothing(0.5);
+		assertEquals(30, store.getDemandForecast().demand(rice.GetId()), 0.0001);
+	}
+}
@@ -0,0 +1,252 @@
+package supermart.testSuites;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+
+import org.junit.Test;
+
+import supermart.SupermartEnums.ToStringType;
+import supermart.backEnd.ConcurrentStock;
+import supermart.backEnd.EventLog;
+import supermart.backEnd.Item;
+import supermart.backEnd.Manifest;
+import supermart.backEnd.OrdinaryTruck;
+import supermart.backEnd.Stock;
+import supermart.backEnd.Store;
+import supermart.exceptions.DeliveryException;
+import supermart.exceptions.DryException;
+import supermart.exceptions.StockException;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Tests for recording a store's changes to an EventLog and replaying them
+ */
+public class EventLogTests {
+
+	Item rice = new Item("rice", 1.25, 2.5, 10, 20);
+	Item milk = new Item("milk", 3, 4.99, 1, 20, 3);
+
+	//makes a store, logs an import of items, a delivery, a sale and some capital changes, and closes the log
+	private Store logChanges(File file) throws IOException, StockException, DeliveryException, DryException {
+		Store store = new Store("loggedStore", 1000, new Stock());
+		try (EventLog log = new EventLog(file, true)) {
+			store.SetEventLog(log);
+
+			Stock items = new Stock();
+			items.addItem(rice);
+			items.addItem(milk);
+			store.ImportItems(items);
+
+			Stock cargo = new Stock();
+			cargo.addItem(store.getItem("rice"));
+			cargo.AddQuantity(store.getItem("rice"), 100);
+			Manifest manifest = new Manifest();
+			manifest.add(new OrdinaryTruck(cargo));
+			store.ImportManifest(manifest);
+
+			Stock sale = new Stock();
+			sale.addItem(store.getItem("rice"));
+			sale.AddQuantity(store.getItem("rice"), 30);
+			store.ImportSales(sale);
+
+			store.ChangeQuantity(store.getItem("milk"), 5);
+			store.ChangeCapital(-0.01);
+			store.SetEventLog(null);
+		}
+		return store;
+	}
+
+	//Test 1: Test replaying a log into an empty store rebuilds the store that wrote it
+	@Test
+	public void replayTest() throws Exception {
+		File file = File.createTempFile("supermart", ".log");
+		file.deleteOnExit();
+		Store store = logChanges(file);
+
+		Store replayed = new Store("replayedStore", 1000, new Stock());
+		assertEquals(5, EventLog.Replay(replayed, file));
+
+		assertEquals(store.getCapitalCents(), replayed.getCapitalCents());
+		assertEquals(store.getStock().toString(ToStringType.DETAILS), replayed.getStock().toString(ToStringType.DETAILS));
+		assertEquals(70, replayed.getStock().getQuantity(replayed.getItem("rice")));
+		assertEquals(5, replayed.getStock().getQuantity(replayed.getItem("milk")));
+	}
+
+	//Test 2: Test a record cut off part way through is dropped by replay, and cut off when the log is reopened
+	@Test
+	public void tornRecordTest() throws Exception {
+		File file = File.createTempFile("supermart", ".log");
+		file.deleteOnExit();
+		Store store = logChanges(file);
+
+		//cut the last record (the capital change) in half
+		long length = file.length();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(length - 4);
+		}
+
+		Store replayed = new Store("replayedStore", 1000, new Stock());
+		assertEquals(4, EventLog.Replay(replayed, file));
+		assertEquals(store.getCapitalCents() + 1, replayed.getCapitalCents());
+
+		//reopening the log drops the torn record, so new records follow on from the last whole one
+		try (EventLog log = new EventLog(file, false)) {
+			replayed.SetEventLog(log);
+			replayed.ChangeCapitalCents(-1);
+		}
+		Store again = new Store("againStore", 1000, new Stock());
+		assertEquals(5, EventLog.Replay(again, file));
+		assertEquals(store.getCapitalCents(), again.getCapitalCents());
+	}
+
+	//Test 3: Test resetting a log empties it
+	@Test
+	public void resetTest() throws Exception {
+		File file = File.createTempFile("supermart", ".log");
+		file.deleteOnExit();
+		Store store = new Store("loggedStore", 1000, new Stock());
+		try (EventLog log = new EventLog(file, false)) {
+			store.SetEventLog(log);
+			store.ChangeCapital(5);
+			log.Reset();
+			store.ChangeCapital(1);
+		}
+
+		Store replayed = new Store("replayedStore", 0, new Stock());
+		assertEquals(1, EventLog.Replay(replayed, file));
+		assertEquals(100, replayed.getCapitalCents());
+	}
+
+	//Test 4: Test changes made by several threads at once are logged in the order they were made, so the log replays
+	@Test
+	public void concurrentOrderTest() throws Exception {
+		File file = File.createTempFile("supermart", ".log");
+		file.deleteOnExit();
+		Store store = new Store("loggedStore", 0, new ConcurrentStock());
+		store.getStock().addItem(rice);
+
+		try (EventLog log = new EventLog(file, false)) {
+			store.SetEventLog(log);
+
+			//every unit added is taken away again, so the quantity only goes negative if
+			//a take is logged before the add it followed
+			Thread[] threads = new Thread[4];
+			for (int t = 0; t < threads.length; t++) {
+				int cents = t;
+				threads[t] = new Thread(() -> {
+					try {
+						for (int i = 0; i < 2000; i++) {
+							store.ChangeQuantity(rice, 1);
+							store.ChangeQuantity(rice, -1);
+							store.SetCapital(cents);
+						}
+					} catch (StockException e) {
+						throw new IllegalStateException(e);
+					}
+				});
+				threads[t].start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			store.SetEventLog(null);
+		}
+
+		Store replayed = new Store("replayedStore", 0, new Stock());
+		replayed.getStock().addItem(new Item("rice", 1.25, 2.5, 10, 20));
+		assertEquals(4 * 2000 * 3, EventLog.Replay(replayed, file));
+		assertEquals(0, replayed.getStock().getQuantity(replayed.getItem("rice")));
+		assertEquals(store.getCapitalCents(), replayed.getCapitalCents());
+	}
+
+	//Test 5: Test a log bigger than the window replay reads it through (with a record bigger than the window) replays in full
+	@Test
+	public void largeLogTest() throws Exception {
+		File file = File.createTempFile("supermart", ".log");
+		file.deleteOnExit();
+		Store store = new Store("loggedStore", 0, new Stock());
+
+		//one import of 30000 items is a single record of nearly 2MB
+		Stock items = new Stock();
+		for (int i = 0; i < 30000; i++) {
+			items.addItem(new Item("item number " + i + " with a long name", 1, 2, 0, 10));
+		}
+		try (EventLog log = new EventLog(file, false)) {
+			store.SetEventLog(log);
+			store.ImportItems(items);
+			for (int i = 0; i < 60000; i++) {
+				store.ChangeQuantity(store.getItem("item number " + (i % 30000) + " with a long name"), 1 + i % 3);
+			}
+			store.SetEventLog(null);
+		}
+
+		Store replayed = new Store("replayedStore", 0, new Stock());
+		assertEquals(60001, EventLog.Replay(replayed, file));
+		assertEquals(store.getStock().size(), replayed.getStock().size());
+		assertEquals(store.getStock().toString(ToStringType.NAME), replayed.getStock().toString(ToStringType.NAME));
+
+		//reopening the log finds its end through the same window
+		try (EventLog log = new EventLog(file, false)) {
+			assertEquals(file.length(), log.size());
+		}
+	}
+
+	//Test 6: Test a store whose log fails to write refuses every later change
+	@Test
+	public void failedLogTest() throws Exception {
+		File file = File.createTempFile("supermart", ".log");
+		file.deleteOnExit();
+		Store store = new Store("loggedStore", 0, new Stock());
+		store.getStock().addItem(rice);
+		EventLog log = new EventLog(file, true);
+		store.SetEventLog(log);
+		store.ChangeQuantity(rice, 1);
+
+		//closing the file under the log makes its next write fail
+		log.close();
+		try {
+			store.ChangeQuantity(rice, 5);
+			fail("a change that can't be written to the log should throw");
+		} catch (UncheckedIOException e) {
+			//the change was made, but the store was told it isn't in the log
+		}
+		assertEquals(6, store.getStock().getQuantity(rice));
+
+		try {
+			store.ChangeQuantity(rice, 10);
+			fail("a store with a failed log should refuse changes");
+		} catch (UncheckedIOException e) {
+			//expected
+		}
+		assertEquals(6, store.getStock().getQuantity(rice));
+	}
+
+	//Test 7: Test only imported sales logs add to the sales history when replayed, not sale deltas applied directly
+	@Test
+	public void salesHistoryReplayTest() throws Exception {
+		File file = File.createTempFile("supermart", ".log");
+		file.deleteOnExit();
+		Store store = logChanges(file);
+		try (EventLog log = new EventLog(file, true)) {
+			store.SetEventLog(log);
+			Stock sale = new Stock();
+			sale.addItem(store.getItem("rice"));
+			sale.AddQuantity(store.getItem("rice"), 10);
+			store.applyDelta(sale, -1);
+			store.SetEventLog(null);
+		}
+		assertEquals(1, store.getDemandForecast().getPeriod());
+
+		Store replayed = new Store("replayedStore", 1000, new Stock());
+		EventLog.Replay(replayed, file);
+		assertEquals(1, replayed.getDemandForecast().getPeriod());
+		assertEquals(store.getCapitalCents(), replayed.getCapitalCents());
+		assertEquals(60, replayed.getStock().getQuantity(replayed.getItem("rice")));
+	}
+}
@@ -0,0 +1,80 @@
+package supermart.testSuites;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import supermart.backEnd.InventoryAnalytics;
+import supermart.backEnd.InventoryReport;
+import supermart.backEnd.Item;
+import supermart.backEnd.OffHeapStock;
+import supermart.backEnd.Stock;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Tests for InventoryAnalytics and the InventoryReport it builds
+ */
+public class InventoryAnalyticsTests {
+
+	Item dryItem = new Item("dryItem", 1.50, 2.25, 10, 20);
+	Item coldItem = new Item("coldItem", 3, 4, 1, 20, -5);
+
+	//Test 1: Test every total on a small stock
+	@Test
+	public void totalsTest() {
+		Stock testStock = new Stock();
+		testStock.addItem(dryItem);
+		testStock.AddQuantity(dryItem, 4);
+		testStock.addItem(coldItem);
+		testStock.AddQuantity(coldItem, 10);
+
+		InventoryReport report = InventoryAnalytics.analyse(testStock);
+		assertEquals(2, report.getItems());
+		assertEquals(14, report.getUnits());
+		assertEquals(150 * 4 + 300 * 10, report.getCostValueCents());
+		assertEquals(225 * 4 + 400 * 10, report.getRetailValueCents());
+		assertEquals(300 + 1000, report.getMarginCents());
+		assertEquals(1, report.getItemsToReorder());
+		assertEquals(1, report.getColdItems());
+		assertEquals(10, report.getColdUnits());
+		assertEquals(1, report.getDryItems());
+		assertEquals(4, report.getDryUnits());
+		assertEquals(75, report.getUnitMarginCents("dryItem"));
+		assertEquals(100, report.getUnitMarginCents("coldItem"));
+	}
+
+	//Test 2: Test a stock big enough to be split across threads gives the same totals as adding it up by hand
+	@Test
+	public void parallelTest() {
+		Stock testStock = new Stock();
+		Stock offHeapStock = new OffHeapStock();
+		long units = 0;
+		long cost = 0;
+		for (int i = 0; i < 50000; i++) {
+			Item item = new Item("item" + i, i % 7, i % 11, 3, 0);
+			testStock.addItem(item);
+			testStock.AddQuantity(item, i % 5);
+			offHeapStock.addItem(item);
+			offHeapStock.AddQuantity(item, i % 5);
+			units += i % 5;
+			cost += (i % 7) * 100L * (i % 5);
+		}
+
+		InventoryReport report = InventoryAnalytics.analyse(testStock);
+		assertEquals(50000, report.getItems());
+		assertEquals(units, report.getUnits());
+		assertEquals(cost, report.getCostValueCents());
+
+		//every item's quantity is 0 - 4, so only the quantity 4 items (one in five) are above the reorder point of 3
+		assertEquals(40000, report.getItemsToReorder());
+
+		InventoryReport offHeapReport = InventoryAnalytics.analyse(offHeapStock);
+		assertEquals(units, offHeapReport.getUnits());
+		assertEquals(cost, offHeapReport.getCostValueCents());
+
+		//item12345 costs 12345 % 7 = 4 and sells for 12345 % 11 = 3
+		assertEquals(-100, report.getUnitMarginCents("item12345"));
+		assertEquals(-100, offHeapReport.getUnitMarginCents("item12345"));
+	}
+}
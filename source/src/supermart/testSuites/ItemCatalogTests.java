@@ -0,0 +1,99 @@
+package supermart.testSuites;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import supermart.SupermartEnums.ReorderMode;
+import supermart.backEnd.Item;
+import supermart.backEnd.ItemCatalog;
+import supermart.backEnd.Stock;
+import supermart.backEnd.Store;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Tests for the ItemCatalog
+ */
+public class ItemCatalogTests {
+
+	Item testItem1 = new Item("testItem1", 20, 20, 2, 20);
+	Item testItem2 = new Item("testItem2", 20, 20, 2, 20, 5);
+
+	//Test 1: Test that items are given dense IDs in the order they're interned, and can be found by ID
+	@Test
+	public void denseIdTest() {
+		ItemCatalog testCatalog = new ItemCatalog();
+		testCatalog.intern(testItem1);
+		testCatalog.intern(testItem2);
+
+		assertEquals(0, testItem1.GetId());
+		assertEquals(1, testItem2.GetId());
+		assertSame(testItem2, testCatalog.getItem(1));
+		assertEquals(2, testCatalog.size());
+	}
+
+	//Test 2: Test that interning an item with a name already in the catalogue returns the existing item
+	@Test
+	public void sameNameTest() {
+		ItemCatalog testCatalog = new ItemCatalog();
+		testCatalog.intern(testItem1);
+
+		Item duplicate = new Item("testItem1", 20, 20, 2, 20);
+		assertSame(testItem1, testCatalog.intern(duplicate));
+		assertEquals(-1, duplicate.GetId());
+		assertEquals(1, testCatalog.size());
+	}
+
+	//Test 3: Test that an item already in another catalogue is copied, rather than given a second ID
+	@Test
+	public void otherCatalogTest() {
+		ItemCatalog testCatalog1 = new ItemCatalog();
+		ItemCatalog testCatalog2 = new ItemCatalog();
+		testCatalog1.intern(testItem2);
+		testCatalog2.intern(testItem1);
+
+		Item copy = testCatalog2.intern(testItem2);
+		assertNotSame(testItem2, copy);
+		assertEquals(testItem2.toString(), copy.toString());
+		assertEquals(0, testItem2.GetId());
+		assertEquals(1, copy.GetId());
+	}
+
+	//Test 4: Test that importing the same items twice into a store reuses the first items
+	@Test
+	public void reimportTest() {
+		Store testStore = new Store("testStore", 100, new Stock());
+
+		Stock firstImport = new Stock();
+		firstImport.addItem(testItem1);
+		testStore.ImportItems(firstImport);
+
+		Stock secondImport = new Stock();
+		secondImport.addItem(new Item("testItem1", 20, 20, 2, 20));
+		testStore.ImportItems(secondImport);
+
+		assertEquals(1, testStore.getStock().CountUniqueItems());
+		assertEquals(1, testStore.getCatalog().size());
+		assertSame(testItem1, testStore.getItem("testItem1"));
+	}
+
+	//Test 5: Test that an item added straight to a store's stock is catalogued, and reading a reorder quantity never catalogues an item
+	@Test
+	public void stockFollowsCatalogueTest() {
+		Store testStore = new Store("testStore", 100, new Stock());
+		testStore.getStock().addItem(testItem1);
+		assertSame(testItem1, testStore.getCatalog().getItem("testItem1"));
+
+		testStore.SetReorderMode(ReorderMode.FORECAST);
+		try {
+			testStore.getReorderQuantity(testItem2);
+			fail("an item the store doesn't know should be refused");
+		} catch (IllegalArgumentException e) {
+			assertEquals(1, testStore.getCatalog().size());
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package supermart.testSuites;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import supermart.backEnd.Item;
+import supermart.backEnd.ItemCatalog;
+import supermart.backEnd.ItemTable;
+import supermart.backEnd.Stock;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Tests for the ItemTable kept by an ItemCatalog
+ */
+public class ItemTableTests {
+
+	Item testItem1 = new Item("testItem1", 2, 5, 10, 20);
+	Item testItem2 = new Item("testItem2", 3, 4, 1, 20, -5);
+
+	//Test 1: Test that each item's details are stored in the row at its ID
+	@Test
+	public void rowTest() {
+		ItemCatalog testCatalog = new ItemCatalog();
+		testCatalog.intern(testItem1);
+		testCatalog.intern(testItem2);
+
+		ItemTable table = testCatalog.getTable();
+		assertEquals(2, table.size());
+		assertEquals("testItem2", table.getName(testItem2.GetId()));
+		assertEquals(3, table.getCost(testItem2.GetId()), 0);
+		assertEquals(-5, table.getTemperature(testItem2.GetId()), 0);
+		assertTrue(table.isDry(testItem1.GetId()));
+		assertTrue(Double.isNaN(table.getTemperature(testItem1.GetId())));
+	}
+
+	//Test 2: Test the bulk sums over a stock's quantities
+	@Test
+	public void bulkTest() {
+		ItemCatalog testCatalog = new ItemCatalog();
+		testCatalog.intern(testItem1);
+		testCatalog.intern(testItem2);
+
+		Stock testStock = new Stock();
+		testStock.addItem(testItem1);
+		testStock.AddQuantity(testItem1, 4);
+		testStock.addItem(testItem2);
+		testStock.AddQuantity(testItem2, 10);
+
+		int[] quantities = testCatalog.quantitiesOf(testStock);
+		ItemTable table = testCatalog.getTable();
+		assertEquals(2 * 4 + 3 * 10, table.stockValue(quantities), 0);
+		assertEquals(5 * 4 + 4 * 10, table.retailValue(quantities), 0);
+
+		//only testItem1 is at or below its reorder point
+		assertEquals(1, table.countToReorder(quantities));
+	}
+}
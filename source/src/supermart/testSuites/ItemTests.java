@@ -407,4 +407,55 @@ public class ItemTests {
 		assertNull(item.GetSafeTemperature());
 		
 	}
+	
+	// ----------------------------------------
+	// Test twelve: check hasTemperature and temperature on cold and dry items
+	// ----------------------------------------
+	@Test
+	public void checkTemperatureAccessors() {
+		
+		double temperature = randTemp();
+		
+		Item coldItem = new Item(	"ice cream", randDouble(), randDouble(), 
+									randInt(), randInt(), temperature);
+		Item dryItem = new Item(	"Beans", randDouble(), randDouble(),
+									randInt(), randInt());
+		
+		assertTrue(coldItem.hasTemperature());
+		assertEquals(temperature, coldItem.temperature(), 0);
+		
+		//a dry item has no temperature, and temperature() returns NaN instead of throwing
+		assertTrue(!dryItem.hasTemperature());
+		assertTrue(Double.isNaN(dryItem.temperature()));
+	}
+	
+	// ----------------------------------------
+	// Test thirteen: check the DryException from GetTemperature is built without a stack trace
+	// ----------------------------------------
+	@Test
+	public void checkDryExceptionStackless() {
+		
+		Item dryItem = new Item(	"Beans", randDouble(), randDouble(),
+									randInt(), randInt());
+		
+		try {
+			dryItem.GetTemperature();
+			fail("DryException wasn't tripped, test failed");
+		} catch (DryException dry) {
+			assertEquals(0, dry.getStackTrace().length);
+			assertTrue(dry.getMessage().contains("Beans"));
+		}
+	}
+	
+	// ----------------------------------------
+	// Test fourteen: check a DryException built the default way still has its stack trace and records suppressed exceptions
+	// ----------------------------------------
+	@Test
+	public void checkDryExceptionDefault() {
+		
+		DryException dry = new DryException();
+		dry.addSuppressed(new IllegalStateException());
+		assertTrue(dry.getStackTrace().length > 0);
+		assertEquals(1, dry.getSuppressed().length);
+	}
 }
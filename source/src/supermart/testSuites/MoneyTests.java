@@ -0,0 +1,42 @@
+package supermart.testSuites;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import supermart.backEnd.Money;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Tests for the fixed point Money methods
+ */
+public class MoneyTests {
+
+	//Test 1: Test dollars are converted to the nearest cent and back
+	@Test
+	public void conversionTest() {
+		assertEquals(1234, Money.fromDollars(12.34));
+		assertEquals(10, Money.fromDollars(0.1));
+		assertEquals(-5, Money.fromDollars(-0.049));
+		assertEquals(12.34, Money.toDollars(1234), 0);
+	}
+
+	//Test 2: Test ten cents added a million times is exactly $100,000
+	@Test
+	public void exactSumTest() {
+		long total = 0;
+		for (int i = 0; i < 1000000; i++) {
+			total = Money.add(total, Money.fromDollars(0.1));
+		}
+		assertEquals(10000000, total);
+		assertEquals("100000.00", Money.format(total));
+		assertEquals("-0.05", Money.format(-5));
+	}
+
+	//Test 3: Test overflowing arithmetic throws instead of wrapping around
+	@Test(expected = ArithmeticException.class)
+	public void overflowTest() {
+		Money.multiply(Long.MAX_VALUE / 2, 3);
+	}
+}
@@ -0,0 +1,138 @@
+package supermart.testSuites;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import supermart.SupermartEnums.ToStringType;
+import supermart.backEnd.Item;
+import supermart.backEnd.OffHeapStock;
+import supermart.backEnd.Stock;
+import supermart.exceptions.StockException;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Tests for the off-heap OffHeapStock
+ */
+public class OffHeapStockTests {
+
+	Item testItem1 = new Item("testItem1", 20, 21, 2, 20);
+	Item testItem2 = new Item("testItem2", 20, 21, 2, 20, -5);
+
+	//Test 1: Test an off-heap stock works the same as a normal stock, and gives back the item's details
+	@Test
+	public void sameAsStockTest() throws StockException {
+		Stock testStock = new OffHeapStock();
+		testStock.addItem(testItem2);
+		testStock.addItem(testItem1);
+		testStock.SetQuantity(testItem1, 3);
+		testStock.AddQuantity(testItem2, 4);
+
+		assertEquals(7, testStock.size());
+		assertEquals("testItem1,3\ntestItem2,4", testStock.toString(ToStringType.NAME));
+		assertEquals(testItem2.toString(), testStock.getItem("testItem2").toString());
+		assertEquals(-5, testStock.getLowestTemp(), 0);
+
+		testStock.removeItem(testItem1);
+		assertEquals(4, testStock.size());
+		assertTrue(!(testStock.Contains("testItem1")));
+		assertNull(testStock.getItem("testItem1"));
+	}
+
+	//Test 2: Test ChangeQuantity refuses to take a quantity below 0
+	@Test(expected = StockException.class)
+	public void negativeQuantityTest() throws StockException {
+		Stock testStock = new OffHeapStock();
+		testStock.addItem(testItem1);
+		testStock.ChangeQuantity(testItem1, 5);
+		testStock.ChangeQuantity(testItem1, -6);
+	}
+
+	//Test 3: Test that thousands of items can be added and removed, with every quantity kept in the right slot
+	@Test
+	public void manyItemsTest() {
+		Stock testStock = new OffHeapStock();
+		Item[] items = new Item[5000];
+		for (int i = 0; i < items.length; i++) {
+			items[i] = new Item("item" + i, 1, 2, 0, 0);
+			testStock.addItem(items[i]);
+			testStock.AddQuantity(items[i], i);
+		}
+
+		//remove every even item
+		for (int i = 0; i < items.length; i += 2) {
+			assertTrue(testStock.removeItem(items[i]));
+		}
+
+		assertEquals(2500, testStock.CountUniqueItems());
+		for (int i = 1; i < items.length; i += 2) {
+			assertEquals(i, testStock.getQuantity(items[i]));
+		}
+		assertTrue(!(testStock.Contains("item0")));
+	}
+
+	//Test 4: Test that a snapshot doesn't change with the stock, and can't be changed itself
+	@Test(expected = UnsupportedOperationException.class)
+	public void snapshotTest() throws StockException {
+		Stock testStock = new OffHeapStock();
+		testStock.addItem(testItem1);
+		testStock.SetQuantity(testItem1, 5);
+
+		Stock snapshot = testStock.snapshot();
+		testStock.SetQuantity(testItem1, 1);
+
+		assertEquals(5, snapshot.getQuantity(testItem1));
+		snapshot.AddQuantity(testItem1, 1);
+	}
+
+	//Test 5: Test an item's cost and price come back from the stock in the same whole cents they went in as
+	@Test
+	public void centsTest() {
+		Stock testStock = new OffHeapStock();
+		Item item = new Item("cents", 0.1 + 0.2, 19.99, 5, 10);
+		testStock.addItem(item);
+
+		Item copy = testStock.getItem("cents");
+		assertEquals(item.GetCostCents(), copy.GetCostCents());
+		assertEquals(1999, copy.GetPriceCents());
+	}
+
+	//Test 6: Test the coldest temperature and the name order stay right as items are added and removed in any order
+	@Test
+	public void coldestAndOrderTest() {
+		Stock offHeap = new OffHeapStock();
+		Stock expected = new Stock();
+		Random random = new Random(7);
+		Item[] items = new Item[500];
+		for (int i = 0; i < items.length; i++) {
+			String name = "item" + random.nextInt(100000) + "-" + i;
+			items[i] = i % 3 == 0 ? new Item(name, 1, 2, 5, 10)
+					: new Item(name, 1, 2, 5, 10, random.nextInt(400) / 10.0 - 20);
+			offHeap.addItem(items[i]);
+			expected.addItem(items[i]);
+		}
+		for (int round = 0; round < 2; round++) {
+			for (int i = round; i < items.length; i += 3) {
+				offHeap.removeItem(items[i]);
+				expected.removeItem(items[i]);
+				assertEquals(expected.getLowestTemp(), offHeap.getLowestTemp(), 0);
+			}
+
+			ArrayList<String> names = new ArrayList<String>();
+			for (Item item : offHeap.orderedItems()) {
+				names.add(item.GetName());
+			}
+			ArrayList<String> expectedNames = new ArrayList<String>();
+			for (Item item : expected.orderedItems()) {
+				expectedNames.add(item.GetName());
+			}
+			assertEquals(expectedNames, names);
+		}
+	}
+}
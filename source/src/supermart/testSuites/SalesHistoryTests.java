@@ -0,0 +1,93 @@
+package supermart.testSuites;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import supermart.backEnd.Item;
+import supermart.backEnd.SalesHistory;
+import supermart.backEnd.Stock;
+import supermart.backEnd.Store;
+import supermart.exceptions.StockException;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Tests for the per item SalesHistory kept by a store
+ */
+public class SalesHistoryTests {
+
+	//Test 1: Test units sold are kept per period, and sums and averages cover only the periods asked for
+	@Test
+	public void rollingSumTest() {
+		SalesHistory history = new SalesHistory(4, 2);
+		for (int units = 1; units <= 3; units++) {
+			history.nextPeriod();
+			history.add(0, units);
+			history.add(0, units);
+		}
+
+		assertEquals(6, history.unitsSold(0, 0));
+		assertEquals(2, history.unitsSold(0, 2));
+		assertEquals(0, history.unitsSold(0, 3));
+		assertEquals(10, history.sum(0, 2));
+		assertEquals(12, history.sum(0, 10));
+
+		//only 3 periods have passed, so averaging over 4 averages over 3
+		assertEquals(4.0, history.average(0, 4), 0.0001);
+		assertEquals(0, history.sum(1, 4));
+	}
+
+	//Test 2: Test old periods fall out of the ring, and periods an item sold nothing in read as 0
+	@Test
+	public void wrapAroundTest() {
+		SalesHistory history = new SalesHistory(3, 1);
+		history.nextPeriod();
+		history.add(0, 100);
+
+		//two quiet periods, then a sale, then a whole lap of quiet periods
+		history.nextPeriod();
+		history.nextPeriod();
+		history.nextPeriod();
+		history.add(0, 5);
+		assertEquals(5, history.sum(0, 3));
+		assertEquals(0, history.unitsSold(0, 1));
+
+		history.nextPeriod();
+		history.nextPeriod();
+		history.nextPeriod();
+		history.add(0, 1);
+		assertEquals(1, history.sum(0, 3));
+
+		//an item ID past the first allocation grows the buffers
+		history.add(40, 7);
+		assertEquals(7, history.unitsSold(40, 0));
+		assertEquals(0, history.sum(39, 3));
+	}
+
+	//Test 3: Test each sales log imported into a store is one period of its history
+	@Test
+	public void storeImportSalesTest() throws StockException {
+		Stock stock = new Stock();
+		stock.addItem(new Item("rice", 1, 2, 10, 20));
+		stock.addItem(new Item("beans", 1, 2, 10, 20));
+		Store store = new Store("historyStore", 0, stock);
+		store.getStock().AddQuantity(store.getItem("rice"), 100);
+		store.getStock().AddQuantity(store.getItem("beans"), 100);
+
+		for (int day = 1; day <= 3; day++) {
+			Stock sales = new Stock();
+			sales.addItem(store.getItem("rice"));
+			sales.AddQuantity(store.getItem("rice"), day);
+			store.ImportSales(sales);
+		}
+
+		SalesHistory history = store.getSalesHistory();
+		int rice = store.getItem("rice").GetId();
+		int beans = store.getItem("beans").GetId();
+		assertEquals(3, history.getPeriod());
+		assertEquals(3, history.unitsSold(rice, 0));
+		assertEquals(6, history.sum(rice, Store.SALES_PERIODS));
+		assertEquals(0, history.sum(beans, Store.SALES_PERIODS));
+	}
+}
@@ -2,8 +2,11 @@ package supermart.testSuites;
 
 import static org.junit.Assert.assertEquals; 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -428,4 +431,167 @@ public class StockTests {
 		testStock.AddQuantity(testItem1, 1);
 		assertEquals(true, testStock.Contains(testItem1));
 	}
+	
+	//Test 26: Test that removing an item also removes it from the name lookups
+	@Test
+	public void removeItemByNameTest() {
+		Stock testStock = new Stock();
+		testStock.addItem(testItem1);
+		testStock.addItem(testItem2);
+		
+		testStock.removeItem(testItem1);
+		
+		//testItem1 can no longer be found by its name, testItem2 still can
+		assertTrue(!(testStock.Contains("testItem1")));
+		assertNull(testStock.getItem("testItem1"));
+		assertEquals(testItem2, testStock.getItem("testItem2"));
+	}
+	
+	//Test 27: Test that addItem returns false for a different item with a name already in the stock
+	@Test
+	public void addItemSameNameTest() {
+		Stock testStock = new Stock();
+		Item duplicateItem = new Item("testItem1", 5, 10, 2, 20);
+		
+		testStock.addItem(testItem1);
+		
+		assertTrue(!(testStock.addItem(duplicateItem)));
+		assertEquals(testItem1, testStock.getItem("testItem1"));
+	}
+	
+	//Test 28: Test quantities stay correct when lots of items are added and removed
+	//(enough items to make the stock grow its table several times over)
+	@Test
+	public void manyItemsAddRemoveTest() {
+		Stock testStock = new Stock();
+		Item[] items = new Item[500];
+		
+		for (int i = 0; i < items.length; i++) {
+			items[i] = new Item("item" + i, 1, 2, 3, 4);
+			testStock.addItem(items[i]);
+			testStock.AddQuantity(items[i], i);
+		}
+		
+		//remove every even item
+		for (int i = 0; i < items.length; i += 2) {
+			assertTrue(testStock.removeItem(items[i]));
+		}
+		
+		assertEquals(250, testStock.CountUniqueItems());
+		for (int i = 0; i < items.length; i++) {
+			if (i % 2 == 0) {
+				assertTrue(!(testStock.Contains(items[i])));
+			} else {
+				assertEquals(i, testStock.getQuantity(items[i]));
+			}
+		}
+	}
+	
+	//Test 29: Test that size keeps track of quantities being set, added to and removed
+	@Test
+	public void sizeAfterChangesTest() throws StockException {
+		Stock testStock = new Stock();
+		testStock.addItem(testItem1);
+		testStock.AddQuantity(testItem1, 5);
+		testStock.addItem(testItem2);
+		testStock.SetQuantity(testItem2, 7);
+		
+		//setting testItem1 down from 5 to 2, then removing testItem2 (7) leaves only 2
+		testStock.SetQuantity(testItem1, 2);
+		testStock.removeItem(testItem2);
+		
+		//a failed AddQuantity shouldn't change the size
+		testStock.AddQuantity(testItem1, -10);
+		
+		assertEquals(2, testStock.size());
+	}
+	
+	//Test 30: Test writeTo writes the same text as toString into a writer
+	@Test
+	public void writeToTest() throws IOException {
+		Stock testStock = new Stock();
+		testStock.addItem(testItem2);
+		testStock.AddQuantity(testItem2, 2);
+		testStock.addItem(testItem1);
+		testStock.AddQuantity(testItem1, 1);
+		
+		StringWriter writer = new StringWriter();
+		testStock.writeTo(writer, ToStringType.NAME);
+		
+		assertEquals("testItem1,1\ntestItem2,2", writer.toString());
+	}
+	
+	//Test 31: Test that a snapshot keeps the stock as it was, while the stock keeps changing
+	@Test
+	public void snapshotTest() throws StockException {
+		Stock testStock = new Stock();
+		testStock.addItem(testItem1);
+		testStock.SetQuantity(testItem1, 5);
+		
+		Stock snapshot = testStock.snapshot();
+		
+		//change the stock after the snapshot has been taken
+		testStock.SetQuantity(testItem1, 1);
+		testStock.addItem(testItem2);
+		testStock.AddQuantity(testItem2, 3);
+		
+		assertEquals(5, snapshot.getQuantity(testItem1));
+		assertEquals(5, snapshot.size());
+		assertTrue(!(snapshot.Contains(testItem2)));
+		
+		assertEquals(1, testStock.getQuantity(testItem1));
+		assertEquals(4, testStock.size());
+	}
+	
+	//Test 32: Test that a snapshot can't be changed
+	@Test(expected = UnsupportedOperationException.class)
+	public void snapshotReadOnlyTest() {
+		Stock testStock = new Stock();
+		testStock.addItem(testItem1);
+		
+		testStock.snapshot().AddQuantity(testItem1, 1);
+	}
+	
+	//Test 33: Test that orderedItems lists items by name, whatever order they were added or removed in
+	@Test
+	public void orderedItemsTest() {
+		Stock testStock = new Stock();
+		testStock.addItem(testItem3);
+		testStock.addItem(testItem1);
+		testStock.addItem(testItem2);
+		testStock.removeItem(testItem3);
+		
+		ArrayList<Item> expected = new ArrayList<Item>();
+		expected.add(testItem1);
+		expected.add(testItem2);
+		
+		assertEquals(expected, new ArrayList<Item>(testStock.orderedItems()));
+	}
+	
+	//Test 34: Test that getLowestTemp follows the coldest item as cold items are removed, and is infinite with no cold items
+	@Test
+	public void lowestTempAfterRemoveTest() {
+		Stock testStock = new Stock();
+		Item coldItem1 = new Item("coldItem1", 20, 20, 2, 20, 5);
+		Item coldItem2 = new Item("coldItem2", 20, 20, 2, 20, -5);
+		Item coldItem3 = new Item("coldItem3", 20, 20, 2, 20, -5);
+		
+		testStock.addItem(testItem1);
+		assertEquals(Double.POSITIVE_INFINITY, testStock.getLowestTemp(), 0);
+		
+		testStock.addItem(coldItem1);
+		testStock.addItem(coldItem2);
+		testStock.addItem(coldItem3);
+		assertEquals(-5, testStock.getLowestTemp(), 0);
+		
+		//another item still needs -5
+		testStock.removeItem(coldItem2);
+		assertEquals(-5, testStock.getLowestTemp(), 0);
+		
+		testStock.removeItem(coldItem3);
+		assertEquals(5, testStock.getLowestTemp(), 0);
+		
+		testStock.removeItem(coldItem1);
+		assertEquals(Double.POSITIVE_INFINITY, testStock.getLowestTemp(), 0);
+	}
 }
@@ -0,0 +1,121 @@
+package supermart.testSuites;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+
+import supermart.backEnd.Item;
+import supermart.backEnd.Stock;
+import supermart.backEnd.Store;
+import supermart.backEnd.StoreRegistry;
+import supermart.exceptions.StockException;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Tests for running many stores in one StoreRegistry
+ */
+public class StoreRegistryTests {
+
+	//Test 1: Test sales imported into many stores at once all land in the right store
+	@Test
+	public void parallelImportsTest() throws Exception {
+		try (StoreRegistry registry = new StoreRegistry(4)) {
+
+			//100 stores, each stocking 1000 rice
+			for (int i = 0; i < 100; i++) {
+				Store store = registry.register("store" + i, 0, 1);
+				Stock items = new Stock();
+				items.addItem(new Item("rice", 1, 2, 10, 20));
+				store.ImportItems(items);
+				store.getStock().AddQuantity(store.getItem("rice"), 1000);
+			}
+
+			//store i sells i rice, one at a time
+			ArrayList<CompletableFuture<Void>> imports = new ArrayList<CompletableFuture<Void>>();
+			for (int i = 0; i < 100; i++) {
+				Store store = registry.getStore("store" + i);
+				Stock sale = new Stock();
+				sale.addItem(store.getItem("rice"));
+				sale.AddQuantity(store.getItem("rice"), 1);
+				for (int n = 0; n < i; n++) {
+					imports.add(registry.ImportSales("store" + i, sale));
+				}
+			}
+			CompletableFuture.allOf(imports.toArray(new CompletableFuture<?>[0])).get();
+
+			for (int i = 0; i < 100; i++) {
+				Store store = registry.getStore("store" + i);
+				assertEquals(1000 - i, store.getStock().getQuantity(store.getItem("rice")));
+				assertEquals(200 * i, store.getCapitalCents());
+			}
+			assertEquals(100, registry.size());
+		}
+	}
+
+	//Test 2: Test a store's tasks run in order on its partition's thread, and a failed import is passed back
+	@Test
+	public void partitionTest() throws Exception {
+		try (StoreRegistry registry = new StoreRegistry(3)) {
+			registry.register("north", 100, 16);
+
+			String thread = registry.submit("north", store -> Thread.currentThread().getName()).get();
+			assertEquals("supermart-partition-" + registry.partitionOf("north"), thread);
+
+			//capital changes submitted one after another are applied in order
+			for (int i = 0; i < 1000; i++) {
+				registry.submit("north", store -> {
+					store.ChangeCapitalCents(1);
+					return null;
+				});
+			}
+			assertEquals(10000 + 1000, (long) registry.submit("north", Store::getCapitalCents).get());
+
+			//selling an item the store doesn't have fails with a StockException
+			Stock sale = new Stock();
+			Item missing = new Item("missing", 1, 2, 10, 20);
+			sale.addItem(missing);
+			sale.AddQuantity(missing, 1);
+			try {
+				registry.ImportSales("north", sale).get();
+				fail("selling an item the store doesn't have should fail");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof StockException);
+			}
+		}
+	}
+
+	//Test 3: Test a store ID can only be registered once
+	@Test(expected = IllegalArgumentException.class)
+	public void duplicateIdTest() {
+		try (StoreRegistry registry = new StoreRegistry(1)) {
+			registry.register("north", 100, 16);
+			registry.register("north", 100, 16);
+		}
+	}
+
+	//Test 4: Test a task that throws an Error still completes its future
+	@Test
+	public void errorCompletesFutureTest() throws InterruptedException, ExecutionException {
+		try (StoreRegistry registry = new StoreRegistry(1)) {
+			registry.register("north", 100, 16);
+			try {
+				registry.submit("north", store -> {
+					throw new AssertionError("broken task");
+				}).get();
+				fail("a task that throws should fail its future");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof AssertionError);
+			}
+
+			//the partition keeps running tasks afterwards
+			assertEquals("north", registry.submit("north", Store::getName).get());
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package supermart.testSuites;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import supermart.StoreSimulation;
+import supermart.StoreSimulation.DayReport;
+import supermart.backEnd.Item;
+import supermart.backEnd.Stock;
+import supermart.backEnd.Store;
+import supermart.exceptions.StockException;
+
+/**
+ * @author Zaine Ashe - 09469010
+ *
+ * Tests for simulating days of trading with a StoreSimulation
+ */
+public class StoreSimulationTests {
+
+	//builds a store stocking 100 of each of a few dry and cold items
+	private static Store newStore() {
+		return newStore(100000);
+	}
+
+	//builds the same store with the given capital, in dollars
+	private static Store newStore(double capital) {
+		Stock stock = new Stock();
+		stock.addItem(new Item("rice", 1, 2, 30, 100));
+		stock.addItem(new Item("beans", 4, 5, 30, 100));
+		stock.addItem(new Item("ice cream", 6, 12, 30, 100, -5));
+		stock.addItem(new Item("beef", 10, 12, 30, 100, 5));
+		Store store = new Store("simulatedStore", capital, stock);
+		for (Item item : store.getStock().keySet()) {
+			store.getStock().AddQuantity(item, 100);
+		}
+		return store;
+	}
+
+	//Test 1: Test the same store and seed always simulate the same days
+	@Test
+	public void seededTest() throws StockException {
+		ArrayList<DayReport> first = new StoreSimulation(newStore(), 7, 20).run(200);
+		ArrayList<DayReport> second = new StoreSimulation(newStore(), 7, 20).run(200);
+		for (int i = 0; i < 200; i++) {
+			assertEquals(first.get(i).toString(), second.get(i).toString());
+		}
+		assertEquals(200, first.get(199).getDay());
+	}
+
+	//Test 2: Test an item with no stock is a stock-out, and is delivered (and paid for) the next day
+	@Test
+	public void stockOutTest() throws StockException {
+		Store store = newStore();
+		store.getStock().SetQuantity(store.getItem("rice"), 0);
+		StoreSimulation simulation = new StoreSimulation(store, 11, 0);
+		simulation.SetMeanDemand("rice", 5);
+
+		DayReport first = simulation.runDay();
+		assertEquals(0, first.getUnitsSold());
+		assertEquals(first.getUnitsShort() > 0 ? 1 : 0, first.getStockOuts());
+		assertEquals(0, first.getTrucks());
+
+		DayReport second = simulation.runDay();
+		assertEquals(1, second.getTrucks());
+		assertTrue(second.getTruckSpendCents() > 0);
+		assertEquals(second.getCapitalCents(), store.getCapitalCents());
+		assertEquals(2, simulation.getSaleLines() / 4);
+	}
+
+	//Test 3: Test an item isn't ordered again while its delivery is on the way
+	@Test
+	public void leadTimeTest() throws StockException {
+		Store store = newStore();
+		store.getStock().SetQuantity(store.getItem("rice"), 0);
+		StoreSimulation simulation = new StoreSimulation(store, 3, 0);
+		simulation.SetMeanDemand("rice", 10);
+		simulation.SetLeadTime(3);
+
+		//rice is ordered on day 1, and stays out of stock until its order arrives on day 4
+		int trucks = 0;
+		for (DayReport day : simulation.run(4)) {
+			trucks += day.getTrucks();
+			assertEquals(day.getDay() == 4 ? 1 : 0, day.getTrucks());
+		}
+		assertEquals(1, trucks);
+	}
+
+	//Test 4: Test shortening the lead time while an order is on the way lets a later order arrive first
+	@Test
+	public void shortenedLeadTimeTest() throws StockException {
+		Store store = newStore();
+		store.getStock().SetQuantity(store.getItem("rice"), 0);
+		StoreSimulation simulation = new StoreSimulation(store, 5, 0);
+		simulation.SetLeadTime(5);
+
+		//rice is ordered on day 1 to arrive on day 6, then beans on day 2 to arrive on day 3
+		assertEquals(0, simulation.runDay().getTrucks());
+		store.getStock().SetQuantity(store.getItem("beans"), 0);
+		simulation.SetLeadTime(1);
+		assertEquals(0, simulation.runDay().getTrucks());
+		assertEquals(1, simulation.runDay().getTrucks());
+		assertTrue(store.getStock().getQuantity(store.getItem("beans")) > 0);
+		assertEquals(0, store.getStock().getQuantity(store.getItem("rice")));
+
+		assertEquals(0, simulation.runDay().getTrucks());
+		assertEquals(0, simulation.runDay().getTrucks());
+		assertEquals(1, simulation.runDay().getTrucks());
+		assertTrue(store.getStock().getQuantity(store.getItem("rice")) > 0);
+	}
+
+	//Test 5: Test a delivery the store can't afford is refused and counted as a failed order, and an overdrawn store is reported
+	@Test
+	public void unaffordableDeliveryTest() throws StockException {
+		Store store = newStore(1);
+		store.getStock().SetQuantity(store.getItem("rice"), 0);
+		StoreSimulation simulation = new StoreSimulation(store, 13, 0);
+
+		simulation.runDay();
+		DayReport refused = simulation.runDay();
+		assertEquals(0, refused.getTrucks());
+		assertEquals(1, refused.getFailedOrders());
+		assertEquals(100, refused.getCapitalCents());
+		assertFalse(refused.isOverdrawn());
+		assertEquals(0, store.getStock().getQuantity(store.getItem("rice")));
+
+		DayReport overdrawn = new StoreSimulation(newStore(-5), 13, 0).runDay();
+		assertTrue(overdrawn.isOverdrawn());
+		assertTrue(overdrawn.toString().endsWith(", overdrawn"));
+	}
+
+	//Test 6: Test an item added to the store after the simulation was built isn't simulated or ordered
+	@Test
+	public void addedItemTest() throws StockException {
+		Store store = newStore();
+		StoreSimulation simulation = new StoreSimulation(store, 17, 0);
+		Stock added = new Stock();
+		added.addItem(new Item("salt", 1, 2, 30, 100));
+		store.ImportItems(added);
+
+		for (DayReport day : simulation.run(3)) {
+			assertEquals(0, day.getTrucks());
+			assertEquals(0, day.getFailedOrders());
+		}
+		assertEquals(0, store.getStock().getQuantity(store.getItem("salt")));
+	}
+}
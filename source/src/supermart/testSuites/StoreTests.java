@@ -9,6 +9,7 @@ import org.junit.Test;
 import supermart.SupermartEnums.ToStringType;
 import supermart.backEnd.Item;
 import supermart.backEnd.Manifest;
+import supermart.backEnd.Money;
 import supermart.backEnd.OrdinaryTruck;
 import supermart.backEnd.RefrigeratedTruck;
 import supermart.backEnd.Stock;
@@ -27,7 +28,7 @@ import static org.junit.Assert.assertEquals;
  * See REFACTOR CHANGES in comments below for details
  * <p>
  * Tests 1 - 13 by Harrison
- * Tests 14, 15, 16 by Zaine
+ * Tests 14 - 22 by Zaine
  */
 public class StoreTests {
 
@@ -421,8 +422,9 @@ public class StoreTests {
 		}
 		
 		//take the cost of each of the truck's hire from the expected capital
-		expectedCapital -= manifest.get(0).getPrice();
-		expectedCapital -= manifest.get(1).getPrice();
+		//(the store is charged each truck's price rounded to the nearest cent)
+		expectedCapital -= Money.toDollars(manifest.get(0).getPriceCents());
+		expectedCapital -= Money.toDollars(manifest.get(1).getPriceCents());
 		
 		//perform the import manifest, and then assert that the changes made are true.
 		//each item in the stores inventore should now have an increased stock
@@ -541,4 +543,174 @@ public class StoreTests {
 		}
 		
 		//Test 16: Test that Import Manifest correctly throws Exception Error
+	
+	//Test 17: Test that a sale which fails part way through doesn't change the store at all
+	@Test
+	public void importSalesAllOrNothingTest() {
+		Stock inventory = new Stock();
+		inventory.addItem(testItem1);
+		inventory.AddQuantity(testItem1, 10);
+		inventory.addItem(testItem2);
+		inventory.AddQuantity(testItem2, 1);
+		
+		Store testStore = new Store("testStore", 100, inventory);
+		
+		//testItem1 can be sold, but there's only one testItem2 to sell
+		Stock sales = new Stock();
+		sales.addItem(testItem1);
+		sales.AddQuantity(testItem1, 5);
+		sales.addItem(testItem2);
+		sales.AddQuantity(testItem2, 2);
+		
+		try {
+			testStore.ImportSales(sales);
+			fail("selling more than the store has should throw a StockException");
+		} catch (StockException e) {
+			//expected
+		}
+		
+		assertEquals(10, inventory.getQuantity(testItem1));
+		assertEquals(1, inventory.getQuantity(testItem2));
+		assertEquals(100, testStore.getCapital(), 0);
+	}
+	
+	//Test 18: Test that capital adds up exactly in cents over many sales
+	@Test
+	public void exactCapitalTest() throws StockException {
+		Item cheapItem = new Item("cheapItem", 0.05, 0.10, 0, 0);
+		Stock inventory = new Stock();
+		inventory.addItem(cheapItem);
+		inventory.AddQuantity(cheapItem, 100000);
+		
+		Store testStore = new Store("testStore", 0, inventory);
+		
+		//sell one at a time, 100,000 sales of 10 cents is exactly $10,000
+		Stock sale = new Stock();
+		sale.addItem(cheapItem);
+		sale.AddQuantity(cheapItem, 1);
+		for (int i = 0; i < 100000; i++) {
+			testStore.ImportSales(sale);
+		}
+		
+		assertEquals(1000000, testStore.getCapitalCents());
+		assertEquals(10000, testStore.getCapital(), 0);
+	}
+	
+	//Test 19: Test the new order follows quantity changes as they cross each item's reorder point
+	@Test
+	public void reorderFollowsChangesTest() throws StockException {
+		Item pasta = new Item("pasta", 2.0, 3.0, 10, 50);
+		Item biscuits = new Item("biscuits", 2.0, 3.0, 10, 50);
+		Item milk = new Item("milk", 2.0, 3.0, 10, 50, 3);
+		Stock inventory = new Stock();
+		inventory.addItem(pasta);
+		inventory.addItem(biscuits);
+		inventory.AddQuantity(biscuits, 100);
+		
+		Store testStore = new Store("testStore", 1000, inventory);
+		
+		//only pasta starts at or below its reorder point
+		ArrayList<Item> expected = new ArrayList<Item>();
+		expected.add(pasta);
+		assertEquals(expected, testStore.generateNewOrder());
+		
+		//selling biscuits down to exactly the reorder point adds them (tied with pasta, so in name order)
+		testStore.ChangeQuantity(biscuits, -90);
+		expected.add(0, biscuits);
+		assertEquals(expected, testStore.generateNewOrder());
+		
+		//restocking pasta takes it back off, and a new cold item goes before the dry items
+		inventory.SetQuantity(pasta, 11);
+		inventory.addItem(milk);
+		expected.remove(pasta);
+		expected.add(0, milk);
+		assertEquals(expected, testStore.generateNewOrder());
+		
+		//removing an item takes it off the order too
+		inventory.removeItem(milk);
+		expected.remove(milk);
+		assertEquals(expected, testStore.generateNewOrder());
+	}
+	
+	//Test 20: Test a stock swapped into the store is indexed, and the old stock is no longer followed
+	@Test
+	public void reorderAfterSetStockTest() {
+		Item pasta = new Item("pasta", 2.0, 3.0, 10, 50);
+		Stock oldStock = new Stock();
+		oldStock.addItem(pasta);
+		Store testStore = new Store("testStore", 1000, oldStock);
+		
+		Stock newStock = new Stock();
+		newStock.addItem(pasta);
+		newStock.AddQuantity(pasta, 20);
+		testStore.SetStock(newStock);
+		assertTrue(testStore.generateNewOrder().isEmpty());
+		
+		//changes to the old stock don't affect the store any more
+		oldStock.AddQuantity(pasta, 1);
+		oldStock.removeItem(pasta);
+		assertTrue(testStore.generateNewOrder().isEmpty());
+		
+		newStock.AddQuantity(pasta, -15);
+		assertEquals(1, testStore.generateNewOrder().size());
+	}
+	
+	//Test 21: Test a manifest that fails on a later truck leaves the stock and capital unchanged
+	@Test
+	public void importManifestRollbackTest() throws DeliveryException, DryException {
+		Item pasta = new Item("pasta", 2.0, 3.0, 10, 50);
+		Item milk = new Item("milk", 1.0, 2.0, 10, 50, 3);
+		Item missing = new Item("missing", 1.0, 2.0, 10, 50);
+		Stock inventory = new Stock();
+		inventory.addItem(pasta);
+		inventory.addItem(milk);
+		Store testStore = new Store("testStore", 1000, inventory);
+		
+		Stock cargo1 = new Stock();
+		cargo1.addItem(pasta);
+		cargo1.AddQuantity(pasta, 100);
+		Stock cargo2 = new Stock();
+		cargo2.addItem(milk);
+		cargo2.AddQuantity(milk, 50);
+		cargo2.addItem(missing);
+		cargo2.AddQuantity(missing, 10);
+		
+		Manifest manifest = new Manifest();
+		manifest.add(new OrdinaryTruck(cargo1));
+		manifest.add(new RefrigeratedTruck(cargo2));
+		
+		try {
+			testStore.ImportManifest(manifest);
+			fail("a manifest referencing a missing item should throw a DeliveryException");
+		} catch (DeliveryException | StockException e) {
+			//expected
+		}
+		
+		//the first truck wasn't applied either
+		assertEquals(0, inventory.getQuantity(pasta));
+		assertEquals(0, inventory.getQuantity(milk));
+		assertEquals(100000, testStore.getCapitalCents());
+	}
+	
+	//Test 22: Test the same item on two trucks is delivered in full
+	@Test
+	public void importManifestSharedItemTest() throws DeliveryException, DryException, StockException {
+		Item pasta = new Item("pasta", 2.0, 3.0, 10, 50);
+		Stock inventory = new Stock();
+		inventory.addItem(pasta);
+		Store testStore = new Store("testStore", 10000, inventory);
+		
+		Manifest manifest = new Manifest();
+		for (int i = 0; i < 2; i++) {
+			Stock cargo = new Stock();
+			cargo.addItem(pasta);
+			cargo.AddQuantity(pasta, 100);
+			manifest.add(new OrdinaryTruck(cargo));
+		}
+		testStore.ImportManifest(manifest);
+		
+		//200 pasta at $2, and two trucks of 100 units at $750 + 25 cents per unit
+		assertEquals(200, inventory.getQuantity(pasta));
+		assertEquals(1000000 - 40000 - 2 * 77500, testStore.getCapitalCents());
+	}
 }